@@ -100,6 +100,7 @@ CREATE TABLE trips (
     base_price_per_km DOUBLE PRECISION NOT NULL,
     available_seats INTEGER NOT NULL,
     booked_seats INTEGER NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0, -- optimistic lock, bumped by every counter update
     status VARCHAR(50) NOT NULL DEFAULT 'SCHEDULED' CHECK (status IN ('SCHEDULED', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED')),
     special_instructions TEXT,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -112,6 +113,7 @@ CREATE TABLE trips (
 -- Create indexes for trips table for efficient searching
 CREATE INDEX idx_trip_date ON trips(departure_time);
 CREATE INDEX idx_trip_status ON trips(status);
+CREATE INDEX idx_trip_route_status_departure ON trips(route_id, status, departure_time);
 
 -- Trip Seats Table
 CREATE TABLE trip_seats (
@@ -120,6 +122,7 @@ CREATE TABLE trip_seats (
     seat_number VARCHAR(10) NOT NULL,
     is_available BOOLEAN NOT NULL DEFAULT true,
     is_driver_seat BOOLEAN NOT NULL DEFAULT false,
+    occupied_segments BIGINT NOT NULL DEFAULT 0, -- bit k-1 set = segment from stop k to k+1 booked
     FOREIGN KEY (trip_id) REFERENCES trips(id) ON DELETE CASCADE,
     UNIQUE (trip_id, seat_number)
 );
@@ -161,6 +164,31 @@ CREATE TABLE booking_seats (
     FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE CASCADE
 );
 
+-- Waitlist Entries Table (passengers waiting for seats on a sold-out trip leg)
+CREATE TABLE waitlist_entries (
+    id BIGSERIAL PRIMARY KEY,
+    trip_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    boarding_city VARCHAR(255) NOT NULL,
+    boarding_sub_location VARCHAR(255) NOT NULL,
+    drop_city VARCHAR(255) NOT NULL,
+    drop_sub_location VARCHAR(255) NOT NULL,
+    boarding_sequence INTEGER NOT NULL,
+    drop_sequence INTEGER NOT NULL,
+    number_of_seats INTEGER NOT NULL,
+    status VARCHAR(50) NOT NULL DEFAULT 'WAITING' CHECK (status IN ('WAITING', 'PROMOTED', 'CANCELLED', 'EXPIRED')),
+    booking_id BIGINT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (trip_id) REFERENCES trips(id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE SET NULL
+);
+
+-- Create indexes for waitlist_entries table
+CREATE INDEX idx_waitlist_trip_status ON waitlist_entries(trip_id, status, id);
+CREATE INDEX idx_waitlist_user ON waitlist_entries(user_id);
+
 -- Payments Table
 CREATE TABLE payments (
     id BIGSERIAL PRIMARY KEY,
@@ -205,6 +233,7 @@ CREATE TABLE invalidated_tokens (
 -- Indexes for invalidated_tokens
 CREATE INDEX idx_invalidated_token ON invalidated_tokens(token);
 CREATE INDEX idx_invalidated_expires_at ON invalidated_tokens(expires_at);
+CREATE INDEX idx_invalidated_at ON invalidated_tokens(invalidated_at);
   
 -- Database Optimization Notes:
 -- 1. All foreign keys have ON DELETE CASCADE for referential integrity
@@ -294,3 +323,6 @@ CREATE TRIGGER update_bookings_updated_at BEFORE UPDATE ON bookings
 CREATE TRIGGER update_payments_updated_at BEFORE UPDATE ON payments
     FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 
+CREATE TRIGGER update_waitlist_entries_updated_at BEFORE UPDATE ON waitlist_entries
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
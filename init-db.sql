@@ -94,6 +94,7 @@ CREATE TABLE IF NOT EXISTS trips (
     estimated_arrival_time TIMESTAMP NOT NULL,
     available_seats INTEGER NOT NULL,
     booked_seats INTEGER NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0, -- optimistic lock, bumped by every counter update
     status VARCHAR(50) NOT NULL DEFAULT 'SCHEDULED' CHECK (status IN ('SCHEDULED', 'IN_PROGRESS', 'COMPLETED', 'CANCELLED')),
     special_instructions TEXT,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -106,6 +107,10 @@ CREATE TABLE IF NOT EXISTS trips (
 -- Indexes for trips
 CREATE INDEX IF NOT EXISTS idx_trip_date ON trips(departure_time);
 CREATE INDEX IF NOT EXISTS idx_trip_status ON trips(status);
+CREATE INDEX IF NOT EXISTS idx_trip_route_status_departure ON trips(route_id, status, departure_time);
+
+-- Databases created before optimistic locking of trips
+ALTER TABLE trips ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
 
 -- Trip Seats Table
 CREATE TABLE IF NOT EXISTS trip_seats (
@@ -114,10 +119,14 @@ CREATE TABLE IF NOT EXISTS trip_seats (
     seat_number VARCHAR(10) NOT NULL,
     is_available BOOLEAN NOT NULL DEFAULT true,
     is_driver_seat BOOLEAN NOT NULL DEFAULT false,
+    occupied_segments BIGINT NOT NULL DEFAULT 0, -- bit k-1 set = segment from stop k to k+1 booked
     FOREIGN KEY (trip_id) REFERENCES trips(id) ON DELETE CASCADE,
     UNIQUE (trip_id, seat_number)
 );
 
+-- Databases created before per-segment seat occupancy
+ALTER TABLE trip_seats ADD COLUMN IF NOT EXISTS occupied_segments BIGINT NOT NULL DEFAULT 0;
+
 -- Bookings Table
 CREATE TABLE IF NOT EXISTS bookings (
     id BIGSERIAL PRIMARY KEY,
@@ -174,6 +183,31 @@ CREATE INDEX IF NOT EXISTS idx_route_price_route ON route_prices(route_id);
 CREATE INDEX IF NOT EXISTS idx_route_price_boarding ON route_prices(boarding_point_id);
 CREATE INDEX IF NOT EXISTS idx_route_price_drop ON route_prices(drop_point_id);
 
+-- Waitlist Entries Table (passengers waiting for seats on a sold-out trip leg)
+CREATE TABLE IF NOT EXISTS waitlist_entries (
+    id BIGSERIAL PRIMARY KEY,
+    trip_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    boarding_city VARCHAR(255) NOT NULL,
+    boarding_sub_location VARCHAR(255) NOT NULL,
+    drop_city VARCHAR(255) NOT NULL,
+    drop_sub_location VARCHAR(255) NOT NULL,
+    boarding_sequence INTEGER NOT NULL,
+    drop_sequence INTEGER NOT NULL,
+    number_of_seats INTEGER NOT NULL,
+    status VARCHAR(50) NOT NULL DEFAULT 'WAITING' CHECK (status IN ('WAITING', 'PROMOTED', 'CANCELLED', 'EXPIRED')),
+    booking_id BIGINT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (trip_id) REFERENCES trips(id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE SET NULL
+);
+
+-- Indexes for waitlist_entries
+CREATE INDEX IF NOT EXISTS idx_waitlist_trip_status ON waitlist_entries(trip_id, status, id);
+CREATE INDEX IF NOT EXISTS idx_waitlist_user ON waitlist_entries(user_id);
+
 -- Payments Table
 CREATE TABLE IF NOT EXISTS payments (
     id BIGSERIAL PRIMARY KEY,
@@ -208,6 +242,7 @@ CREATE TABLE IF NOT EXISTS invalidated_tokens (
 -- Indexes for invalidated_tokens
 CREATE INDEX IF NOT EXISTS idx_invalidated_token ON invalidated_tokens(token);
 CREATE INDEX IF NOT EXISTS idx_invalidated_expires_at ON invalidated_tokens(expires_at);
+CREATE INDEX IF NOT EXISTS idx_invalidated_at ON invalidated_tokens(invalidated_at);
   
 -- Views for Common Queries
 CREATE OR REPLACE VIEW available_trips_summary AS
@@ -282,4 +317,8 @@ DROP TRIGGER IF EXISTS update_payments_updated_at ON payments;
 CREATE TRIGGER update_payments_updated_at BEFORE UPDATE ON payments
     FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 
+DROP TRIGGER IF EXISTS update_waitlist_entries_updated_at ON waitlist_entries;
+CREATE TRIGGER update_waitlist_entries_updated_at BEFORE UPDATE ON waitlist_entries
+    FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+
 
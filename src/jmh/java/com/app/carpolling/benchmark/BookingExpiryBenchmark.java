@@ -0,0 +1,116 @@
+package com.app.carpolling.benchmark;
+
+import com.app.carpolling.dto.BookingSeatRow;
+import com.app.carpolling.entity.TripSeat;
+import com.app.carpolling.inventory.SeatHoldStore;
+import com.app.carpolling.inventory.SeatInventory;
+import com.app.carpolling.inventory.SegmentMask;
+import com.app.carpolling.inventory.TripWriteExecutor;
+import com.app.carpolling.repository.BookingRepository;
+import com.app.carpolling.repository.TripRepository;
+import com.app.carpolling.repository.TripSeatRepository;
+import com.app.carpolling.service.BookingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * BookingService.expireBookings on one sweep chunk of 500 bookings spread over 100 trips,
+ * with the database replaced by in-memory rows. Reported per expired booking.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingExpiryBenchmark {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private CorridorFixture fixture;
+    private BookingService bookingService;
+    private final List<Long> bookingIds = new ArrayList<>();
+    private final List<BookingSeatRow> seatRows = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        Fixtures.quietLogging();
+        fixture = new CorridorFixture(25, 20, 4, 6);
+
+        // Five single-seat bookings per trip on varying legs
+        long bookingId = 0;
+        for (Long tripId : fixture.tripIds) {
+            for (int seat = 1; seat <= 5; seat++) {
+                bookingIds.add(++bookingId);
+                int boarding = 1 + (int) (bookingId % 10);
+                seatRows.add(new BookingSeatRow(bookingId, tripId, 1L, CorridorFixture.TRAVEL_DATE.atTime(6, 0), boarding, boarding + 8, "S" + seat));
+            }
+        }
+
+        TripSeatRepository tripSeatRepository = Fixtures.stub(TripSeatRepository.class, Map.of(
+            "findForUpdate", args -> fixture.seatsByTrip.get((Long) args[0]).stream()
+                .filter(seat -> ((Collection<?>) args[1]).contains(seat.getSeatNumber()))
+                .collect(Collectors.toList())
+        ));
+        TripRepository tripRepository = Fixtures.stub(TripRepository.class, Map.of(
+            "releaseSeatCount", args -> 1
+        ));
+        SeatInventory seatInventory = new SeatInventory(tripSeatRepository, tripRepository, new SeatHoldStore());
+        Fixtures.setField(seatInventory, "maxTrips", 10_000);
+
+        BookingRepository bookingRepository = Fixtures.stub(BookingRepository.class, Map.of(
+            "lockExpired", args -> args[0],
+            "markAllCancelled", args -> ((List<?>) args[0]).size(),
+            "findSeatRows", args -> seatRows
+        ));
+        // Transactions are no-ops and the single-writer mode stays off, as by default
+        PlatformTransactionManager transactionManager = Fixtures.stub(PlatformTransactionManager.class, Map.of(
+            "getTransaction", args -> new SimpleTransactionStatus(),
+            "commit", args -> null
+        ));
+        bookingService = new BookingService(bookingRepository, null, null, seatInventory, null, null, event -> { },
+            new TransactionTemplate(transactionManager), new TripWriteExecutor(new SimpleMeterRegistry()));
+    }
+
+    /**
+     * Put every booking's seats back on hold before each chunk
+     */
+    @Setup(Level.Invocation)
+    public void holdSeats() {
+        for (BookingSeatRow row : seatRows) {
+            for (TripSeat seat : fixture.seatsByTrip.get(row.getTripId())) {
+                if (seat.getSeatNumber().equals(row.getSeatNumber())) {
+                    seat.setOccupiedSegments(SegmentMask.of(row.getBoardingSequenceOrder(), row.getDropSequenceOrder()));
+                    seat.setIsAvailable(false);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public int expireChunk() {
+        return bookingService.expireBookings(bookingIds);
+    }
+}
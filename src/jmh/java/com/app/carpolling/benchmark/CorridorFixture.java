@@ -0,0 +1,137 @@
+package com.app.carpolling.benchmark;
+
+import com.app.carpolling.dto.RoutePriceEntry;
+import com.app.carpolling.dto.SeatOccupancyRow;
+import com.app.carpolling.dto.TripSearchRow;
+import com.app.carpolling.entity.Trip;
+import com.app.carpolling.entity.TripSeat;
+import com.app.carpolling.entity.VehicleType;
+import com.app.carpolling.index.RouteStop;
+import com.app.carpolling.inventory.SegmentMask;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generated in-memory data for a busy multi-stop corridor: routes that all visit the same
+ * cities in order, trips on each route for one day, their seats and full price matrices.
+ *
+ * Route r uses route point ids r * 1000 + sequenceOrder; trip t of route r has id r * 1000 + t.
+ */
+final class CorridorFixture {
+
+    static final LocalDate TRAVEL_DATE = LocalDate.of(2030, 1, 15);
+
+    final int routeCount;
+    final int stopsPerRoute;
+    final int tripsPerRoute;
+    final int seatsPerTrip;
+
+    final List<RouteStop> stops = new ArrayList<>();
+    final Map<Long, List<RoutePriceEntry>> pricesByRoute = new HashMap<>();
+    final Map<Long, List<TripSeat>> seatsByTrip = new HashMap<>();
+    final List<Long> tripIds = new ArrayList<>();
+
+    CorridorFixture(int routeCount, int stopsPerRoute, int tripsPerRoute, int seatsPerTrip) {
+        this.routeCount = routeCount;
+        this.stopsPerRoute = stopsPerRoute;
+        this.tripsPerRoute = tripsPerRoute;
+        this.seatsPerTrip = seatsPerTrip;
+
+        for (long routeId = 1; routeId <= routeCount; routeId++) {
+            List<RoutePriceEntry> prices = new ArrayList<>();
+            for (int seq = 1; seq <= stopsPerRoute; seq++) {
+                stops.add(new RouteStop(routeId, city(seq), seq));
+                for (int drop = seq + 1; drop <= stopsPerRoute; drop++) {
+                    prices.add(new RoutePriceEntry(pointId(routeId, seq), pointId(routeId, drop), 50.0 * (drop - seq)));
+                }
+            }
+            pricesByRoute.put(routeId, prices);
+
+            for (int t = 1; t <= tripsPerRoute; t++) {
+                Trip trip = new Trip();
+                trip.setId(routeId * 1000 + t);
+                tripIds.add(trip.getId());
+                seatsByTrip.put(trip.getId(), seats(trip));
+            }
+        }
+    }
+
+    static String city(int sequenceOrder) {
+        return String.format("City%02d", sequenceOrder);
+    }
+
+    static long pointId(long routeId, int sequenceOrder) {
+        return routeId * 1000 + sequenceOrder;
+    }
+
+    static long routeOf(long tripId) {
+        return tripId / 1000;
+    }
+
+    /**
+     * Search rows as TripRepository.findTripSearchRows returns them for a city pair
+     */
+    List<TripSearchRow> searchRows(int boardingSequence, int dropSequence) {
+        List<TripSearchRow> rows = new ArrayList<>();
+        for (Long tripId : tripIds) {
+            long routeId = routeOf(tripId);
+            LocalDateTime departure = TRAVEL_DATE.atTime(6, 0).plusMinutes(tripId % 1000 * 15 + routeId);
+            rows.add(new TripSearchRow(
+                tripId, routeId, departure, "Route " + routeId,
+                "Driver " + routeId, "90000" + routeId, 4.5,
+                "Maruti", "Ertiga", "White", "KA01AB" + tripId, VehicleType.SUV, true,
+                pointId(routeId, boardingSequence), boardingSequence, (boardingSequence - 1) * 20_000, (boardingSequence - 1) * 25,
+                pointId(routeId, dropSequence), dropSequence, (dropSequence - 1) * 20_000, (dropSequence - 1) * 25
+            ));
+        }
+        rows.sort((a, b) -> a.getDepartureTime().compareTo(b.getDepartureTime()));
+        return rows;
+    }
+
+    /**
+     * Seat occupancy rows for the given trips, as TripSeatRepository.findSeatOccupancy returns them
+     */
+    List<SeatOccupancyRow> occupancyRows(List<Long> trips) {
+        List<SeatOccupancyRow> rows = new ArrayList<>();
+        for (Long tripId : trips) {
+            for (TripSeat seat : seatsByTrip.get(tripId)) {
+                if (!seat.getIsDriverSeat()) {
+                    rows.add(new SeatOccupancyRow(tripId, seat.getIsAvailable(), seat.getOccupiedSegments()));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Book a random leg on some seats of every trip so availability checks have real work to do
+     */
+    void bookRandomLegs(long seed, double seatShare) {
+        Random random = new Random(seed);
+        for (List<TripSeat> seats : seatsByTrip.values()) {
+            for (TripSeat seat : seats) {
+                if (!seat.getIsDriverSeat() && random.nextDouble() < seatShare) {
+                    int boarding = 1 + random.nextInt(stopsPerRoute - 1);
+                    int drop = boarding + 1 + random.nextInt(stopsPerRoute - boarding);
+                    seat.setOccupiedSegments(SegmentMask.of(boarding, drop));
+                    seat.setIsAvailable(false);
+                }
+            }
+        }
+    }
+
+    private List<TripSeat> seats(Trip trip) {
+        List<TripSeat> seats = new ArrayList<>();
+        seats.add(new TripSeat(trip.getId() * 100, trip, "D1", false, 0L, true));
+        for (int i = 1; i <= seatsPerTrip; i++) {
+            seats.add(new TripSeat(trip.getId() * 100 + i, trip, "S" + i, true, 0L, false));
+        }
+        return seats;
+    }
+}
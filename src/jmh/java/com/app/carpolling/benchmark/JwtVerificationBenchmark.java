@@ -0,0 +1,87 @@
+package com.app.carpolling.benchmark;
+
+import com.app.carpolling.cache.VerifiedTokenCache;
+import com.app.carpolling.utils.BloomFilter;
+import com.app.carpolling.utils.JWTUtils;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request in JWTFilter.
+ *
+ * legacyValidateThenExtract reproduces the previous path: validateToken and extractPhoneNumber
+ * each built a new parser and verified the token. verifyOnce is the shared-parser path taken on
+ * a cache miss, cachedSubject the verified-claims cache hit, and blacklistThenCached adds the
+ * Bloom-filter blacklist check that precedes it on every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtVerificationBenchmark {
+
+    private JWTUtils jwtUtils;
+    private Key secretKey;
+    private VerifiedTokenCache cache;
+    private BloomFilter blacklist;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        Fixtures.quietLogging();
+        jwtUtils = new JWTUtils();
+        secretKey = (Key) Fixtures.getStatic(JWTUtils.class, "secretKey");
+        token = jwtUtils.generateToken("9876543210");
+
+        cache = new VerifiedTokenCache(new SimpleMeterRegistry());
+        Fixtures.setField(cache, "maxEntries", 50_000);
+        Fixtures.setField(cache, "ttlSeconds", 300L);
+        cache.put(token, jwtUtils.verifyToken(token));
+
+        blacklist = new BloomFilter(100_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            blacklist.put(jwtUtils.generateToken("90000" + String.format("%05d", i)));
+        }
+    }
+
+    @Benchmark
+    public String legacyValidateThenExtract() {
+        // validateToken
+        Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(token);
+        // extractPhoneNumber
+        return Jwts.parserBuilder().setSigningKey(secretKey).build().parseClaimsJws(token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public String verifyOnce() {
+        return jwtUtils.verifyToken(token).getSubject();
+    }
+
+    @Benchmark
+    public String cachedSubject() {
+        return cache.getSubject(token);
+    }
+
+    @Benchmark
+    public String blacklistThenCached() {
+        if (blacklist.mightContain(token)) {
+            return null;
+        }
+        return cache.getSubject(token);
+    }
+}
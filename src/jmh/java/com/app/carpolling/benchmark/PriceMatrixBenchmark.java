@@ -0,0 +1,74 @@
+package com.app.carpolling.benchmark;
+
+import com.app.carpolling.cache.RoutePriceCache;
+import com.app.carpolling.repository.RoutePriceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RoutePriceCache lookups: a hit on a cached matrix, and a reload of a 20-stop route's
+ * matrix (190 prices) after invalidation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PriceMatrixBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    private RoutePriceCache cache;
+    private final long[][] lookups = new long[LOOKUPS][];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Fixtures.quietLogging();
+        CorridorFixture fixture = new CorridorFixture(200, 20, 1, 4);
+        cache = new RoutePriceCache(
+            Fixtures.stub(RoutePriceRepository.class, Map.of(
+                "findPriceEntriesByRouteId", args -> fixture.pricesByRoute.get((Long) args[0])
+            )),
+            new SimpleMeterRegistry()
+        );
+        Fixtures.setField(cache, "maxRoutes", 2000);
+
+        Random random = new Random(7);
+        for (int i = 0; i < LOOKUPS; i++) {
+            long routeId = 1 + random.nextInt(fixture.routeCount);
+            int boarding = 1 + random.nextInt(fixture.stopsPerRoute - 1);
+            int drop = boarding + 1 + random.nextInt(fixture.stopsPerRoute - boarding);
+            lookups[i] = new long[]{routeId, CorridorFixture.pointId(routeId, boarding), CorridorFixture.pointId(routeId, drop)};
+            cache.getMatrix(routeId);
+        }
+    }
+
+    @Benchmark
+    public Optional<Double> cachedLookup() {
+        long[] lookup = lookups[next++ & (LOOKUPS - 1)];
+        return cache.findPrice(lookup[0], lookup[1], lookup[2]);
+    }
+
+    @Benchmark
+    public Optional<Double> reloadAfterInvalidation() {
+        long[] lookup = lookups[next++ & (LOOKUPS - 1)];
+        cache.invalidate(lookup[0]);
+        return cache.findPrice(lookup[0], lookup[1], lookup[2]);
+    }
+}
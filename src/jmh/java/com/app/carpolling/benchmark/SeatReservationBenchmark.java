@@ -0,0 +1,101 @@
+package com.app.carpolling.benchmark;
+
+import com.app.carpolling.dto.SeatStateRow;
+import com.app.carpolling.entity.TripSeat;
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.inventory.SeatHoldStore;
+import com.app.carpolling.inventory.SeatInventory;
+import com.app.carpolling.inventory.SegmentMask;
+import com.app.carpolling.repository.TripRepository;
+import com.app.carpolling.repository.TripSeatRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * SeatInventory reserve/release on a 20-stop trip with the database replaced by in-memory seats:
+ * the segment-mask claim, the row check and counter updates, and rejection of an overlapping leg.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeatReservationBenchmark {
+
+    private SeatInventory seatInventory;
+    private long tripId;
+    private long busyTripId;
+    private final long leg = SegmentMask.of(3, 9);
+    private final List<String> oneSeat = List.of("S2");
+    private final List<String> threeSeats = List.of("S3", "S4", "S5");
+
+    @Setup
+    public void setUp() {
+        Fixtures.quietLogging();
+        CorridorFixture fixture = new CorridorFixture(1, 20, 2, 6);
+        tripId = fixture.tripIds.get(0);
+        busyTripId = fixture.tripIds.get(1);
+
+        // S1 of the second trip is taken on a leg overlapping the one requested
+        TripSeat busySeat = fixture.seatsByTrip.get(busyTripId).get(1);
+        busySeat.setOccupiedSegments(SegmentMask.of(5, 12));
+        busySeat.setIsAvailable(false);
+
+        TripSeatRepository tripSeatRepository = Fixtures.stub(TripSeatRepository.class, Map.of(
+            "findSeatStates", args -> fixture.seatsByTrip.get((Long) args[0]).stream()
+                .map(seat -> new SeatStateRow(seat.getSeatNumber(), seat.getIsAvailable(),
+                    seat.getIsDriverSeat(), seat.getOccupiedSegments()))
+                .collect(Collectors.toList()),
+            "findForUpdate", args -> seats(fixture.seatsByTrip.get((Long) args[0]), (Collection<?>) args[1])
+        ));
+        TripRepository tripRepository = Fixtures.stub(TripRepository.class, Map.of(
+            "reserveSeatCount", args -> 1,
+            "releaseSeatCount", args -> 1
+        ));
+        seatInventory = new SeatInventory(tripSeatRepository, tripRepository, new SeatHoldStore());
+        Fixtures.setField(seatInventory, "maxTrips", 10_000);
+    }
+
+    @Benchmark
+    public void reserveAndReleaseOneSeat() {
+        seatInventory.reserve(tripId, oneSeat, leg);
+        seatInventory.release(tripId, oneSeat, leg);
+    }
+
+    @Benchmark
+    public void reserveAndReleaseThreeSeats() {
+        seatInventory.reserve(tripId, threeSeats, leg);
+        seatInventory.release(tripId, threeSeats, leg);
+    }
+
+    @Benchmark
+    public boolean rejectOverlappingLeg() {
+        try {
+            seatInventory.reserve(busyTripId, List.of("S1"), leg);
+            return true;
+        } catch (BaseException e) {
+            return false;
+        }
+    }
+
+    private static List<TripSeat> seats(List<TripSeat> tripSeats, Collection<?> seatNumbers) {
+        return tripSeats.stream()
+            .filter(seat -> seatNumbers.contains(seat.getSeatNumber()))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,118 @@
+package com.app.carpolling.benchmark;
+
+import com.app.carpolling.cache.RoutePriceCache;
+import com.app.carpolling.cache.TripSearchCache;
+import com.app.carpolling.dto.SeatOccupancyRow;
+import com.app.carpolling.dto.TripSearchRequest;
+import com.app.carpolling.dto.TripSearchResponse;
+import com.app.carpolling.dto.TripSearchRow;
+import com.app.carpolling.index.LocationAutocompleteIndex;
+import com.app.carpolling.index.LocationPoint;
+import com.app.carpolling.index.RouteSearchIndex;
+import com.app.carpolling.index.RouteStop;
+import com.app.carpolling.repository.RoutePointRepository;
+import com.app.carpolling.repository.RoutePriceRepository;
+import com.app.carpolling.repository.TripRepository;
+import com.app.carpolling.repository.TripSeatRepository;
+import com.app.carpolling.service.RouteService;
+import com.app.carpolling.service.TripService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TripService.searchTrips with the database replaced by generated rows: route index lookup,
+ * leg-aware free seat counting, price matrix lookups and response building for every trip
+ * running on a busy corridor that day.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TripSearchBenchmark {
+
+    @Param({"20"})
+    public int stopsPerRoute;
+
+    @Param({"50"})
+    public int routes;
+
+    private TripService tripService;
+    private TripSearchRequest request;
+
+    @Setup
+    public void setUp() {
+        Fixtures.quietLogging();
+        CorridorFixture fixture = new CorridorFixture(routes, stopsPerRoute, 4, 6);
+        fixture.bookRandomLegs(42, 0.5);
+
+        int boarding = 2;
+        int drop = stopsPerRoute - 5;
+        List<TripSearchRow> rows = fixture.searchRows(boarding, drop);
+        List<SeatOccupancyRow> occupancy = fixture.occupancyRows(fixture.tripIds);
+
+        List<LocationPoint> locations = new ArrayList<>();
+        for (RouteStop stop : fixture.stops) {
+            locations.add(new LocationPoint((long) locations.size() + 1, stop.getRouteId(), stop.getCity(),
+                "Central", true, true));
+        }
+        RoutePointRepository routePointRepository = Fixtures.stub(RoutePointRepository.class, Map.of(
+            "findActiveRouteStops", args -> fixture.stops,
+            "findAllLocationPoints", args -> locations
+        ));
+        RouteSearchIndex routeSearchIndex = new RouteSearchIndex(routePointRepository);
+        routeSearchIndex.rebuild();
+        LocationAutocompleteIndex locationIndex = new LocationAutocompleteIndex(routePointRepository);
+        locationIndex.rebuild();
+        RouteService routeService = new RouteService(null, routePointRepository, null, null, routeSearchIndex,
+            locationIndex, null);
+
+        RoutePriceCache routePriceCache = new RoutePriceCache(
+            Fixtures.stub(RoutePriceRepository.class, Map.of(
+                "findPriceEntriesByRouteId", args -> fixture.pricesByRoute.get((Long) args[0])
+            )),
+            new SimpleMeterRegistry()
+        );
+        Fixtures.setField(routePriceCache, "maxRoutes", 2000);
+
+        TripRepository tripRepository = Fixtures.stub(TripRepository.class, Map.of(
+            "findTripSearchRows", args -> rows
+        ));
+        TripSeatRepository tripSeatRepository = Fixtures.stub(TripSeatRepository.class, Map.of(
+            "findSeatOccupancy", args -> occupancy
+        ));
+        // No result reuse: every invocation measures the full search
+        TripSearchCache tripSearchCache = new TripSearchCache(new SimpleMeterRegistry());
+        Fixtures.setField(tripSearchCache, "ttlMillis", 0L);
+        Fixtures.setField(tripSearchCache, "maxTrips", 200000);
+        tripService = new TripService(tripRepository, tripSeatRepository, routePointRepository,
+            routePriceCache, routeService, null, null, tripSearchCache, null, null, null, null);
+
+        request = new TripSearchRequest();
+        request.setBoardingPoint(CorridorFixture.city(boarding));
+        request.setDropPoint(CorridorFixture.city(drop));
+        request.setTravelDate(CorridorFixture.TRAVEL_DATE);
+        request.setRequiredSeats(1);
+    }
+
+    @Benchmark
+    public List<TripSearchResponse> searchTrips() {
+        return tripService.searchTrips(request);
+    }
+}
@@ -0,0 +1,152 @@
+package com.app.carpolling.cache;
+
+import com.app.carpolling.dto.RoutePriceEntry;
+import com.app.carpolling.event.RouteChangedEvent;
+import com.app.carpolling.repository.RoutePriceRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-route price matrix cache indexed by (boardingPointId, dropPointId).
+ *
+ * Holds at most route.price.cache.max-routes matrices and evicts the least recently used one.
+ * A matrix is loaded with a single query on first use and dropped after setRoutePrices commits
+ * on this instance. Loads racing with an invalidation are discarded, so a replaced matrix is never
+ * cached again. Prices set through other instances are picked up once a matrix is older than
+ * route.price.cache.ttl-ms. Matrices are read-only, as every caller shares them.
+ *
+ * Metrics: cache.gets{cache=routePrices,result=hit|miss}, cache.evictions, cache.size
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoutePriceCache {
+
+    private static final String CACHE_NAME = "routePrices";
+
+    private final RoutePriceRepository routePriceRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${route.price.cache.max-routes:2000}")
+    private int maxRoutes;
+
+    @Value("${route.price.cache.ttl-ms:30000}")
+    private long ttlMillis = 30000;
+
+    // Access-ordered for LRU eviction; guarded by "this"
+    private final LinkedHashMap<Long, Entry> matrices = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() > maxRoutes) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // Bumped on every invalidation; a load only publishes its result if no invalidation happened meanwhile
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    void registerMetrics() {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+            .tag("cache", CACHE_NAME).tag("result", "hit")
+            .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+            .tag("cache", CACHE_NAME).tag("result", "miss")
+            .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+            .tag("cache", CACHE_NAME)
+            .register(meterRegistry);
+        Gauge.builder("cache.size", this, RoutePriceCache::size)
+            .tag("cache", CACHE_NAME)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Fixed price per seat for a boarding-drop combination
+     * @return empty if no price is configured for the combination
+     */
+    public Optional<Double> findPrice(Long routeId, Long boardingPointId, Long dropPointId) {
+        Map<Long, Double> row = getMatrix(routeId).get(boardingPointId);
+        return Optional.ofNullable(row != null ? row.get(dropPointId) : null);
+    }
+
+    /**
+     * Price matrix of a route: boardingPointId -> dropPointId -> price, unmodifiable
+     */
+    public Map<Long, Map<Long, Double>> getMatrix(Long routeId) {
+        synchronized (this) {
+            Entry entry = matrices.get(routeId);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return entry.matrix;
+            }
+        }
+        misses.incrementAndGet();
+
+        long loadedAt = generation.get();
+        Map<Long, Map<Long, Double>> matrix = load(routeId);
+
+        synchronized (this) {
+            if (generation.get() == loadedAt) {
+                matrices.put(routeId, new Entry(matrix, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return matrix;
+    }
+
+    public void invalidate(Long routeId) {
+        synchronized (this) {
+            generation.incrementAndGet();
+            matrices.remove(routeId);
+        }
+        log.debug("Price matrix cache invalidated for route {}", routeId);
+    }
+
+    /**
+     * setRoutePrices deletes and recreates the whole matrix; drop it once that commits
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        invalidate(event.getRouteId());
+    }
+
+    public synchronized int size() {
+        return matrices.size();
+    }
+
+    private Map<Long, Map<Long, Double>> load(Long routeId) {
+        List<RoutePriceEntry> entries = routePriceRepository.findPriceEntriesByRouteId(routeId);
+        Map<Long, Map<Long, Double>> matrix = new HashMap<>();
+        for (RoutePriceEntry entry : entries) {
+            matrix.computeIfAbsent(entry.getBoardingPointId(), id -> new HashMap<>())
+                .put(entry.getDropPointId(), entry.getPrice());
+        }
+        matrix.replaceAll((boardingPointId, row) -> Collections.unmodifiableMap(row));
+        return Collections.unmodifiableMap(matrix);
+    }
+
+    private record Entry(Map<Long, Map<Long, Double>> matrix, long expiresAt) {
+    }
+}
@@ -0,0 +1,352 @@
+package com.app.carpolling.cache;
+
+import com.app.carpolling.dto.TripSearchResponse;
+import com.app.carpolling.event.RouteChangedEvent;
+import com.app.carpolling.event.TripSeatsChangedEvent;
+import com.app.carpolling.index.RouteStop;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Search results per corridor (boarding city, drop city) and travel date, shared between callers.
+ *
+ * Identical searches arriving while one is being computed wait for that computation instead of
+ * running their own (single flight), and finished results are kept until a write changes them.
+ * Results hold every trip with at least one free seat on the leg; callers apply their own
+ * requiredSeats filter. A waiter gives up after search.cache.wait-ms and computes the result
+ * itself, so one slow query cannot stall every search of a corridor.
+ *
+ * Invalidation is driven by TripSeatsChangedEvent (bookings, releases, new trips: entries of that
+ * date whose search covered the trip's route) and RouteChangedEvent (route or price changes:
+ * entries covering the route or both of whose cities the route now serves). While a writing
+ * transaction is committing, searches of the affected dates bypass the cache, and results loaded
+ * across a change are never stored, so a search never shows fewer changes than the last committed
+ * booking. Writes made by other application instances are only picked up after search.cache.ttl-ms.
+ *
+ * Memory is bounded by search.cache.max-trips, the number of trips held over all entries; the
+ * least recently used entries are evicted first.
+ *
+ * Metrics: search.requests{result=cached|coalesced|computed}, search.coalescing.ratio (share of
+ * searches answered without running the search queries), cache.evictions, cache.size
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TripSearchCache {
+
+    private static final String CACHE_NAME = "tripSearch";
+
+    // Dates map onto a fixed number of stripes; the extra last slot stands for route changes,
+    // which may affect every date
+    private static final int STRIPES = 64;
+    private static final int ALL_DATES = STRIPES;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${search.cache.ttl-ms:30000}")
+    private long ttlMillis;
+
+    @Value("${search.cache.max-trips:200000}")
+    private int maxTrips;
+
+    @Value("${search.cache.wait-ms:5000}")
+    private long waitMillis;
+
+    // Searches currently running, completed by the caller that started them
+    private final ConcurrentHashMap<Key, Flight> inFlight = new ConcurrentHashMap<>();
+
+    // Access-ordered for LRU eviction; entries and heldTrips are guarded by "this"
+    private final LinkedHashMap<Key, Entry> results = new LinkedHashMap<>(256, 0.75f, true);
+    private long heldTrips = 0;
+
+    // Per stripe: committed changes seen so far, and writing transactions not yet completed
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES + 1);
+    private final AtomicIntegerArray pendingWrites = new AtomicIntegerArray(STRIPES + 1);
+
+    private final AtomicLong cached = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong computed = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    void registerMetrics() {
+        FunctionCounter.builder("search.requests", cached, AtomicLong::get)
+            .tag("result", "cached")
+            .register(meterRegistry);
+        FunctionCounter.builder("search.requests", coalesced, AtomicLong::get)
+            .tag("result", "coalesced")
+            .register(meterRegistry);
+        FunctionCounter.builder("search.requests", computed, AtomicLong::get)
+            .tag("result", "computed")
+            .register(meterRegistry);
+        Gauge.builder("search.coalescing.ratio", this, TripSearchCache::coalescingRatio)
+            .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+            .tag("cache", CACHE_NAME)
+            .register(meterRegistry);
+        Gauge.builder("cache.size", this, TripSearchCache::size)
+            .tag("cache", CACHE_NAME)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Results of a search, computed by loader unless a cached or in-flight result can be shared.
+     * The returned list is shared between callers and must not be modified.
+     */
+    public List<TripSearchResponse> get(String boardingCity, String dropCity, LocalDate travelDate,
+                                        Supplier<SearchResult> loader) {
+        Key key = new Key(boardingCity, dropCity, travelDate);
+        int stripe = stripe(travelDate);
+
+        if (isWriting(stripe)) {
+            // A booking for this date is committing; only the database has the current seats
+            computed.incrementAndGet();
+            return loader.get().getTrips();
+        }
+
+        List<TripSearchResponse> fresh = fresh(key);
+        if (fresh != null) {
+            cached.incrementAndGet();
+            return fresh;
+        }
+
+        long version = version(stripe);
+        Flight flight = new Flight(version);
+        Flight running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            List<TripSearchResponse> shared = running.version == version ? await(running.result) : null;
+            if (shared != null) {
+                coalesced.incrementAndGet();
+                return shared;
+            }
+            // The running search failed, is too slow or started before a change; run our own
+            computed.incrementAndGet();
+            return loader.get().getTrips();
+        }
+
+        computed.incrementAndGet();
+        try {
+            SearchResult loaded = loader.get();
+            List<TripSearchResponse> trips = List.copyOf(loaded.getTrips());
+            store(key, new Entry(trips, Set.copyOf(loaded.getRouteIds()),
+                System.currentTimeMillis() + ttlMillis), stripe, version);
+            flight.result.complete(trips);
+            return trips;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Seats of a trip changed: drop results of its date that included the trip's route
+     */
+    @EventListener
+    public void onTripSeatsChanged(TripSeatsChangedEvent event) {
+        LocalDate date = event.getDepartureTime().toLocalDate();
+        Long routeId = event.getRouteId();
+        onCompletion(stripe(date), (key, entry) -> key.travelDate.equals(date) && entry.routeIds.contains(routeId));
+    }
+
+    /**
+     * A route or its prices changed: drop results that included the route, and results of
+     * corridors the route may serve now
+     */
+    @EventListener
+    public void onRouteChanged(RouteChangedEvent event) {
+        Set<String> cities = new HashSet<>();
+        for (RouteStop stop : event.getStops()) {
+            cities.add(stop.getCity());
+        }
+        Long routeId = event.getRouteId();
+        onCompletion(ALL_DATES, (key, entry) -> entry.routeIds.contains(routeId)
+            || cities.contains(key.boardingCity) && cities.contains(key.dropCity));
+    }
+
+    public synchronized void clear() {
+        results.clear();
+        heldTrips = 0;
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public double coalescingRatio() {
+        long shared = cached.get() + coalesced.get();
+        long total = shared + computed.get();
+        return total == 0 ? 0.0 : (double) shared / total;
+    }
+
+    /**
+     * Keep searches of the stripe away from the cache until the writing transaction completes,
+     * then drop the affected entries. Without a transaction the entries are dropped right away.
+     */
+    private void onCompletion(int stripe, BiPredicate<Key, Entry> affected) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(stripe, affected);
+            return;
+        }
+        pendingWrites.incrementAndGet(stripe);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        invalidate(stripe, affected);
+                    }
+                } finally {
+                    pendingWrites.decrementAndGet(stripe);
+                }
+            }
+        });
+    }
+
+    private void invalidate(int stripe, BiPredicate<Key, Entry> affected) {
+        versions.incrementAndGet(stripe);
+        synchronized (this) {
+            Iterator<Map.Entry<Key, Entry>> iterator = results.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, Entry> next = iterator.next();
+                if (affected.test(next.getKey(), next.getValue())) {
+                    heldTrips -= next.getValue().trips.size();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private synchronized List<TripSearchResponse> fresh(Key key) {
+        Entry entry = results.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            results.remove(key);
+            heldTrips -= entry.trips.size();
+            return null;
+        }
+        return entry.trips;
+    }
+
+    /**
+     * Keep a loaded result unless a change of its date committed or started while it was loading
+     */
+    private void store(Key key, Entry entry, int stripe, long loadedAt) {
+        if (ttlMillis <= 0) {
+            return;
+        }
+        synchronized (this) {
+            if (version(stripe) != loadedAt || isWriting(stripe)) {
+                return;
+            }
+            Entry previous = results.put(key, entry);
+            if (previous != null) {
+                heldTrips -= previous.trips.size();
+            }
+            heldTrips += entry.trips.size();
+
+            // Evict least recently used entries until the trips held fit the budget
+            Iterator<Entry> eldest = results.values().iterator();
+            while (heldTrips > maxTrips && eldest.hasNext()) {
+                Entry evicted = eldest.next();
+                if (evicted == entry) {
+                    continue;
+                }
+                heldTrips -= evicted.trips.size();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private List<TripSearchResponse> await(CompletableFuture<List<TripSearchResponse>> running) {
+        try {
+            return running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            log.debug("Not sharing in-flight trip search: {}", e.toString());
+            return null;
+        }
+    }
+
+    private boolean isWriting(int stripe) {
+        return pendingWrites.get(stripe) > 0 || pendingWrites.get(ALL_DATES) > 0;
+    }
+
+    // Both counters only grow, so the sum changes whenever either does
+    private long version(int stripe) {
+        return versions.get(stripe) + versions.get(ALL_DATES);
+    }
+
+    private static int stripe(LocalDate date) {
+        return (int) Math.floorMod(date.toEpochDay(), (long) STRIPES);
+    }
+
+    /**
+     * Trips found by a search and the routes it looked at, which decide what invalidates it
+     */
+    public static final class SearchResult {
+        private final List<TripSearchResponse> trips;
+        private final List<Long> routeIds;
+
+        public SearchResult(List<TripSearchResponse> trips, List<Long> routeIds) {
+            this.trips = trips;
+            this.routeIds = routeIds;
+        }
+
+        public List<TripSearchResponse> getTrips() {
+            return trips;
+        }
+
+        public List<Long> getRouteIds() {
+            return routeIds;
+        }
+    }
+
+    private record Key(String boardingCity, String dropCity, LocalDate travelDate) {
+    }
+
+    private record Entry(List<TripSearchResponse> trips, Set<Long> routeIds, long expiresAt) {
+    }
+
+    private static final class Flight {
+        private final long version;
+        private final CompletableFuture<List<TripSearchResponse>> result = new CompletableFuture<>();
+
+        private Flight(long version) {
+            this.version = version;
+        }
+    }
+}
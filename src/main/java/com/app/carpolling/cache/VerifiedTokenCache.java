@@ -0,0 +1,134 @@
+package com.app.carpolling.cache;
+
+import com.app.carpolling.utils.Hashing;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Subjects of recently verified JWTs, keyed by the SHA-256 digest of the token.
+ *
+ * Lets JWTFilter skip signature verification and claims parsing for tokens it has already
+ * verified. Entries live until the token's own expiry, capped at jwt.claims.cache.ttl-seconds,
+ * and at most jwt.claims.cache.max-entries are kept (least recently used are evicted first).
+ * Revocation is still checked on every request before this cache is read; invalidateToken
+ * also evicts the token here.
+ *
+ * Metrics: cache.gets{cache=verifiedTokens,result=hit|miss}, cache.evictions, cache.size
+ */
+@Component
+@RequiredArgsConstructor
+public class VerifiedTokenCache {
+
+    private static final String CACHE_NAME = "verifiedTokens";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.claims.cache.max-entries:50000}")
+    private int maxEntries;
+
+    @Value("${jwt.claims.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    // Access-ordered for LRU eviction; guarded by "this"
+    private final LinkedHashMap<String, VerifiedToken> tokens = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+            if (size() > maxEntries) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    void registerMetrics() {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+            .tag("cache", CACHE_NAME).tag("result", "hit")
+            .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+            .tag("cache", CACHE_NAME).tag("result", "miss")
+            .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+            .tag("cache", CACHE_NAME)
+            .register(meterRegistry);
+        Gauge.builder("cache.size", this, VerifiedTokenCache::size)
+            .tag("cache", CACHE_NAME)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Subject (phone number) of a previously verified token
+     * @return null if the token is not cached or its entry has expired
+     */
+    public String getSubject(String token) {
+        String key = key(token);
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            VerifiedToken verified = tokens.get(key);
+            if (verified != null && verified.validUntil > now) {
+                hits.incrementAndGet();
+                return verified.subject;
+            }
+            if (verified != null) {
+                tokens.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String token, Claims claims) {
+        long validUntil = System.currentTimeMillis() + ttlSeconds * 1000;
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            validUntil = Math.min(validUntil, expiration.getTime());
+        }
+        VerifiedToken verified = new VerifiedToken(claims.getSubject(), validUntil);
+        String key = key(token);
+        synchronized (this) {
+            tokens.put(key, verified);
+        }
+    }
+
+    public void evict(String token) {
+        String key = key(token);
+        synchronized (this) {
+            tokens.remove(key);
+        }
+    }
+
+    public synchronized int size() {
+        return tokens.size();
+    }
+
+    private static String key(String token) {
+        return Base64.getEncoder().encodeToString(Hashing.sha256(token));
+    }
+
+    private static final class VerifiedToken {
+        private final String subject;
+        private final long validUntil;
+
+        private VerifiedToken(String subject, long validUntil) {
+            this.subject = subject;
+            this.validUntil = validUntil;
+        }
+    }
+}
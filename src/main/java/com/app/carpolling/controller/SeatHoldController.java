@@ -0,0 +1,84 @@
+package com.app.carpolling.controller;
+
+import com.app.carpolling.dto.ApiResponse;
+import com.app.carpolling.dto.SeatHoldConvertRequest;
+import com.app.carpolling.dto.SeatHoldRequest;
+import com.app.carpolling.dto.SeatHoldResponse;
+import com.app.carpolling.entity.Booking;
+import com.app.carpolling.service.SeatHoldService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/seat-holds")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class SeatHoldController {
+    
+    private final SeatHoldService seatHoldService;
+    
+    @PostMapping
+    public ResponseEntity<ApiResponse<SeatHoldResponse>> holdSeats(
+        @Valid @RequestBody SeatHoldRequest request
+    ) {
+        try {
+            SeatHoldResponse hold = seatHoldService.hold(request);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Seats held successfully", hold));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @PutMapping("/{holdId}/extend")
+    public ResponseEntity<ApiResponse<SeatHoldResponse>> extendHold(
+        @PathVariable String holdId,
+        @RequestParam Long userId,
+        @RequestParam(required = false) Integer holdSeconds
+    ) {
+        try {
+            SeatHoldResponse hold = seatHoldService.extend(holdId, userId, holdSeconds);
+            return ResponseEntity.ok(
+                ApiResponse.success("Seat hold extended successfully", hold)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/{holdId}/booking")
+    public ResponseEntity<ApiResponse<Booking>> convertHold(
+        @PathVariable String holdId,
+        @Valid @RequestBody SeatHoldConvertRequest request
+    ) {
+        try {
+            Booking booking = seatHoldService.convert(holdId, request);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Booking created successfully", booking));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @DeleteMapping("/{holdId}")
+    public ResponseEntity<ApiResponse<Void>> releaseHold(
+        @PathVariable String holdId,
+        @RequestParam Long userId
+    ) {
+        try {
+            seatHoldService.release(holdId, userId);
+            return ResponseEntity.ok(
+                ApiResponse.success("Seat hold released successfully", null)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -6,10 +6,12 @@ import com.app.carpolling.service.RouteService;
 import com.app.carpolling.service.TripService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -50,12 +52,98 @@ public class TripController {
         }
     }
     
+    @PostMapping("/search/batch")
+    public ResponseEntity<ApiResponse<List<BatchTripSearchResult>>> searchTripsBatch(
+        @Valid @RequestBody BatchTripSearchRequest request
+    ) {
+        try {
+            List<BatchTripSearchResult> results = tripService.searchTripsBatch(request.getSearches());
+            return ResponseEntity.ok(
+                ApiResponse.success("Trips retrieved successfully", results)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/search/page")
+    public ResponseEntity<ApiResponse<TripSearchPage>> searchTripsPage(
+        @Valid @RequestBody TripSearchPageRequest request
+    ) {
+        try {
+            TripSearchPage page = tripService.searchTripsPage(request);
+            return ResponseEntity.ok(
+                ApiResponse.success("Trips retrieved successfully", page)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @PostMapping("/search/connections")
+    public ResponseEntity<ApiResponse<ConnectionSearchResponse>> searchConnections(
+        @Valid @RequestBody ConnectionSearchRequest request
+    ) {
+        try {
+            ConnectionSearchResponse connections = tripService.searchConnections(request);
+            return ResponseEntity.ok(
+                ApiResponse.success("Connections retrieved successfully", connections)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/calendar")
+    public ResponseEntity<ApiResponse<List<PriceCalendarDay>>> getPriceCalendar(
+        @RequestParam String boardingPoint,
+        @RequestParam String dropPoint,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+        @RequestParam(required = false, defaultValue = "7") Integer days,
+        @RequestParam(required = false, defaultValue = "1") Integer requiredSeats
+    ) {
+        try {
+            List<PriceCalendarDay> calendar = tripService.getPriceCalendar(
+                boardingPoint, dropPoint, fromDate, days, requiredSeats);
+            return ResponseEntity.ok(
+                ApiResponse.success("Price calendar retrieved successfully", calendar)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/boarding-points/nearby")
+    public ResponseEntity<ApiResponse<List<NearbyBoardingPointResponse>>> getNearbyBoardingPoints(
+        @RequestParam Double latitude,
+        @RequestParam Double longitude,
+        @RequestParam(required = false, defaultValue = "2000") Integer radiusMeters,
+        @RequestParam(required = false, defaultValue = "10") Integer limit
+    ) {
+        try {
+            List<NearbyBoardingPointResponse> points = tripService.findNearbyBoardingPoints(
+                latitude, longitude, radiusMeters, limit);
+            return ResponseEntity.ok(
+                ApiResponse.success("Nearby boarding points retrieved successfully", points)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
     @GetMapping("/{tripId}/seats")
     public ResponseEntity<ApiResponse<SeatAvailabilityResponse>> getSeatAvailability(
-        @PathVariable Long tripId
+        @PathVariable Long tripId,
+        @RequestParam(required = false) String boardingCity,
+        @RequestParam(required = false) String dropCity
     ) {
         try {
-            SeatAvailabilityResponse response = tripService.getSeatAvailability(tripId);
+            SeatAvailabilityResponse response = tripService.getSeatAvailability(tripId, boardingCity, dropCity);
             return ResponseEntity.ok(
                 ApiResponse.success("Seat availability retrieved successfully", response)
             );
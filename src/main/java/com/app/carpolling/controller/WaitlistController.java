@@ -0,0 +1,67 @@
+package com.app.carpolling.controller;
+
+import com.app.carpolling.dto.ApiResponse;
+import com.app.carpolling.dto.WaitlistRequest;
+import com.app.carpolling.entity.WaitlistEntry;
+import com.app.carpolling.service.WaitlistService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/waitlist")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class WaitlistController {
+    
+    private final WaitlistService waitlistService;
+    
+    @PostMapping
+    public ResponseEntity<ApiResponse<WaitlistEntry>> joinWaitlist(
+        @Valid @RequestBody WaitlistRequest request
+    ) {
+        try {
+            WaitlistEntry entry = waitlistService.join(request);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Joined waitlist successfully", entry));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @DeleteMapping("/{entryId}")
+    public ResponseEntity<ApiResponse<WaitlistEntry>> leaveWaitlist(
+        @PathVariable Long entryId,
+        @RequestParam Long userId
+    ) {
+        try {
+            WaitlistEntry entry = waitlistService.leave(entryId, userId);
+            return ResponseEntity.ok(
+                ApiResponse.success("Left waitlist successfully", entry)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<ApiResponse<List<WaitlistEntry>>> getUserEntries(
+        @PathVariable Long userId
+    ) {
+        try {
+            List<WaitlistEntry> entries = waitlistService.getUserEntries(userId);
+            return ResponseEntity.ok(
+                ApiResponse.success("Waitlist entries retrieved successfully", entries)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
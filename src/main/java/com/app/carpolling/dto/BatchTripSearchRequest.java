@@ -0,0 +1,19 @@
+package com.app.carpolling.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTripSearchRequest {
+    
+    @NotEmpty(message = "At least one search is required")
+    @Valid
+    private List<TripSearchRequest> searches; // Up to search.batch.max-size corridors
+}
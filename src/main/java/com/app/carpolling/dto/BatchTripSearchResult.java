@@ -0,0 +1,20 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTripSearchResult {
+    private Integer index; // Position of the search in the request
+    private String boardingPoint; // City searched, after spelling correction
+    private String dropPoint;
+    private LocalDate travelDate;
+    private List<TripSearchResponse> trips;
+    private String error; // Set instead of trips when this search failed
+}
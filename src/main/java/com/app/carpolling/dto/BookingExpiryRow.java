@@ -0,0 +1,18 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Id and expiry time of a pending booking, used to rebuild the expiry timer
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingExpiryRow {
+    private Long bookingId;
+    private LocalDateTime expiresAt;
+}
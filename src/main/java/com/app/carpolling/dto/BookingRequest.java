@@ -1,15 +1,21 @@
 package com.app.carpolling.dto;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
 
+/**
+ * Seats to book on one leg of a trip: either the exact seatNumbers, numberOfSeats for any free
+ * seats picked by the server (adjacent ones where possible), or the seats of the user's holdId
+ */
 @Data
+@Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class BookingRequest {
@@ -32,12 +38,16 @@ public class BookingRequest {
     @NotBlank(message = "Drop sub-location is required")
     private String dropSubLocation; // e.g., "T Nagar"
     
-    @NotEmpty(message = "Seat numbers are required")
     private List<String> seatNumbers;
     
+    @Min(value = 1, message = "Number of seats must be at least 1")
+    private Integer numberOfSeats;
+    
     private String passengerNames;
     
     private String passengerContacts;
+    
+    private String holdId;
 }
 
 
@@ -0,0 +1,23 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One booked seat with the stops of its booking, used to release seats of many bookings at once
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingSeatRow {
+    private Long bookingId;
+    private Long tripId;
+    private Long routeId;
+    private LocalDateTime departureTime;
+    private Integer boardingSequenceOrder;
+    private Integer dropSequenceOrder;
+    private String seatNumber;
+}
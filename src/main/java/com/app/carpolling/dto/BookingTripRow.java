@@ -0,0 +1,16 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Id of a booking and of its trip, used to hand booking writes to the trip's writer
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingTripRow {
+    private Long bookingId;
+    private Long tripId;
+}
@@ -0,0 +1,38 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionItinerary {
+    private String transferCity;
+    private LocalDateTime departureTime; // Boarding time of the first trip
+    private LocalDateTime arrivalTime; // Drop time of the second trip
+    private Integer duration; // Minutes from boarding to drop, layover included
+    private Integer layoverMinutes;
+    private Double price; // Per seat, both trips
+    private Integer availableSeats; // Seats free on both legs
+    private List<Leg> legs;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Leg {
+        private Long tripId;
+        private String routeName;
+        private String boardingCity;
+        private Long boardingPointId;
+        private String dropCity;
+        private Long dropPointId;
+        private LocalDateTime departureTime; // At the boarding point
+        private LocalDateTime arrivalTime; // At the drop point
+        private Double price;
+        private Integer availableSeats; // Seats free on this leg
+    }
+}
@@ -0,0 +1,38 @@
+package com.app.carpolling.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Two-trip journeys leaving on travelDate. Layover bounds default to
+ * search.connections.min-layover-minutes / max-layover-minutes; sortBy is ARRIVAL (default) or PRICE.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionSearchRequest {
+    
+    @NotBlank(message = "Boarding point is required")
+    private String boardingPoint;
+    
+    @NotBlank(message = "Drop point is required")
+    private String dropPoint;
+    
+    @NotNull(message = "Travel date is required")
+    private LocalDate travelDate;
+    
+    private Integer requiredSeats = 1;
+    
+    private Integer minLayoverMinutes;
+    
+    private Integer maxLayoverMinutes;
+    
+    private String sortBy = "ARRIVAL";
+    
+    private Integer limit = 5;
+}
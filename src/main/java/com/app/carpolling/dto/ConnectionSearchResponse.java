@@ -0,0 +1,15 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionSearchResponse {
+    private List<ConnectionItinerary> itineraries;
+    private boolean complete; // false when the search stopped at its time budget
+}
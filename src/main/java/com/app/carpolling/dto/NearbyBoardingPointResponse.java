@@ -0,0 +1,34 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyBoardingPointResponse {
+    private Long pointId;
+    private Long routeId;
+    private String routeName;
+    private String city;
+    private String subLocation;
+    private String pointName;
+    private Double latitude;
+    private Double longitude;
+    private Integer distanceMeters; // Straight-line distance from the searched location
+    private List<UpcomingTrip> upcomingTrips;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UpcomingTrip {
+        private Long tripId;
+        private LocalDateTime departureTime; // From the first stop of the route
+        private LocalDateTime boardingTime; // At this boarding point
+        private Integer availableSeats; // Seats free for the whole trip
+    }
+}
@@ -0,0 +1,23 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One day of the price calendar of a boarding/drop city pair. Days without a bookable trip have
+ * no price or departure and zero seats.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceCalendarDay {
+    private LocalDate date;
+    private Double cheapestPrice;
+    private LocalDateTime earliestDeparture;
+    private Long seatsLeft; // Seats free on the requested leg, summed over the day's trips
+    private Long tripCount;
+}
@@ -0,0 +1,22 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Scheduled trip of a city pair with its fixed price and leg, aggregated per day into the
+ * price calendar once its free seats on the leg are known
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceCalendarTripRow {
+    private Long tripId;
+    private LocalDateTime departureTime;
+    private Double price;
+    private Integer boardingSequenceOrder;
+    private Integer dropSequenceOrder;
+}
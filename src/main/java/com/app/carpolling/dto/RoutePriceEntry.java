@@ -0,0 +1,17 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One cell of a route's price matrix, projected without loading RoutePrice entities
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoutePriceEntry {
+    private Long boardingPointId;
+    private Long dropPointId;
+    private Double price;
+}
@@ -0,0 +1,22 @@
+package com.app.carpolling.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Passenger details for turning a seat hold into a pending booking
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldConvertRequest {
+    
+    @NotNull(message = "User ID is required")
+    private Long userId;
+    
+    private String passengerNames;
+    
+    private String passengerContacts;
+}
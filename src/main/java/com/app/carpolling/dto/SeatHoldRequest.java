@@ -0,0 +1,46 @@
+package com.app.carpolling.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Seats to hold on one leg of a trip, either the exact seatNumbers or any numberOfSeats; held
+ * for holdSeconds (default seat.hold.ttl-seconds, capped by seat.hold.max-ttl-seconds)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldRequest {
+    
+    @NotNull(message = "User ID is required")
+    private Long userId;
+    
+    @NotNull(message = "Trip ID is required")
+    private Long tripId;
+    
+    @NotBlank(message = "Boarding city is required")
+    private String boardingCity;
+    
+    @NotBlank(message = "Boarding sub-location is required")
+    private String boardingSubLocation;
+    
+    @NotBlank(message = "Drop city is required")
+    private String dropCity;
+    
+    @NotBlank(message = "Drop sub-location is required")
+    private String dropSubLocation;
+    
+    private List<String> seatNumbers;
+    
+    @Min(value = 1, message = "Number of seats must be at least 1")
+    private Integer numberOfSeats;
+    
+    @Min(value = 1, message = "Hold must last at least one second")
+    private Integer holdSeconds;
+}
@@ -0,0 +1,20 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldResponse {
+    private String holdId;
+    private Long tripId;
+    private List<String> seatNumbers;
+    private String boardingCity;
+    private String dropCity;
+    private LocalDateTime expiresAt;
+}
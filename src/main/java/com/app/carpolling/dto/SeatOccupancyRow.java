@@ -0,0 +1,17 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Segment occupancy of one passenger seat, used to count free seats per leg in search results
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatOccupancyRow {
+    private Long tripId;
+    private Boolean isAvailable;
+    private Long occupiedSegments;
+}
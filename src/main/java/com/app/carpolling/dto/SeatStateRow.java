@@ -0,0 +1,20 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * State of one seat of a trip, driver seat included, used to build the in-memory seat map.
+ * A projection rather than TripSeat entities, so building the map inside a booking transaction
+ * never leaves unlocked copies of the seats in the persistence context.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatStateRow {
+    private String seatNumber;
+    private Boolean isAvailable;
+    private Boolean isDriverSeat;
+    private Long occupiedSegments;
+}
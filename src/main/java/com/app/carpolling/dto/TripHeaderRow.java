@@ -0,0 +1,31 @@
+package com.app.carpolling.dto;
+
+import com.app.carpolling.entity.VehicleType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trip, driver and vehicle columns of a search result without the boarding/drop stops, so trips
+ * of many corridors can be loaded with one query and matched to their stops in memory.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripHeaderRow {
+    private Long tripId;
+    private Long routeId;
+    private LocalDateTime departureTime;
+    private String routeName;
+    private String driverName;
+    private String driverPhone;
+    private Double driverRating;
+    private String vehicleBrand;
+    private String vehicleModel;
+    private String vehicleColor;
+    private String registrationNumber;
+    private VehicleType vehicleType;
+    private Boolean hasAc;
+}
@@ -0,0 +1,16 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripSearchPage {
+    private List<TripSearchResponse> trips;
+    private String nextCursor; // null when there are no more departures
+    private boolean hasMore;
+}
@@ -0,0 +1,32 @@
+package com.app.carpolling.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * "Next departures" search across days. The first page starts at departureFrom (default: now);
+ * following pages pass the cursor returned with the previous page instead.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripSearchPageRequest {
+    
+    @NotBlank(message = "Boarding point is required")
+    private String boardingPoint;
+    
+    @NotBlank(message = "Drop point is required")
+    private String dropPoint;
+    
+    private LocalDateTime departureFrom;
+    
+    private Integer requiredSeats = 1;
+    
+    private Integer pageSize = 20;
+    
+    private String cursor;
+}
@@ -1,5 +1,6 @@
 package com.app.carpolling.dto;
 
+import com.app.carpolling.entity.VehicleType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -7,7 +8,15 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
-
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Trips of a city pair on one day. Optional filters narrow the result; sortBy is EARLIEST
+ * (default), CHEAPEST, FASTEST or BEST_RATED, and at most limit trips are returned
+ * (search.results.max-size when not given, and never more). Clients that need every trip of
+ * the day page through /search/page instead.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,13 +32,25 @@ public class TripSearchRequest {
     private LocalDate travelDate;
     
     private Integer requiredSeats = 1;
+    
+    private String sortBy;
+    
+    private Boolean hasAc;
+    
+    private List<VehicleType> vehicleTypes;
+    
+    private Double minRating;
+    
+    private LocalTime departureFrom;
+    
+    private LocalTime departureTo;
+    
+    private Integer limit;
+    
+    public TripSearchRequest(String boardingPoint, String dropPoint, LocalDate travelDate, Integer requiredSeats) {
+        this.boardingPoint = boardingPoint;
+        this.dropPoint = dropPoint;
+        this.travelDate = travelDate;
+        this.requiredSeats = requiredSeats;
+    }
 }
-
-
-
-
-
-
-
-
-
@@ -0,0 +1,39 @@
+package com.app.carpolling.dto;
+
+import com.app.carpolling.entity.VehicleType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat projection of everything a trip search result needs, loaded with a single joined query.
+ * Boarding/drop values are taken from the first stop of each city on the trip's route.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripSearchRow {
+    private Long tripId;
+    private Long routeId;
+    private LocalDateTime departureTime;
+    private String routeName;
+    private String driverName;
+    private String driverPhone;
+    private Double driverRating;
+    private String vehicleBrand;
+    private String vehicleModel;
+    private String vehicleColor;
+    private String registrationNumber;
+    private VehicleType vehicleType;
+    private Boolean hasAc;
+    private Long boardingPointId;
+    private Integer boardingSequenceOrder;
+    private Integer boardingDistanceFromStart;
+    private Integer boardingTimeFromStart;
+    private Long dropPointId;
+    private Integer dropSequenceOrder;
+    private Integer dropDistanceFromStart;
+    private Integer dropTimeFromStart;
+}
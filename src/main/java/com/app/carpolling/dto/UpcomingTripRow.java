@@ -0,0 +1,20 @@
+package com.app.carpolling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Scheduled trip of a route, used to list departures next to nearby boarding points
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpcomingTripRow {
+    private Long tripId;
+    private Long routeId;
+    private LocalDateTime departureTime;
+    private Integer availableSeats;
+}
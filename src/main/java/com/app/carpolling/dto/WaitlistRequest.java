@@ -0,0 +1,39 @@
+package com.app.carpolling.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wait for numberOfSeats seats on one leg of a trip that has too few free
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistRequest {
+    
+    @NotNull(message = "User ID is required")
+    private Long userId;
+    
+    @NotNull(message = "Trip ID is required")
+    private Long tripId;
+    
+    @NotBlank(message = "Boarding city is required")
+    private String boardingCity;
+    
+    @NotBlank(message = "Boarding sub-location is required")
+    private String boardingSubLocation;
+    
+    @NotBlank(message = "Drop city is required")
+    private String dropCity;
+    
+    @NotBlank(message = "Drop sub-location is required")
+    private String dropSubLocation;
+    
+    @NotNull(message = "Number of seats is required")
+    @Min(value = 1, message = "Number of seats must be at least 1")
+    private Integer numberOfSeats;
+}
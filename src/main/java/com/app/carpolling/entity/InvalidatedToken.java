@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "invalidated_tokens", indexes = {
     @Index(name = "idx_invalidated_token", columnList = "token"),
-    @Index(name = "idx_invalidated_expires_at", columnList = "expires_at")
+    @Index(name = "idx_invalidated_expires_at", columnList = "expires_at"),
+    @Index(name = "idx_invalidated_at", columnList = "invalidated_at")
 })
 @Data
 @NoArgsConstructor
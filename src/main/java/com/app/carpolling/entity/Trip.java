@@ -14,7 +14,8 @@ import java.util.List;
 @Entity
 @Table(name = "trips", indexes = {
     @Index(name = "idx_trip_date", columnList = "departureTime"),
-    @Index(name = "idx_trip_status", columnList = "status")
+    @Index(name = "idx_trip_status", columnList = "status"),
+    @Index(name = "idx_trip_route_status_departure", columnList = "route_id, status, departureTime")
 })
 @Data
 @NoArgsConstructor
@@ -50,6 +51,12 @@ public class Trip {
     @Column(nullable = false)
     private Integer bookedSeats = 0;
     
+    // Bumped by every write, including the counter updates in TripRepository, so a stale Trip
+    // can never overwrite newer seat counts
+    @Version
+    @Column(nullable = false)
+    private Long version = 0L;
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private TripStatus status = TripStatus.SCHEDULED;
@@ -20,7 +20,7 @@ public class TripSeat {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "trip_id", nullable = false)
     private Trip trip;
     
@@ -28,7 +28,10 @@ public class TripSeat {
     private String seatNumber; // e.g., "S1", "S2", "S3"
     
     @Column(nullable = false)
-    private Boolean isAvailable = true;
+    private Boolean isAvailable = true; // true when no segment of the trip is taken
+    
+    @Column(nullable = false)
+    private Long occupiedSegments = 0L; // Bitmask of booked route segments, see SegmentMask
     
     @Column(nullable = false)
     private Boolean isDriverSeat = false;
@@ -0,0 +1,71 @@
+package com.app.carpolling.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A passenger waiting for seats on one leg of a sold-out trip. Each trip's queue is read in id
+ * order from the (trip_id, status, id) index; the leg is stored as route sequence numbers so a
+ * promotion needs no route lookups.
+ */
+@Entity
+@Table(name = "waitlist_entries", indexes = {
+    @Index(name = "idx_waitlist_trip_status", columnList = "trip_id, status, id"),
+    @Index(name = "idx_waitlist_user", columnList = "user_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WaitlistEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "trip_id", nullable = false)
+    private Long tripId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(nullable = false)
+    private String boardingCity;
+    
+    @Column(nullable = false)
+    private String boardingSubLocation;
+    
+    @Column(nullable = false)
+    private String dropCity;
+    
+    @Column(nullable = false)
+    private String dropSubLocation;
+    
+    @Column(nullable = false)
+    private Integer boardingSequence; // Sequence order of the boarding point on the route
+    
+    @Column(nullable = false)
+    private Integer dropSequence; // Sequence order of the drop point on the route
+    
+    @Column(nullable = false)
+    private Integer numberOfSeats;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WaitlistStatus status = WaitlistStatus.WAITING;
+    
+    private Long bookingId; // Pending booking created on promotion
+    
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
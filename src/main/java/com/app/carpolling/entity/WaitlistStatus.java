@@ -0,0 +1,8 @@
+package com.app.carpolling.entity;
+
+public enum WaitlistStatus {
+    WAITING,
+    PROMOTED,
+    CANCELLED,
+    EXPIRED
+}
@@ -0,0 +1,16 @@
+package com.app.carpolling.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pending booking now holds seats until expiresAt; published by BookingService.createBooking
+ */
+@Getter
+@AllArgsConstructor
+public class BookingHeldEvent {
+    private final Long bookingId;
+    private final LocalDateTime expiresAt;
+}
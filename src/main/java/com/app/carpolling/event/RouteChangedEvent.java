@@ -0,0 +1,21 @@
+package com.app.carpolling.event;
+
+import com.app.carpolling.index.RouteStop;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published by RouteService whenever a route or its price matrix is written.
+ * Listeners receive it after the transaction commits, so the stops carried here
+ * are exactly what other readers will see in the database.
+ */
+@Getter
+@AllArgsConstructor
+public class RouteChangedEvent {
+    
+    private final Long routeId;
+    private final boolean active;
+    private final List<RouteStop> stops;
+}
@@ -0,0 +1,25 @@
+package com.app.carpolling.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Seats of a trip were booked or released, or the trip was created. Published inside the
+ * writing transaction by BookingService (createBooking, cancelBooking, releaseSeats, expiry)
+ * and TripService.createTrip. released is set when seats were given back (cancellation or
+ * expiry), which is what WaitlistService promotes waiting passengers on.
+ */
+@Getter
+@AllArgsConstructor
+public class TripSeatsChangedEvent {
+    private final Long tripId;
+    private final Long routeId;
+    private final LocalDateTime departureTime;
+    private final boolean released;
+    
+    public TripSeatsChangedEvent(Long tripId, Long routeId, LocalDateTime departureTime) {
+        this(tripId, routeId, departureTime, false);
+    }
+}
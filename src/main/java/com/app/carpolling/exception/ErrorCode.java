@@ -37,6 +37,7 @@ public enum ErrorCode {
     DROP_POINT_NOT_FOUND(404, "Drop point not found"),
     BOOKING_NOT_FOUND(404, "Booking not found"),
     SEAT_NOT_FOUND(404, "Seat not found"),
+    SEAT_HOLD_NOT_FOUND(404, "Seat hold not found or expired"),
     PAYMENT_NOT_FOUND(404, "Payment not found"),
     PRICE_NOT_FOUND(404, "Price not configured for this route combination"),
     RESOURCE_NOT_FOUND(404, "Requested resource not found"),
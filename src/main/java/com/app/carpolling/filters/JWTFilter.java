@@ -1,7 +1,9 @@
 package com.app.carpolling.filters;
 
+import com.app.carpolling.cache.VerifiedTokenCache;
 import com.app.carpolling.service.TokenBlacklistService;
 import com.app.carpolling.utils.JWTUtils;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -30,6 +32,9 @@ public class JWTFilter extends OncePerRequestFilter {
   
   @Autowired
   private TokenBlacklistService tokenBlacklistService;
+  
+  @Autowired
+  private VerifiedTokenCache verifiedTokenCache;
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
@@ -118,18 +123,18 @@ public class JWTFilter extends OncePerRequestFilter {
         return;
       }
       
-      if (jwtUtils.validateToken(token)) {
-        logger.debug("JWT token validation successful from {} for request to: {}", tokenSource, requestURI);
-        
-        String phoneNumber = jwtUtils.extractPhoneNumber(token);
-        
-        // Phone number extraction validation
-        if (phoneNumber == null || phoneNumber.trim().isEmpty()) {
-          logger.error("Failed to extract valid phoneNumber from token ({}) for request to: {}", tokenSource, requestURI);
-          filterChain.doFilter(request, response);
-          return;
+      // Verify signature and parse claims only once per token; later requests hit the cache
+      String phoneNumber = verifiedTokenCache.getSubject(token);
+      if (phoneNumber == null) {
+        Claims claims = jwtUtils.verifyToken(token);
+        if (claims != null) {
+          logger.debug("JWT token validation successful from {} for request to: {}", tokenSource, requestURI);
+          verifiedTokenCache.put(token, claims);
+          phoneNumber = claims.getSubject();
         }
-        
+      }
+      
+      if (phoneNumber != null) {
         logger.info("Successfully authenticated user with phoneNumber: {} from {} for request to: {}", 
             phoneNumber, tokenSource, requestURI);
         
@@ -0,0 +1,255 @@
+package com.app.carpolling.index;
+
+import com.app.carpolling.event.RouteChangedEvent;
+import com.app.carpolling.repository.RoutePointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid index of the boarding points of active routes, for "nearest boarding point".
+ *
+ * Points are bucketed into cells of geo.index.cell-degrees latitude by longitude. A query reads
+ * only the cells overlapping the bounding box of its radius, measures the exact distance to
+ * each point found there and keeps the nearest ones in a bounded heap.
+ *
+ * Each cell holds an immutable array that is replaced as a whole, so readers never lock. A route
+ * change rewrites only the cells that route touches; a full rebuild runs at startup and on the
+ * periodic search-index refresh.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BoardingPointGeoIndex {
+
+    private static final double EARTH_RADIUS_METERS = 6_371_000.0;
+    private static final double METERS_PER_DEGREE = Math.PI * EARTH_RADIUS_METERS / 180.0;
+
+    private final RoutePointRepository routePointRepository;
+
+    @Value("${geo.index.cell-degrees:0.05}")
+    private double cellDegrees = 0.05;
+
+    private final ConcurrentHashMap<Long, GeoPoint[]> cells = new ConcurrentHashMap<>();
+
+    // routeId -> indexed points of the route; guarded by "this"
+    private final Map<Long, List<GeoPoint>> routes = new HashMap<>();
+
+    // routeId -> change counter value of the last event applied to that route; guarded by "this"
+    private final Map<Long, Long> routeChanges = new HashMap<>();
+    private long changeCounter = 0;
+
+    private volatile boolean ready = false;
+
+    // Held by the one caller loading a not yet ready index; see ensureReady
+    private final Object loadLock = new Object();
+
+    /**
+     * Reload the whole index from route_points.
+     * Routes changed by events while the load was running keep their event data.
+     */
+    public void rebuild() {
+        long startedAt;
+        synchronized (this) {
+            startedAt = changeCounter;
+        }
+
+        Map<Long, List<GeoPoint>> loaded = new HashMap<>();
+        for (GeoPoint point : routePointRepository.findActiveBoardingGeoPoints()) {
+            loaded.computeIfAbsent(point.getRouteId(), id -> new ArrayList<>()).add(point);
+        }
+
+        synchronized (this) {
+            for (Map.Entry<Long, Long> change : routeChanges.entrySet()) {
+                if (change.getValue() > startedAt) {
+                    List<GeoPoint> current = routes.get(change.getKey());
+                    if (current != null) {
+                        loaded.put(change.getKey(), current);
+                    } else {
+                        loaded.remove(change.getKey());
+                    }
+                }
+            }
+            routes.clear();
+            routes.putAll(loaded);
+            routeChanges.clear();
+
+            Map<Long, List<GeoPoint>> byCell = new HashMap<>();
+            for (List<GeoPoint> points : routes.values()) {
+                for (GeoPoint point : points) {
+                    byCell.computeIfAbsent(cell(point.getLatitude(), point.getLongitude()), c -> new ArrayList<>())
+                        .add(point);
+                }
+            }
+            cells.keySet().retainAll(byCell.keySet());
+            byCell.forEach((cell, points) -> cells.put(cell, points.toArray(new GeoPoint[0])));
+            ready = true;
+        }
+
+        log.info("Boarding point geo index rebuilt with {} routes in {} cells", loaded.size(), cells.size());
+    }
+
+    /**
+     * Re-index the boarding points of a route once its transaction has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        List<GeoPoint> points = event.isActive()
+            ? routePointRepository.findBoardingGeoPointsByRouteId(event.getRouteId())
+            : List.of();
+        synchronized (this) {
+            List<GeoPoint> previous = points.isEmpty()
+                ? routes.remove(event.getRouteId())
+                : routes.put(event.getRouteId(), points);
+
+            // Only the cells the route was or is in change
+            Set<Long> touched = new HashSet<>();
+            if (previous != null) {
+                previous.forEach(p -> touched.add(cell(p.getLatitude(), p.getLongitude())));
+            }
+            points.forEach(p -> touched.add(cell(p.getLatitude(), p.getLongitude())));
+            for (Long cell : touched) {
+                List<GeoPoint> cellPoints = new ArrayList<>();
+                GeoPoint[] current = cells.get(cell);
+                if (current != null) {
+                    for (GeoPoint point : current) {
+                        if (!point.getRouteId().equals(event.getRouteId())) {
+                            cellPoints.add(point);
+                        }
+                    }
+                }
+                for (GeoPoint point : points) {
+                    if (cell(point.getLatitude(), point.getLongitude()) == cell) {
+                        cellPoints.add(point);
+                    }
+                }
+                if (cellPoints.isEmpty()) {
+                    cells.remove(cell);
+                } else {
+                    cells.put(cell, cellPoints.toArray(new GeoPoint[0]));
+                }
+            }
+            routeChanges.put(event.getRouteId(), ++changeCounter);
+        }
+        log.debug("Boarding point geo index updated for route {}", event.getRouteId());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Build the index if it is not ready yet. Concurrent callers wait for the one load in
+     * progress instead of each reading every boarding point.
+     */
+    public void ensureReady() {
+        if (ready) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (!ready) {
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * Boarding points within radiusMeters of a location, nearest first
+     */
+    public List<Nearby> findNearest(double latitude, double longitude, double radiusMeters, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        double latSpan = radiusMeters / METERS_PER_DEGREE;
+        double lonSpan = radiusMeters / (METERS_PER_DEGREE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+        long minLat = index(latitude - latSpan);
+        long maxLat = index(latitude + latSpan);
+        long minLon = index(longitude - lonSpan);
+        long maxLon = index(longitude + lonSpan);
+
+        // Max-heap on distance holding the nearest points found so far
+        PriorityQueue<Nearby> nearest = new PriorityQueue<>(limit + 1,
+            Comparator.comparingDouble(Nearby::getDistanceMeters).reversed());
+        for (long latCell = minLat; latCell <= maxLat; latCell++) {
+            for (long lonCell = minLon; lonCell <= maxLon; lonCell++) {
+                GeoPoint[] points = cells.get(key(latCell, lonCell));
+                if (points == null) {
+                    continue;
+                }
+                for (GeoPoint point : points) {
+                    double distance = distanceMeters(latitude, longitude, point.getLatitude(), point.getLongitude());
+                    if (distance > radiusMeters) {
+                        continue;
+                    }
+                    if (nearest.size() < limit) {
+                        nearest.add(new Nearby(point, distance));
+                    } else if (distance < nearest.peek().distanceMeters) {
+                        nearest.poll();
+                        nearest.add(new Nearby(point, distance));
+                    }
+                }
+            }
+        }
+
+        Nearby[] result = nearest.toArray(new Nearby[0]);
+        Arrays.sort(result, Comparator.comparingDouble(Nearby::getDistanceMeters));
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    /**
+     * Great-circle distance (haversine)
+     */
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private long cell(double latitude, double longitude) {
+        return key(index(latitude), index(longitude));
+    }
+
+    private long index(double degrees) {
+        return (long) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long key(long latCell, long lonCell) {
+        return (latCell << 32) ^ (lonCell & 0xffffffffL);
+    }
+
+    /**
+     * A boarding point and its distance from the searched location
+     */
+    public static final class Nearby {
+        private final GeoPoint point;
+        private final double distanceMeters;
+
+        private Nearby(GeoPoint point, double distanceMeters) {
+            this.point = point;
+            this.distanceMeters = distanceMeters;
+        }
+
+        public GeoPoint getPoint() {
+            return point;
+        }
+
+        public double getDistanceMeters() {
+            return distanceMeters;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.app.carpolling.index;
+
+import com.app.carpolling.event.RouteChangedEvent;
+import com.app.carpolling.repository.RoutePointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory timetable of active routes for connection searches: the stops of every route with
+ * their minutes from the route's departure, and the routes serving each city.
+ *
+ * Answers "where can a traveller change from a route leaving the boarding city to a route
+ * reaching the drop city" without a database round-trip. Like the trip search, a route is
+ * entered and left at the first stop it makes in a city.
+ *
+ * Readers work on an immutable snapshot; writers rebuild the snapshot under a lock.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConnectionIndex {
+
+    private final RoutePointRepository routePointRepository;
+
+    // routeId -> timetable of the route; guarded by "this"
+    private final Map<Long, RouteTimetable> routes = new HashMap<>();
+
+    // routeId -> change counter value of the last event applied to that route; guarded by "this"
+    private final Map<Long, Long> routeChanges = new HashMap<>();
+    private long changeCounter = 0;
+
+    private volatile Map<String, List<RouteTimetable>> routesByCity = Collections.emptyMap();
+    private volatile boolean ready = false;
+
+    // Held by the one caller loading a not yet ready index; see ensureReady
+    private final Object loadLock = new Object();
+
+    /**
+     * Reload the whole index from route_points.
+     * Routes changed by events while the load was running keep their event data.
+     */
+    public void rebuild() {
+        long startedAt;
+        synchronized (this) {
+            startedAt = changeCounter;
+        }
+
+        Map<Long, RouteTimetable> loaded = groupByRoute(routePointRepository.findActiveTimetableStops());
+
+        synchronized (this) {
+            for (Map.Entry<Long, Long> change : routeChanges.entrySet()) {
+                if (change.getValue() > startedAt) {
+                    RouteTimetable current = routes.get(change.getKey());
+                    if (current != null) {
+                        loaded.put(change.getKey(), current);
+                    } else {
+                        loaded.remove(change.getKey());
+                    }
+                }
+            }
+            routes.clear();
+            routes.putAll(loaded);
+            routeChanges.clear();
+            publishSnapshot();
+            ready = true;
+        }
+
+        log.info("Connection index rebuilt with {} routes", loaded.size());
+    }
+
+    /**
+     * Reload the timetable of a route once its transaction has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        RouteTimetable timetable = event.isActive()
+            ? groupByRoute(routePointRepository.findTimetableStopsByRouteId(event.getRouteId())).get(event.getRouteId())
+            : null;
+        synchronized (this) {
+            if (timetable != null) {
+                routes.put(event.getRouteId(), timetable);
+            } else {
+                routes.remove(event.getRouteId());
+            }
+            routeChanges.put(event.getRouteId(), ++changeCounter);
+            publishSnapshot();
+        }
+        log.debug("Connection index updated for route {}", event.getRouteId());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Build the index if it is not ready yet. Concurrent callers wait for the one load in
+     * progress instead of each reading all of route_points.
+     */
+    public void ensureReady() {
+        if (ready) {
+            return;
+        }
+        synchronized (loadLock) {
+            if (!ready) {
+                rebuild();
+            }
+        }
+    }
+
+    /**
+     * Every way of reaching dropCity from boardingCity on two different routes: the first route
+     * visits the boarding city and then the transfer city, the second the transfer city and then
+     * the drop city. The transfer city is neither the boarding nor the drop city.
+     */
+    public List<Transfer> findTransfers(String boardingCity, String dropCity) {
+        Map<String, List<RouteTimetable>> snapshot = routesByCity;
+        List<Transfer> transfers = new ArrayList<>();
+        for (RouteTimetable first : snapshot.getOrDefault(boardingCity, List.of())) {
+            Stop boarding = first.stop(boardingCity);
+            for (Stop arrival : first.stops) {
+                if (arrival.sequenceOrder <= boarding.sequenceOrder
+                    || arrival.city.equals(boardingCity) || arrival.city.equals(dropCity)) {
+                    continue;
+                }
+                for (RouteTimetable second : snapshot.getOrDefault(arrival.city, List.of())) {
+                    if (second.routeId.equals(first.routeId)) {
+                        continue;
+                    }
+                    Stop departure = second.stop(arrival.city);
+                    Stop drop = second.stop(dropCity);
+                    if (drop != null && departure.sequenceOrder < drop.sequenceOrder) {
+                        transfers.add(new Transfer(first, boarding, arrival, second, departure, drop));
+                    }
+                }
+            }
+        }
+        return transfers;
+    }
+
+    private Map<Long, RouteTimetable> groupByRoute(List<TimetableStop> stops) {
+        // Stops arrive in sequence order, so the first one seen per city is its first stop
+        Map<Long, List<TimetableStop>> grouped = new LinkedHashMap<>();
+        for (TimetableStop stop : stops) {
+            grouped.computeIfAbsent(stop.getRouteId(), id -> new ArrayList<>()).add(stop);
+        }
+        Map<Long, RouteTimetable> timetables = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((routeId, routeStops) -> timetables.put(routeId, new RouteTimetable(routeStops)));
+        return timetables;
+    }
+
+    private void publishSnapshot() {
+        Map<String, List<RouteTimetable>> byCity = new HashMap<>();
+        for (RouteTimetable timetable : routes.values()) {
+            for (Stop stop : timetable.stops) {
+                byCity.computeIfAbsent(stop.city, c -> new ArrayList<>()).add(timetable);
+            }
+        }
+        routesByCity = byCity;
+    }
+
+    /**
+     * Where a route is boarded or left, and when relative to the route's departure
+     */
+    public static final class Stop {
+        private final Long pointId;
+        private final String city;
+        private final int sequenceOrder;
+        private final int timeFromStart;
+
+        private Stop(TimetableStop stop) {
+            this.pointId = stop.getPointId();
+            this.city = stop.getCity();
+            this.sequenceOrder = stop.getSequenceOrder();
+            this.timeFromStart = stop.getTimeFromStart();
+        }
+
+        public Long getPointId() {
+            return pointId;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public int getSequenceOrder() {
+            return sequenceOrder;
+        }
+
+        public int getTimeFromStart() {
+            return timeFromStart;
+        }
+    }
+
+    /**
+     * First stop per city of one route, in sequence order
+     */
+    private static final class RouteTimetable {
+        private final Long routeId;
+        private final String routeName;
+        private final List<Stop> stops = new ArrayList<>();
+        private final Map<String, Stop> byCity = new HashMap<>();
+
+        private RouteTimetable(List<TimetableStop> routeStops) {
+            this.routeId = routeStops.get(0).getRouteId();
+            this.routeName = routeStops.get(0).getRouteName();
+            for (TimetableStop routeStop : routeStops) {
+                if (!byCity.containsKey(routeStop.getCity())) {
+                    Stop stop = new Stop(routeStop);
+                    byCity.put(stop.city, stop);
+                    stops.add(stop);
+                }
+            }
+        }
+
+        private Stop stop(String city) {
+            return byCity.get(city);
+        }
+    }
+
+    /**
+     * Boarding and transfer stops of the first route, transfer and drop stops of the second
+     */
+    public static final class Transfer {
+        private final RouteTimetable firstRoute;
+        private final Stop boarding;
+        private final Stop arrival;
+        private final RouteTimetable secondRoute;
+        private final Stop departure;
+        private final Stop drop;
+
+        private Transfer(RouteTimetable firstRoute, Stop boarding, Stop arrival,
+                         RouteTimetable secondRoute, Stop departure, Stop drop) {
+            this.firstRoute = firstRoute;
+            this.boarding = boarding;
+            this.arrival = arrival;
+            this.secondRoute = secondRoute;
+            this.departure = departure;
+            this.drop = drop;
+        }
+
+        public Long getFirstRouteId() {
+            return firstRoute.routeId;
+        }
+
+        public String getFirstRouteName() {
+            return firstRoute.routeName;
+        }
+
+        public Long getSecondRouteId() {
+            return secondRoute.routeId;
+        }
+
+        public String getSecondRouteName() {
+            return secondRoute.routeName;
+        }
+
+        public String getTransferCity() {
+            return arrival.city;
+        }
+
+        public Stop getBoarding() {
+            return boarding;
+        }
+
+        public Stop getArrival() {
+            return arrival;
+        }
+
+        public Stop getDeparture() {
+            return departure;
+        }
+
+        public Stop getDrop() {
+            return drop;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.app.carpolling.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Location of one boarding point of an active route, used by the in-memory spatial index.
+ * Loaded with a constructor projection so building the index never hydrates entities.
+ */
+@Getter
+@AllArgsConstructor
+public class GeoPoint {
+    
+    private final Long pointId;
+    private final Long routeId;
+    private final String routeName;
+    private final String city;
+    private final String subLocation;
+    private final String pointName;
+    private final Double latitude;
+    private final Double longitude;
+    private final Integer timeFromStart;
+}
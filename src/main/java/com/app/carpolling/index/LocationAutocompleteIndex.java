@@ -0,0 +1,411 @@
+package com.app.carpolling.index;
+
+import com.app.carpolling.event.RouteChangedEvent;
+import com.app.carpolling.repository.RoutePointRepository;
+import com.app.carpolling.utils.BkTree;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index of cities and sub-locations for the autocomplete endpoints.
+ *
+ * Every name is case- and accent-folded and indexed under each of its word starts, so "silk"
+ * and "bo" both find "Silk Board". Keys are kept in one sorted array per kind; a lookup is a
+ * binary search for the first key with the prefix followed by a scan of the matching range,
+ * keeping the first K results in display order (city, then sub-location).
+ *
+ * Readers work on an immutable snapshot; writers rebuild the snapshot under a lock. Routes
+ * created through this instance are applied when their transaction commits, everything else
+ * on the periodic rebuild (SearchIndexRefreshScheduler).
+ *
+ * The same vocabulary backs resolveCity, which maps misspelt city names ("Banglore", "chenai")
+ * to the canonical city through a BK-tree, so a typo does not end in an empty search.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LocationAutocompleteIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final RoutePointRepository routePointRepository;
+
+    // routeId -> points of the route; guarded by "this"
+    private final Map<Long, List<LocationPoint>> routes = new HashMap<>();
+
+    // routeId -> change counter value of the last event applied to that route; guarded by "this"
+    private final Map<Long, Long> routeChanges = new HashMap<>();
+    private long changeCounter = 0;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyList());
+    private volatile boolean ready = false;
+
+    /**
+     * Reload the whole index from route_points.
+     * Routes changed by events while the load was running keep their event data.
+     */
+    public void rebuild() {
+        long startedAt;
+        synchronized (this) {
+            startedAt = changeCounter;
+        }
+
+        Map<Long, List<LocationPoint>> loaded = new HashMap<>();
+        for (LocationPoint point : routePointRepository.findAllLocationPoints()) {
+            loaded.computeIfAbsent(point.getRouteId(), id -> new ArrayList<>()).add(point);
+        }
+
+        synchronized (this) {
+            for (Map.Entry<Long, Long> change : routeChanges.entrySet()) {
+                if (change.getValue() > startedAt) {
+                    List<LocationPoint> current = routes.get(change.getKey());
+                    if (current != null) {
+                        loaded.put(change.getKey(), current);
+                    } else {
+                        loaded.remove(change.getKey());
+                    }
+                }
+            }
+            routes.clear();
+            routes.putAll(loaded);
+            routeChanges.clear();
+            publishSnapshot();
+            ready = true;
+        }
+
+        log.info("Location autocomplete index rebuilt with {} cities and {} points",
+            snapshot.cities.length, snapshot.pointIds.length);
+    }
+
+    /**
+     * Re-read the points of a route once its transaction has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        List<LocationPoint> points = routePointRepository.findLocationPointsByRouteId(event.getRouteId());
+        synchronized (this) {
+            if (points.isEmpty()) {
+                routes.remove(event.getRouteId());
+            } else {
+                routes.put(event.getRouteId(), points);
+            }
+            routeChanges.put(event.getRouteId(), ++changeCounter);
+            publishSnapshot();
+        }
+        log.debug("Location autocomplete index updated for route {}", event.getRouteId());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Cities having a word that starts with the term, in alphabetical order
+     * @param boardingOnly only cities with a boarding point
+     * @param dropOnly only cities with a drop point
+     */
+    public List<String> searchCities(String term, boolean boardingOnly, boolean dropOnly, int limit) {
+        Snapshot current = snapshot;
+        int required = flags(boardingOnly, dropOnly);
+        int[] matches = current.cityKeys.firstMatches(fold(term), limit,
+            city -> (current.cityFlags[city] & required) == required);
+        List<String> cities = new ArrayList<>(matches.length);
+        for (int city : matches) {
+            cities.add(current.cities[city]);
+        }
+        return cities;
+    }
+
+    /**
+     * Ids of route points whose city or sub-location has a word starting with the term,
+     * ordered by city and sub-location
+     */
+    public List<Long> searchPoints(String term, boolean boardingOnly, boolean dropOnly, int limit) {
+        Snapshot current = snapshot;
+        int required = flags(boardingOnly, dropOnly);
+        int[] matches = current.pointKeys.firstMatches(fold(term), limit,
+            point -> (current.pointFlags[point] & required) == required);
+        List<Long> pointIds = new ArrayList<>(matches.length);
+        for (int point : matches) {
+            pointIds.add(current.pointIds[point]);
+        }
+        return pointIds;
+    }
+
+    /**
+     * All cities in alphabetical order, optionally only those with boarding or drop points
+     */
+    public List<String> getCities(boolean boardingOnly, boolean dropOnly) {
+        Snapshot current = snapshot;
+        int required = flags(boardingOnly, dropOnly);
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < current.cities.length; i++) {
+            if ((current.cityFlags[i] & required) == required) {
+                cities.add(current.cities[i]);
+            }
+        }
+        return cities;
+    }
+
+    /**
+     * Distinct boarding or drop sub-locations of a city (exact name), in alphabetical order
+     */
+    public List<String> getSubLocations(String city, boolean boarding) {
+        String[][] subLocations = snapshot.subLocationsByCity.get(city);
+        if (subLocations == null) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(subLocations[boarding ? 0 : 1]));
+    }
+
+    /**
+     * Canonical city for what a user typed: the city itself, a different spelling of its case or
+     * accents, a sub-location that belongs to a single city, or the nearest city or sub-location
+     * name within an edit distance of maxDistance (less for short names, see maxEdits)
+     * @return null if nothing matches or the nearest names belong to different cities
+     */
+    public String resolveCity(String name, int maxDistance) {
+        Snapshot current = snapshot;
+        if (name == null || current.cityIndex.containsKey(name)) {
+            return name;
+        }
+        String folded = fold(name);
+        String exact = current.vocabulary.get(folded);
+        if (exact != null) {
+            return exact;
+        }
+        BkTree.Match<String> nearest = current.vocabularyTree.nearest(folded, maxEdits(folded, maxDistance));
+        List<String> cities = nearest.getValues().stream().distinct().toList();
+        return cities.size() == 1 ? cities.get(0) : null;
+    }
+
+    /**
+     * Typos allowed for a name of this length: none up to 2 characters, then one per 3 characters
+     */
+    static int maxEdits(String folded, int maxDistance) {
+        return Math.min(maxDistance, folded.length() / 3);
+    }
+
+    /**
+     * Lower-case, accent-free, single-spaced form used for all keys and lookups
+     */
+    static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(folded.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    private static int flags(boolean boarding, boolean drop) {
+        return (boarding ? Snapshot.BOARDING : 0) | (drop ? Snapshot.DROP : 0);
+    }
+
+    private void publishSnapshot() {
+        List<LocationPoint> points = new ArrayList<>();
+        routes.values().forEach(points::addAll);
+        snapshot = new Snapshot(points);
+    }
+
+    /**
+     * Sorted (key, entry) pairs; entries are positions in a display-ordered array
+     */
+    private static final class PrefixKeys {
+        private final String[] keys;
+        private final int[] entries;
+
+        private PrefixKeys(List<String> keyList, List<Integer> entryList) {
+            Integer[] order = new Integer[keyList.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(keyList::get));
+            keys = new String[order.length];
+            entries = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = keyList.get(order[i]);
+                entries[i] = entryList.get(order[i]);
+            }
+        }
+
+        /**
+         * The smallest distinct entries (i.e. first in display order) among keys starting with prefix
+         */
+        int[] firstMatches(String prefix, int limit, IntPredicate accept) {
+            if (limit <= 0) {
+                return new int[0];
+            }
+            // Max-heap of the best entries so far
+            PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, Comparator.reverseOrder());
+            for (int i = lowerBound(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+                int entry = entries[i];
+                if (best.size() == limit && entry >= best.peek()) {
+                    continue;
+                }
+                if (!accept.test(entry) || best.contains(entry)) {
+                    continue;
+                }
+                best.add(entry);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            return best.stream().mapToInt(Integer::intValue).sorted().toArray();
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class Snapshot {
+        private static final int BOARDING = 1;
+        private static final int DROP = 2;
+
+        private final String[] cities;
+        private final int[] cityFlags;
+        private final PrefixKeys cityKeys;
+
+        private final long[] pointIds;
+        private final int[] pointFlags;
+        private final PrefixKeys pointKeys;
+
+        // city -> {boarding sub-locations, drop sub-locations}
+        private final Map<String, String[][]> subLocationsByCity;
+
+        // city -> position in cities
+        private final Map<String, Integer> cityIndex;
+
+        // Folded city and unambiguous sub-location names -> canonical city, for typo tolerance
+        private final Map<String, String> vocabulary;
+        private final BkTree<String> vocabularyTree;
+
+        private Snapshot(List<LocationPoint> points) {
+            // Display order: city, sub-location, id
+            List<LocationPoint> sorted = new ArrayList<>(points);
+            sorted.sort(Comparator.comparing(LocationPoint::getCity)
+                .thenComparing(p -> p.getSubLocation() != null ? p.getSubLocation() : "")
+                .thenComparing(LocationPoint::getPointId));
+
+            TreeMap<String, Integer> cityFlagMap = new TreeMap<>();
+            Map<String, TreeSet<String>[]> subLocations = new HashMap<>();
+            pointIds = new long[sorted.size()];
+            pointFlags = new int[sorted.size()];
+            List<String> pointKeyList = new ArrayList<>();
+            List<Integer> pointEntryList = new ArrayList<>();
+            for (int i = 0; i < sorted.size(); i++) {
+                LocationPoint point = sorted.get(i);
+                int pointFlag = (Boolean.TRUE.equals(point.getIsBoardingPoint()) ? BOARDING : 0)
+                    | (Boolean.TRUE.equals(point.getIsDropPoint()) ? DROP : 0);
+                pointIds[i] = point.getPointId();
+                pointFlags[i] = pointFlag;
+                cityFlagMap.merge(point.getCity(), pointFlag, (a, b) -> a | b);
+
+                @SuppressWarnings("unchecked")
+                TreeSet<String>[] citySubLocations = subLocations.computeIfAbsent(point.getCity(),
+                    c -> new TreeSet[]{new TreeSet<String>(), new TreeSet<String>()});
+                if (point.getSubLocation() != null) {
+                    if ((pointFlag & BOARDING) != 0) {
+                        citySubLocations[0].add(point.getSubLocation());
+                    }
+                    if ((pointFlag & DROP) != 0) {
+                        citySubLocations[1].add(point.getSubLocation());
+                    }
+                }
+
+                String name = point.getSubLocation() != null
+                    ? point.getCity() + " " + point.getSubLocation() : point.getCity();
+                for (String key : wordSuffixes(fold(name))) {
+                    pointKeyList.add(key);
+                    pointEntryList.add(i);
+                }
+            }
+            pointKeys = new PrefixKeys(pointKeyList, pointEntryList);
+
+            cities = cityFlagMap.keySet().toArray(new String[0]);
+            cityFlags = new int[cities.length];
+            List<String> cityKeyList = new ArrayList<>();
+            List<Integer> cityEntryList = new ArrayList<>();
+            for (int i = 0; i < cities.length; i++) {
+                cityFlags[i] = cityFlagMap.get(cities[i]);
+                for (String key : wordSuffixes(fold(cities[i]))) {
+                    cityKeyList.add(key);
+                    cityEntryList.add(i);
+                }
+            }
+            cityKeys = new PrefixKeys(cityKeyList, cityEntryList);
+
+            subLocationsByCity = new HashMap<>(subLocations.size() * 2);
+            subLocations.forEach((city, sets) -> subLocationsByCity.put(city,
+                new String[][]{sets[0].toArray(new String[0]), sets[1].toArray(new String[0])}));
+
+            cityIndex = new HashMap<>(cities.length * 2);
+            for (int i = 0; i < cities.length; i++) {
+                cityIndex.put(cities[i], i);
+            }
+
+            // City names win over sub-locations; a sub-location found in several cities says nothing
+            Map<String, String> subLocationCities = new HashMap<>();
+            for (LocationPoint point : sorted) {
+                if (point.getSubLocation() != null) {
+                    subLocationCities.merge(fold(point.getSubLocation()), point.getCity(),
+                        (a, b) -> a.equals(b) ? a : "");
+                }
+            }
+            vocabulary = new HashMap<>();
+            for (String city : cities) {
+                vocabulary.putIfAbsent(fold(city), city);
+            }
+            subLocationCities.forEach((subLocation, city) -> {
+                if (!city.isEmpty()) {
+                    vocabulary.putIfAbsent(subLocation, city);
+                }
+            });
+            vocabularyTree = new BkTree<>();
+            vocabulary.forEach(vocabularyTree::add);
+        }
+
+        /**
+         * The text from each word start to the end: "silk board" -> "silk board", "board"
+         */
+        private static List<String> wordSuffixes(String folded) {
+            List<String> suffixes = new ArrayList<>(2);
+            for (int i = 0; i < folded.length(); i++) {
+                boolean wordStart = Character.isLetterOrDigit(folded.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(folded.charAt(i - 1)));
+                if (wordStart) {
+                    suffixes.add(folded.substring(i));
+                }
+            }
+            return suffixes;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.app.carpolling.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * City and sub-location of one route point, used by the in-memory autocomplete index.
+ * Loaded with a constructor projection so building the index never hydrates entities.
+ */
+@Getter
+@AllArgsConstructor
+public class LocationPoint {
+    
+    private final Long pointId;
+    private final Long routeId;
+    private final String city;
+    private final String subLocation;
+    private final Boolean isBoardingPoint;
+    private final Boolean isDropPoint;
+}
@@ -0,0 +1,179 @@
+package com.app.carpolling.index;
+
+import com.app.carpolling.event.RouteChangedEvent;
+import com.app.carpolling.repository.RoutePointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index of active routes: city -> postings of (routeId, first/last sequence order).
+ *
+ * Answers "routes where the boarding city comes before the drop city" without a database
+ * round-trip. A route qualifies when the smallest sequence order of the boarding city is lower
+ * than the largest sequence order of the drop city, which is exactly the condition checked by
+ * RouteRepository.findRoutesByBoardingAndDropPoint.
+ *
+ * Readers work on an immutable snapshot; writers rebuild the snapshot under a lock.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RouteSearchIndex {
+
+    private final RoutePointRepository routePointRepository;
+
+    // routeId -> city -> {minSequenceOrder, maxSequenceOrder}; guarded by "this"
+    private final Map<Long, Map<String, int[]>> routes = new HashMap<>();
+
+    // routeId -> change counter value of the last event applied to that route; guarded by "this"
+    private final Map<Long, Long> routeChanges = new HashMap<>();
+    private long changeCounter = 0;
+
+    private volatile Map<String, CityPostings> postings = Collections.emptyMap();
+    private volatile boolean ready = false;
+
+    /**
+     * Reload the whole index from route_points.
+     * Routes changed by events while the load was running keep their event data.
+     */
+    public void rebuild() {
+        long startedAt;
+        synchronized (this) {
+            startedAt = changeCounter;
+        }
+
+        List<RouteStop> stops = routePointRepository.findActiveRouteStops();
+        Map<Long, Map<String, int[]>> loaded = groupByRoute(stops);
+
+        synchronized (this) {
+            for (Map.Entry<Long, Long> change : routeChanges.entrySet()) {
+                if (change.getValue() > startedAt) {
+                    Map<String, int[]> current = routes.get(change.getKey());
+                    if (current != null) {
+                        loaded.put(change.getKey(), current);
+                    } else {
+                        loaded.remove(change.getKey());
+                    }
+                }
+            }
+            routes.clear();
+            routes.putAll(loaded);
+            routeChanges.clear();
+            publishSnapshot();
+            ready = true;
+        }
+
+        log.info("Route search index rebuilt with {} routes and {} cities", loaded.size(), postings.size());
+    }
+
+    /**
+     * Apply a route change once its transaction has committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRouteChanged(RouteChangedEvent event) {
+        synchronized (this) {
+            if (event.isActive() && !event.getStops().isEmpty()) {
+                routes.put(event.getRouteId(), groupByRoute(event.getStops()).get(event.getRouteId()));
+            } else {
+                routes.remove(event.getRouteId());
+            }
+            routeChanges.put(event.getRouteId(), ++changeCounter);
+            publishSnapshot();
+        }
+        log.debug("Route search index updated for route {}", event.getRouteId());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Find active routes that visit the boarding city before the drop city
+     * @return route ids in ascending order
+     */
+    public List<Long> findRouteIds(String boardingCity, String dropCity) {
+        Map<String, CityPostings> snapshot = postings;
+        CityPostings boarding = snapshot.get(boardingCity);
+        CityPostings drop = snapshot.get(dropCity);
+        if (boarding == null || drop == null) {
+            return new ArrayList<>();
+        }
+
+        // Merge-intersect the two sorted posting lists
+        List<Long> routeIds = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < boarding.routeIds.length && j < drop.routeIds.length) {
+            long b = boarding.routeIds[i];
+            long d = drop.routeIds[j];
+            if (b < d) {
+                i++;
+            } else if (b > d) {
+                j++;
+            } else {
+                if (boarding.minSequence[i] < drop.maxSequence[j]) {
+                    routeIds.add(b);
+                }
+                i++;
+                j++;
+            }
+        }
+        return routeIds;
+    }
+
+    private Map<Long, Map<String, int[]>> groupByRoute(List<RouteStop> stops) {
+        Map<Long, Map<String, int[]>> grouped = new HashMap<>();
+        for (RouteStop stop : stops) {
+            int sequence = stop.getSequenceOrder();
+            grouped.computeIfAbsent(stop.getRouteId(), id -> new HashMap<>())
+                .merge(stop.getCity(), new int[]{sequence, sequence},
+                    (a, b) -> new int[]{Math.min(a[0], b[0]), Math.max(a[1], b[1])});
+        }
+        return grouped;
+    }
+
+    private void publishSnapshot() {
+        // city -> routeId (sorted) -> {min, max}
+        Map<String, TreeMap<Long, int[]>> byCity = new HashMap<>();
+        for (Map.Entry<Long, Map<String, int[]>> route : routes.entrySet()) {
+            for (Map.Entry<String, int[]> city : route.getValue().entrySet()) {
+                byCity.computeIfAbsent(city.getKey(), c -> new TreeMap<>())
+                    .put(route.getKey(), city.getValue());
+            }
+        }
+
+        Map<String, CityPostings> snapshot = new HashMap<>(byCity.size() * 2);
+        for (Map.Entry<String, TreeMap<Long, int[]>> city : byCity.entrySet()) {
+            snapshot.put(city.getKey(), new CityPostings(city.getValue()));
+        }
+        postings = snapshot;
+    }
+
+    private static final class CityPostings {
+        private final long[] routeIds;
+        private final int[] minSequence;
+        private final int[] maxSequence;
+
+        private CityPostings(TreeMap<Long, int[]> entries) {
+            routeIds = new long[entries.size()];
+            minSequence = new int[entries.size()];
+            maxSequence = new int[entries.size()];
+            int i = 0;
+            for (Map.Entry<Long, int[]> entry : entries.entrySet()) {
+                routeIds[i] = entry.getKey();
+                minSequence[i] = entry.getValue()[0];
+                maxSequence[i] = entry.getValue()[1];
+                i++;
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.app.carpolling.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Lightweight, immutable view of a route point used by the in-memory search indexes.
+ * Loaded with a constructor projection so building an index never hydrates entities.
+ */
+@Getter
+@AllArgsConstructor
+public class RouteStop {
+    
+    private final Long routeId;
+    private final String city;
+    private final Integer sequenceOrder;
+}
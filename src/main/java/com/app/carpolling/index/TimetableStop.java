@@ -0,0 +1,21 @@
+package com.app.carpolling.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Stop of a route with its offset from the route's departure, used by the in-memory connection
+ * index and batch searches. Loaded with a constructor projection so neither hydrates entities.
+ */
+@Getter
+@AllArgsConstructor
+public class TimetableStop {
+    
+    private final Long routeId;
+    private final String routeName;
+    private final Long pointId;
+    private final String city;
+    private final Integer sequenceOrder;
+    private final Integer distanceFromStart;
+    private final Integer timeFromStart;
+}
@@ -0,0 +1,34 @@
+package com.app.carpolling.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Seats of a trip held on one leg for a short checkout, kept only in memory (see SeatHoldStore)
+ */
+@Getter
+@AllArgsConstructor
+public class SeatHold {
+    private final String id;
+    private final Long tripId;
+    private final Long userId;
+    private final List<String> seatNumbers;
+    private final long leg;
+    private final String boardingCity;
+    private final String boardingSubLocation;
+    private final String dropCity;
+    private final String dropSubLocation;
+    private final LocalDateTime createdAt;
+    private volatile LocalDateTime expiresAt;
+
+    public boolean isExpired(LocalDateTime now) {
+        return !expiresAt.isAfter(now);
+    }
+
+    void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,101 @@
+package com.app.carpolling.inventory;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Active seat holds by id and by trip.
+ *
+ * Holds never reach the database: SeatInventory claims their seats in its in-memory seat maps
+ * and is the only writer of this store, so a hold and its claimed seats appear and disappear
+ * together. An expired hold is no longer returned by get but keeps its seats until
+ * SeatInventory.expireHolds removes it. Holds are per application instance; with several
+ * instances the database still prevents double sales, but a hold only protects its seats from
+ * bookings made through the same instance.
+ */
+@Component
+public class SeatHoldStore {
+
+    private final ConcurrentHashMap<String, SeatHold> holds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<SeatHold>> holdsByTrip = new ConcurrentHashMap<>();
+    // userId -> seats held by the user over all trips, expired holds included until removed
+    private final ConcurrentHashMap<Long, Integer> seatsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * The hold, unless it is unknown or expired
+     */
+    public SeatHold get(String holdId, LocalDateTime now) {
+        SeatHold hold = holds.get(holdId);
+        return hold == null || hold.isExpired(now) ? null : hold;
+    }
+
+    /**
+     * Every hold of a trip that still holds its seats, expired or not
+     */
+    public List<SeatHold> forTrip(Long tripId) {
+        Set<SeatHold> tripHolds = holdsByTrip.get(tripId);
+        return tripHolds == null ? List.of() : new ArrayList<>(tripHolds);
+    }
+
+    /**
+     * Segments held on each seat of a trip
+     */
+    public Map<String, Long> heldSegments(Long tripId) {
+        Map<String, Long> held = new HashMap<>();
+        for (SeatHold hold : forTrip(tripId)) {
+            for (String seatNumber : hold.getSeatNumbers()) {
+                held.merge(seatNumber, hold.getLeg(), (a, b) -> a | b);
+            }
+        }
+        return held;
+    }
+
+    public List<SeatHold> expired(LocalDateTime now) {
+        List<SeatHold> expired = new ArrayList<>();
+        for (SeatHold hold : holds.values()) {
+            if (hold.isExpired(now)) {
+                expired.add(hold);
+            }
+        }
+        return expired;
+    }
+
+    public int size() {
+        return holds.size();
+    }
+
+    /**
+     * Seats a user holds over all trips
+     */
+    public int seatsHeldBy(Long userId) {
+        return seatsByUser.getOrDefault(userId, 0);
+    }
+
+    void add(SeatHold hold) {
+        holds.put(hold.getId(), hold);
+        holdsByTrip.computeIfAbsent(hold.getTripId(), id -> ConcurrentHashMap.newKeySet()).add(hold);
+        seatsByUser.merge(hold.getUserId(), hold.getSeatNumbers().size(), Integer::sum);
+    }
+
+    SeatHold remove(String holdId) {
+        SeatHold hold = holds.remove(holdId);
+        if (hold != null) {
+            holdsByTrip.computeIfPresent(hold.getTripId(), (id, tripHolds) -> {
+                tripHolds.remove(hold);
+                return tripHolds.isEmpty() ? null : tripHolds;
+            });
+            seatsByUser.computeIfPresent(hold.getUserId(), (id, seats) -> {
+                int remaining = seats - hold.getSeatNumbers().size();
+                return remaining > 0 ? remaining : null;
+            });
+        }
+        return hold;
+    }
+}
@@ -0,0 +1,634 @@
+package com.app.carpolling.inventory;
+
+import com.app.carpolling.dto.SeatStateRow;
+import com.app.carpolling.entity.TripSeat;
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.exception.ErrorCode;
+import com.app.carpolling.repository.TripRepository;
+import com.app.carpolling.repository.TripSeatRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Seat inventory of each trip, kept per route segment (see SegmentMask).
+ *
+ * Every seat holds a bitmask of the segments it is booked on, so one seat can be sold again on a
+ * leg that does not overlap any existing booking. All seats of a booking are claimed in memory
+ * with a single compare-and-set, which rejects conflicting concurrent requests without touching
+ * the database. The claim is then persisted on the locked trip_seats rows and one conditional
+ * update of the trip counters; the database stays authoritative, so a stale map (e.g. seats
+ * changed by another instance) can never cause a double sale - it is simply reloaded.
+ *
+ * Trip counters: availableSeats counts seats free on the whole trip, bookedSeats counts booked seats.
+ *
+ * Seat holds (SeatHoldStore) are claims in the seat maps that are never written to the database:
+ * they keep their seats from other bookings until they are released, expire or are converted
+ * into a booking by reserveHeld. Reloaded maps are overlaid with the holds of their trip.
+ *
+ * Must be called inside the booking transaction: in-memory claims are undone if it rolls back.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SeatInventory {
+
+    private final TripSeatRepository tripSeatRepository;
+    private final TripRepository tripRepository;
+    private final SeatHoldStore seatHoldStore;
+
+    @Value("${seat.inventory.max-trips:10000}")
+    private int maxTrips;
+
+    // Access-ordered so the least recently used trips are dropped first; guarded by "this"
+    private final LinkedHashMap<Long, TripSeatMap> trips = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, TripSeatMap> eldest) {
+            return size() > maxTrips;
+        }
+    };
+
+    /**
+     * Reserve all requested seats of a trip atomically for the segments of a leg
+     * @param leg segments travelled, from SegmentMask.of(boarding, drop)
+     * @throws BaseException SEAT_NOT_FOUND, SEAT_ALREADY_BOOKED or NOT_ENOUGH_SEATS
+     */
+    public void reserve(Long tripId, List<String> seatNumbers, long leg) {
+        if (new HashSet<>(seatNumbers).size() != seatNumbers.size()) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST, "Duplicate seat numbers in request");
+        }
+
+        Claim claim = claimSeats(tripId, seatNumbers, leg);
+        persist(tripId, seatNumbers, leg, () -> claim.seatMap.unclaim(claim.positions, leg));
+    }
+
+    /**
+     * Reserve any count seats of a trip for the segments of a leg, picked by the inventory and
+     * kept next to each other where possible (see TripSeatMap.pickAdjacent)
+     * @return seat numbers reserved, in seat order
+     * @throws BaseException NOT_ENOUGH_SEATS, or SEAT_ALREADY_BOOKED if the map was stale
+     */
+    public List<String> allocate(Long tripId, int count, long leg) {
+        Claim claim = claimAny(tripId, count, leg);
+        List<String> seatNumbers = claim.seatMap.seatNumbers(claim.positions);
+        persist(tripId, seatNumbers, leg, () -> claim.seatMap.unclaim(claim.positions, leg));
+        return seatNumbers;
+    }
+
+    /**
+     * Seats of a trip free on every segment of a leg, counted on the in-memory seat map (held
+     * seats count as taken). A hint only: a booking may still take them first.
+     */
+    public int freeSeats(Long tripId, long leg) {
+        return seatMap(tripId).free(leg);
+    }
+
+    /**
+     * Hold seats of a trip in memory only, either the given seatNumbers or any count seats
+     * picked like allocate. Needs no transaction.
+     * @param newHold builds the hold for the seat numbers claimed
+     * @param maxUserSeats most seats the hold's user may hold at once, this hold included
+     * @throws BaseException SEAT_NOT_FOUND, SEAT_ALREADY_BOOKED or NOT_ENOUGH_SEATS, or
+     * TOO_MANY_REQUESTS if the user would hold more than maxUserSeats seats
+     */
+    public SeatHold hold(Long tripId, List<String> seatNumbers, int count, long leg,
+                         Function<List<String>, SeatHold> newHold, int maxUserSeats) {
+        Claim claim;
+        if (seatNumbers != null && !seatNumbers.isEmpty()) {
+            if (new HashSet<>(seatNumbers).size() != seatNumbers.size()) {
+                throw new BaseException(ErrorCode.INVALID_REQUEST, "Duplicate seat numbers in request");
+            }
+            claim = claimSeats(tripId, seatNumbers, leg);
+        } else {
+            claim = claimAny(tripId, count, leg);
+        }
+
+        SeatHold hold = newHold.apply(claim.seatMap.seatNumbers(claim.positions));
+        synchronized (this) {
+            // Checked where holds are added, so concurrent requests of one user cannot overshoot
+            if (seatHoldStore.seatsHeldBy(hold.getUserId()) + hold.getSeatNumbers().size() > maxUserSeats) {
+                claim.seatMap.unclaim(claim.positions, leg);
+                throw new BaseException(ErrorCode.TOO_MANY_REQUESTS,
+                    "At most " + maxUserSeats + " seats can be held at once");
+            }
+            seatHoldStore.add(hold);
+            if (trips.get(tripId) != claim.seatMap) {
+                // Replaced while claiming, possibly without this hold; the next reload includes it
+                trips.remove(tripId);
+            }
+        }
+        return hold;
+    }
+
+    /**
+     * Move the expiry of a user's hold
+     * @return the hold, or null if it is unknown, expired or not the user's
+     */
+    public synchronized SeatHold extendHold(String holdId, Long userId, LocalDateTime expiresAt) {
+        SeatHold hold = seatHoldStore.get(holdId, LocalDateTime.now());
+        if (hold == null || !hold.getUserId().equals(userId)) {
+            return null;
+        }
+        hold.setExpiresAt(expiresAt);
+        return hold;
+    }
+
+    /**
+     * End a user's hold and free its seats
+     * @return false if the hold is unknown, expired or not the user's
+     */
+    public synchronized boolean releaseHold(String holdId, Long userId) {
+        SeatHold hold = seatHoldStore.get(holdId, LocalDateTime.now());
+        if (hold == null || !hold.getUserId().equals(userId)) {
+            return false;
+        }
+        unhold(hold);
+        return true;
+    }
+
+    /**
+     * End every hold that has run out and free its seats
+     * @return number of holds ended
+     */
+    public synchronized int expireHolds(LocalDateTime now) {
+        List<SeatHold> expired = seatHoldStore.expired(now);
+        for (SeatHold hold : expired) {
+            unhold(hold);
+        }
+        return expired.size();
+    }
+
+    /**
+     * Reserve the seats of a user's hold for a booking of the same trip and leg. The hold ends
+     * when the booking commits; if the booking rolls back the hold is restored, unless it has
+     * expired meanwhile, so a retried booking can still use it.
+     * @return seat numbers of the hold
+     * @throws BaseException SEAT_HOLD_NOT_FOUND if the hold is unknown, expired, not the user's
+     * or for another trip or leg
+     */
+    public List<String> reserveHeld(String holdId, Long userId, Long tripId, long leg) {
+        SeatHold hold;
+        TripSeatMap seatMap;
+        synchronized (this) {
+            hold = seatHoldStore.get(holdId, LocalDateTime.now());
+            if (hold == null || !hold.getUserId().equals(userId)
+                || !hold.getTripId().equals(tripId) || hold.getLeg() != leg) {
+                throw new BaseException(ErrorCode.SEAT_HOLD_NOT_FOUND);
+            }
+            seatHoldStore.remove(holdId);
+            seatMap = trips.get(tripId);
+        }
+
+        // A cached map already carries the hold's claim; a reloaded one no longer does
+        int[] positions;
+        if (seatMap != null) {
+            positions = seatMap.positions(hold.getSeatNumbers());
+        } else {
+            seatMap = reload(tripId);
+            positions = seatMap.positions(hold.getSeatNumbers());
+            if (!seatMap.claim(positions, leg)) {
+                throw new BaseException(ErrorCode.SEAT_ALREADY_BOOKED,
+                    "Seats " + seatMap.taken(positions, leg) + " are already booked");
+            }
+        }
+        TripSeatMap claimed = seatMap;
+        int[] claimedPositions = positions;
+        persist(tripId, hold.getSeatNumbers(), leg, () -> restoreHold(hold, claimed, claimedPositions));
+        return hold.getSeatNumbers();
+    }
+
+    private synchronized void restoreHold(SeatHold hold, TripSeatMap seatMap, int[] positions) {
+        if (hold.isExpired(LocalDateTime.now())) {
+            seatMap.unclaim(positions, hold.getLeg());
+            return;
+        }
+        seatHoldStore.add(hold);
+        if (trips.get(hold.getTripId()) != seatMap) {
+            trips.remove(hold.getTripId());
+        }
+    }
+
+    // Guarded by "this" (callers are synchronized)
+    private void unhold(SeatHold hold) {
+        seatHoldStore.remove(hold.getId());
+        TripSeatMap seatMap = trips.get(hold.getTripId());
+        if (seatMap != null) {
+            seatMap.unclaim(seatMap.positions(hold.getSeatNumbers()), hold.getLeg());
+        }
+    }
+
+    private Claim claimSeats(Long tripId, List<String> seatNumbers, long leg) {
+        TripSeatMap seatMap = seatMap(tripId);
+        int[] positions = seatMap.positions(seatNumbers);
+        if (!seatMap.claim(positions, leg)) {
+            // The map may be stale; re-check against the database once before rejecting
+            seatMap = reload(tripId);
+            positions = seatMap.positions(seatNumbers);
+            if (!seatMap.claim(positions, leg)) {
+                throw new BaseException(ErrorCode.SEAT_ALREADY_BOOKED,
+                    "Seats " + seatMap.taken(positions, leg) + " are already booked");
+            }
+        }
+        return new Claim(seatMap, positions);
+    }
+
+    private Claim claimAny(Long tripId, int count, long leg) {
+        if (count < 1) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST, "At least one seat must be requested");
+        }
+        TripSeatMap seatMap = seatMap(tripId);
+        int[] positions = seatMap.claimAny(count, leg);
+        if (positions == null) {
+            // The map may be stale; re-check against the database once before rejecting
+            seatMap = reload(tripId);
+            positions = seatMap.claimAny(count, leg);
+            if (positions == null) {
+                throw new BaseException(ErrorCode.NOT_ENOUGH_SEATS);
+            }
+        }
+        return new Claim(seatMap, positions);
+    }
+
+    /**
+     * Write seats claimed in the map to trip_seats and the trip counters
+     * @param onRollback undoes the claim if the transaction rolls back
+     */
+    private void persist(Long tripId, List<String> seatNumbers, long leg, Runnable onRollback) {
+        afterRollback(onRollback);
+
+        // Row locks serialise writers of the same seats across instances
+        List<TripSeat> seats = tripSeatRepository.findForUpdate(tripId, seatNumbers);
+        if (seats.size() != seatNumbers.size()) {
+            invalidate(tripId);
+            throw new BaseException(ErrorCode.SEAT_NOT_FOUND, "One or more seats not found");
+        }
+
+        int newlyOccupied = 0;
+        for (TripSeat seat : seats) {
+            long occupancy = occupancy(seat);
+            if (!SegmentMask.isFree(occupancy, leg)) {
+                invalidate(tripId);
+                throw new BaseException(ErrorCode.SEAT_ALREADY_BOOKED,
+                    "Seat " + seat.getSeatNumber() + " is already booked");
+            }
+            if (occupancy == 0) {
+                newlyOccupied++;
+            }
+            seat.setOccupiedSegments(occupancy | leg);
+            seat.setIsAvailable(false);
+        }
+
+        if (tripRepository.reserveSeatCount(tripId, newlyOccupied, seatNumbers.size()) == 0) {
+            invalidate(tripId);
+            throw new BaseException(ErrorCode.NOT_ENOUGH_SEATS);
+        }
+    }
+
+    /**
+     * Return the seats of a cancelled or expired booking on the segments of its leg
+     */
+    public void release(Long tripId, List<String> seatNumbers, long leg) {
+        releaseAll(List.of(new SeatRelease(tripId, seatNumbers, leg)));
+    }
+
+    /**
+     * Return the seats of many bookings at once: only the released seats are locked, one query
+     * per trip in trip id order (seat id order within a trip, like reserve), then updated in a
+     * JDBC batch, and each trip's counters are adjusted once
+     */
+    public void releaseAll(List<SeatRelease> releases) {
+        if (releases.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Set<String>> seatNumbersByTrip = new TreeMap<>();
+        for (SeatRelease release : releases) {
+            seatNumbersByTrip.computeIfAbsent(release.getTripId(), id -> new HashSet<>())
+                .addAll(release.getSeatNumbers());
+        }
+        Map<Long, Map<String, TripSeat>> seatsByTrip = new HashMap<>();
+        seatNumbersByTrip.forEach((tripId, seatNumbers) -> {
+            Map<String, TripSeat> tripSeats = new HashMap<>();
+            for (TripSeat seat : tripSeatRepository.findForUpdate(tripId, new ArrayList<>(seatNumbers))) {
+                tripSeats.put(seat.getSeatNumber(), seat);
+            }
+            seatsByTrip.put(tripId, tripSeats);
+        });
+
+        // tripId -> {freed, released}
+        Map<Long, int[]> counts = new LinkedHashMap<>();
+        Set<Long> reloadTrips = new HashSet<>();
+        for (SeatRelease release : releases) {
+            Map<String, TripSeat> tripSeats = seatsByTrip.getOrDefault(release.getTripId(), Map.of());
+            int[] tripCounts = counts.computeIfAbsent(release.getTripId(), id -> new int[2]);
+            int released = 0;
+            for (String seatNumber : release.getSeatNumbers()) {
+                TripSeat seat = tripSeats.get(seatNumber);
+                if (seat == null || seat.getIsDriverSeat() || seat.getIsAvailable()) {
+                    continue;
+                }
+                long occupied = seat.getOccupiedSegments();
+                if (occupied == 0) {
+                    // Booked before per-segment tracking: the booking held the whole trip
+                    reloadTrips.add(release.getTripId());
+                } else if ((occupied & release.getLeg()) == 0) {
+                    continue;
+                }
+                long remaining = occupied & ~release.getLeg();
+                seat.setOccupiedSegments(remaining);
+                seat.setIsAvailable(remaining == 0);
+                released++;
+                if (remaining == 0) {
+                    tripCounts[0]++;
+                }
+            }
+            tripCounts[1] += released;
+            if (released != release.getSeatNumbers().size()) {
+                log.warn("Released {} of {} seats for trip {}; seat inventory was out of sync",
+                    released, release.getSeatNumbers().size(), release.getTripId());
+            }
+        }
+
+        counts.forEach((tripId, tripCounts) -> {
+            if (tripCounts[1] > 0) {
+                tripRepository.releaseSeatCount(tripId, tripCounts[0], tripCounts[1]);
+            }
+        });
+
+        // Free the bits only once the release is visible to other transactions
+        afterCommit(() -> {
+            for (SeatRelease release : releases) {
+                TripSeatMap seatMap = cached(release.getTripId());
+                if (seatMap == null || reloadTrips.contains(release.getTripId())) {
+                    continue;
+                }
+                seatMap.unclaim(seatMap.positions(release.getSeatNumbers()), release.getLeg());
+            }
+            reloadTrips.forEach(this::invalidate);
+        });
+    }
+
+    /**
+     * Segments taken on each seat of a trip, in the order of the given seats
+     */
+    public static long occupancy(TripSeat seat) {
+        return SegmentMask.occupancy(seat.getIsAvailable(), seat.getIsDriverSeat(), seat.getOccupiedSegments());
+    }
+
+    public synchronized void invalidate(Long tripId) {
+        trips.remove(tripId);
+    }
+
+    private TripSeatMap seatMap(Long tripId) {
+        TripSeatMap seatMap = cached(tripId);
+        return seatMap != null ? seatMap : reload(tripId);
+    }
+
+    private synchronized TripSeatMap cached(Long tripId) {
+        return trips.get(tripId);
+    }
+
+    private TripSeatMap reload(Long tripId) {
+        TripSeatMap seatMap = new TripSeatMap(tripSeatRepository.findSeatStates(tripId));
+        synchronized (this) {
+            // Holds exist only in memory; read them under the lock hold() adds them with
+            for (SeatHold hold : seatHoldStore.forTrip(tripId)) {
+                seatMap.claimAlways(seatMap.positions(hold.getSeatNumbers()), hold.getLeg());
+            }
+            trips.put(tripId, seatMap);
+        }
+        return seatMap;
+    }
+
+    private void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Claim(TripSeatMap seatMap, int[] positions) {
+    }
+
+    /**
+     * Segment masks of one trip's seats. Entry i is seat seatNumbers[i]; the driver seat is always taken.
+     */
+    static final class TripSeatMap {
+        private final String[] seatNumbers;
+        private final Map<String, Integer> positions;
+        private final AtomicReference<long[]> occupancy;
+
+        TripSeatMap(List<SeatStateRow> seats) {
+            seatNumbers = new String[seats.size()];
+            positions = new HashMap<>(seats.size() * 2);
+            long[] masks = new long[seats.size()];
+            for (int i = 0; i < seats.size(); i++) {
+                SeatStateRow seat = seats.get(i);
+                seatNumbers[i] = seat.getSeatNumber();
+                positions.put(seat.getSeatNumber(), i);
+                masks[i] = SegmentMask.occupancy(seat.getIsAvailable(), seat.getIsDriverSeat(), seat.getOccupiedSegments());
+            }
+            occupancy = new AtomicReference<>(masks);
+        }
+
+        int[] positions(List<String> requested) {
+            int[] result = new int[requested.size()];
+            for (int i = 0; i < result.length; i++) {
+                Integer position = positions.get(requested.get(i));
+                if (position == null) {
+                    throw new BaseException(ErrorCode.SEAT_NOT_FOUND, "Seat " + requested.get(i) + " not found");
+                }
+                result[i] = position;
+            }
+            return result;
+        }
+
+        int free(long leg) {
+            int free = 0;
+            for (long seat : occupancy.get()) {
+                if ((seat & leg) == 0) {
+                    free++;
+                }
+            }
+            return free;
+        }
+
+        /**
+         * Add the leg to every seat with one compare-and-set, or to none if any seat overlaps it
+         */
+        boolean claim(int[] seats, long leg) {
+            while (true) {
+                long[] current = occupancy.get();
+                for (int seat : seats) {
+                    if ((current[seat] & leg) != 0) {
+                        return false;
+                    }
+                }
+                long[] next = current.clone();
+                for (int seat : seats) {
+                    next[seat] |= leg;
+                }
+                if (occupancy.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Pick count seats free on the leg and add the leg to them with one compare-and-set
+         * @return positions claimed, or null if fewer than count seats are free on the leg
+         */
+        int[] claimAny(int count, long leg) {
+            while (true) {
+                long[] current = occupancy.get();
+                int[] seats = pickAdjacent(current, count, leg);
+                if (seats == null) {
+                    return null;
+                }
+                long[] next = current.clone();
+                for (int seat : seats) {
+                    next[seat] |= leg;
+                }
+                if (occupancy.compareAndSet(current, next)) {
+                    return seats;
+                }
+            }
+        }
+
+        /**
+         * Seats for a group: the shortest run of adjacent seats free on the leg that holds the
+         * whole group, which keeps longer runs for larger groups; otherwise seats from the longest
+         * runs first so the group is split as little as possible. Adjacent means next to each
+         * other in seat order.
+         * @return positions in seat order, or null if fewer than count seats are free
+         */
+        static int[] pickAdjacent(long[] occupancy, int count, long leg) {
+            // {start, length} of every run of free seats
+            List<int[]> runs = new ArrayList<>();
+            int free = 0;
+            int start = -1;
+            for (int i = 0; i <= occupancy.length; i++) {
+                if (i < occupancy.length && (occupancy[i] & leg) == 0) {
+                    if (start < 0) {
+                        start = i;
+                    }
+                } else if (start >= 0) {
+                    runs.add(new int[]{start, i - start});
+                    free += i - start;
+                    start = -1;
+                }
+            }
+            if (free < count) {
+                return null;
+            }
+
+            int[] picked = new int[count];
+            int[] fitting = null;
+            for (int[] run : runs) {
+                if (run[1] >= count && (fitting == null || run[1] < fitting[1])) {
+                    fitting = run;
+                }
+            }
+            if (fitting != null) {
+                for (int k = 0; k < count; k++) {
+                    picked[k] = fitting[0] + k;
+                }
+                return picked;
+            }
+
+            runs.sort(Comparator.comparingInt((int[] run) -> run[1]).reversed());
+            int n = 0;
+            for (int[] run : runs) {
+                for (int k = 0; k < run[1] && n < count; k++) {
+                    picked[n++] = run[0] + k;
+                }
+            }
+            Arrays.sort(picked);
+            return picked;
+        }
+
+        List<String> seatNumbers(int[] seats) {
+            List<String> result = new ArrayList<>(seats.length);
+            for (int seat : seats) {
+                result.add(seatNumbers[seat]);
+            }
+            return result;
+        }
+
+        /**
+         * Add the leg to every seat whether or not it overlaps
+         */
+        void claimAlways(int[] seats, long leg) {
+            while (true) {
+                long[] current = occupancy.get();
+                long[] next = current.clone();
+                for (int seat : seats) {
+                    next[seat] |= leg;
+                }
+                if (occupancy.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        void unclaim(int[] seats, long leg) {
+            while (true) {
+                long[] current = occupancy.get();
+                long[] next = current.clone();
+                for (int seat : seats) {
+                    next[seat] &= ~leg;
+                }
+                if (occupancy.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        String taken(int[] seats, long leg) {
+            long[] current = occupancy.get();
+            StringBuilder taken = new StringBuilder();
+            for (int seat : seats) {
+                if ((current[seat] & leg) != 0) {
+                    taken.append(taken.length() > 0 ? ", " : "").append(seatNumbers[seat]);
+                }
+            }
+            return taken.toString();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.app.carpolling.inventory;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Seats of one booking to give back on the segments of its leg
+ */
+@Getter
+@AllArgsConstructor
+public class SeatRelease {
+    private final Long tripId;
+    private final List<String> seatNumbers;
+    private final long leg;
+}
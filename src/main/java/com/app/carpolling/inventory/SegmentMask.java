@@ -0,0 +1,55 @@
+package com.app.carpolling.inventory;
+
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.exception.ErrorCode;
+
+/**
+ * Interval bitsets over a route's stop sequence.
+ *
+ * Segment k is the stretch between the stops with sequenceOrder k and k + 1 and maps to bit k - 1.
+ * A leg from boarding sequence b to drop sequence d occupies segments b .. d - 1, so two legs can
+ * share a seat exactly when their masks do not intersect. Routes longer than 64 stops share the
+ * last bit for all remaining segments: such legs are treated as overlapping, which can only turn
+ * away a resale, never allow a double sale.
+ */
+public final class SegmentMask {
+    
+    /** Every segment of the trip; used for the driver seat and whole-trip availability */
+    public static final long FULL_TRIP = -1L;
+    
+    private static final int LAST_BIT = 63;
+    
+    private SegmentMask() {
+    }
+    
+    /**
+     * Mask of the segments travelled between two stops of a route
+     * @throws BaseException INVALID_ROUTE if the drop stop does not come after the boarding stop
+     */
+    public static long of(int boardingSequence, int dropSequence) {
+        if (boardingSequence < 1 || dropSequence <= boardingSequence) {
+            throw new BaseException(ErrorCode.INVALID_ROUTE,
+                "Boarding point must come before drop point in route sequence");
+        }
+        int from = Math.min(boardingSequence - 1, LAST_BIT);
+        int to = Math.min(dropSequence - 2, LAST_BIT);
+        long upTo = to == LAST_BIT ? FULL_TRIP : (1L << (to + 1)) - 1;
+        return upTo & (FULL_TRIP << from);
+    }
+    
+    /**
+     * Segments of a seat currently taken.
+     * Seats booked before occupancy was tracked per segment have no bits but are unavailable;
+     * they are held for the whole trip.
+     */
+    public static long occupancy(boolean isAvailable, boolean isDriverSeat, long occupiedSegments) {
+        if (isDriverSeat || (!isAvailable && occupiedSegments == 0)) {
+            return FULL_TRIP;
+        }
+        return occupiedSegments;
+    }
+    
+    public static boolean isFree(long occupancy, long leg) {
+        return (occupancy & leg) == 0;
+    }
+}
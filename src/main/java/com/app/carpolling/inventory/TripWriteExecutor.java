@@ -0,0 +1,235 @@
+package com.app.carpolling.inventory;
+
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.exception.ErrorCode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Optional single-writer mode for booking writes (booking.single-writer.enabled).
+ *
+ * Every write of a trip (create, cancel, expire) runs on the worker its trip id maps to, one at a
+ * time, so writes of the same trip never contend for its rows and never need a conflict retry.
+ * Trips are striped over booking.single-writer.workers workers; each has a bounded queue of
+ * booking.single-writer.queue-capacity writes.
+ *
+ * The normal path stays correct on its own (row locks and the trip version), so the executor
+ * falls back to running a write on the caller's thread whenever handing it over does not pay:
+ * mode disabled, queue full (unless booking.single-writer.reject-when-full turns that into
+ * TOO_MANY_REQUESTS), shutting down, already on a worker, or queued longer than
+ * booking.single-writer.wait-ms. A queued write that falls back is cancelled first, so it never
+ * runs twice.
+ *
+ * Metrics: booking.writer.tasks{path=queued|direct|fallback}, booking.writer.queue.depth
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TripWriteExecutor {
+
+    private static final ThreadLocal<Boolean> ON_WORKER = ThreadLocal.withInitial(() -> false);
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${booking.single-writer.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${booking.single-writer.workers:8}")
+    private int workers = 8;
+
+    @Value("${booking.single-writer.queue-capacity:256}")
+    private int queueCapacity = 256;
+
+    @Value("${booking.single-writer.wait-ms:2000}")
+    private long waitMillis = 2000;
+
+    @Value("${booking.single-writer.reject-when-full:false}")
+    private boolean rejectWhenFull = false;
+
+    private volatile ThreadPoolExecutor[] stripes = new ThreadPoolExecutor[0];
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong direct = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        FunctionCounter.builder("booking.writer.tasks", queued, AtomicLong::get)
+            .tag("path", "queued")
+            .register(meterRegistry);
+        FunctionCounter.builder("booking.writer.tasks", direct, AtomicLong::get)
+            .tag("path", "direct")
+            .register(meterRegistry);
+        FunctionCounter.builder("booking.writer.tasks", fallbacks, AtomicLong::get)
+            .tag("path", "fallback")
+            .register(meterRegistry);
+        Gauge.builder("booking.writer.queue.depth", this, TripWriteExecutor::queueDepth)
+            .register(meterRegistry);
+
+        if (!enabled) {
+            return;
+        }
+        ThreadPoolExecutor[] started = new ThreadPoolExecutor[Math.max(1, workers)];
+        for (int i = 0; i < started.length; i++) {
+            String name = "trip-writer-" + i;
+            started[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(() -> {
+                        ON_WORKER.set(true);
+                        runnable.run();
+                    }, name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        }
+        stripes = started;
+        log.info("Single-writer booking mode enabled with {} workers", started.length);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ThreadPoolExecutor[] running = stripes;
+        stripes = new ThreadPoolExecutor[0];
+        for (ThreadPoolExecutor stripe : running) {
+            stripe.shutdown();
+        }
+        try {
+            for (ThreadPoolExecutor stripe : running) {
+                if (!stripe.awaitTermination(5, TimeUnit.SECONDS)) {
+                    log.warn("Trip writer still busy at shutdown; {} writes left", stripe.getQueue().size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return stripes.length > 0;
+    }
+
+    /**
+     * Run a write of a trip on the trip's worker, or on this thread if it falls back
+     * @param tripId null runs the write on this thread
+     * @throws BaseException TOO_MANY_REQUESTS if the trip's queue is full and rejectWhenFull is set
+     */
+    public <T> T execute(Long tripId, Supplier<T> work) {
+        return await(submit(tripId, work));
+    }
+
+    /**
+     * Run writes of several trips, each on its trip's worker, and wait for all of them.
+     * Results are in the iteration order of workByTrip; the first failure is rethrown once
+     * every write has completed.
+     */
+    public <T> List<T> executeAll(Map<Long, Supplier<T>> workByTrip) {
+        List<Write<T>> writes = new ArrayList<>(workByTrip.size());
+        workByTrip.forEach((tripId, work) -> writes.add(submit(tripId, work)));
+
+        List<T> results = new ArrayList<>(writes.size());
+        RuntimeException failure = null;
+        for (Write<T> write : writes) {
+            try {
+                results.add(await(write));
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    public int queueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor stripe : stripes) {
+            depth += stripe.getQueue().size();
+        }
+        return depth;
+    }
+
+    private <T> Write<T> submit(Long tripId, Supplier<T> work) {
+        Write<T> write = new Write<>(work);
+        ThreadPoolExecutor[] current = stripes;
+        if (current.length == 0 || tripId == null || ON_WORKER.get()) {
+            // Nested writes must not wait for their own worker
+            direct.incrementAndGet();
+            write.run();
+            return write;
+        }
+        try {
+            current[Math.floorMod(Long.hashCode(tripId), current.length)].execute(write);
+            queued.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            if (rejectWhenFull && isEnabled()) {
+                throw new BaseException(ErrorCode.TOO_MANY_REQUESTS, "Too many bookings for this trip, try again shortly");
+            }
+            // Queue full or shutting down: the caller does the write itself, which also slows it down
+            fallbacks.incrementAndGet();
+            write.run();
+        }
+        return write;
+    }
+
+    private <T> T await(Write<T> write) {
+        try {
+            try {
+                return write.get(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (write.cancel(false)) {
+                    // Still queued and now never started by the worker; run it here instead
+                    fallbacks.incrementAndGet();
+                    return write.work.get();
+                }
+                // Already running on the worker; its outcome is the write's outcome
+                return write.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new BaseException(ErrorCode.INTERNAL_SERVER_ERROR, cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write.cancel(false);
+            throw new BaseException(ErrorCode.INTERNAL_SERVER_ERROR, "Interrupted while waiting for trip writer");
+        }
+    }
+
+    private static final class Write<T> extends FutureTask<T> {
+        private final Supplier<T> work;
+
+        private Write(Supplier<T> work) {
+            super(work::get);
+            this.work = work;
+        }
+    }
+}
@@ -1,8 +1,17 @@
 package com.app.carpolling.repository;
 
+import com.app.carpolling.dto.BookingExpiryRow;
+import com.app.carpolling.dto.BookingSeatRow;
+import com.app.carpolling.dto.BookingTripRow;
 import com.app.carpolling.entity.Booking;
 import com.app.carpolling.entity.BookingStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -19,6 +28,63 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     
     // Find expired pending bookings
     List<Booking> findByStatusAndExpiresAtBefore(BookingStatus status, LocalDateTime expiresAt);
+    
+    // Every pending hold, read from the (status, expires_at) index to rebuild the expiry timer
+    @Query("SELECT new com.app.carpolling.dto.BookingExpiryRow(b.id, b.expiresAt) FROM Booking b " +
+           "WHERE b.status = 'PENDING' ORDER BY b.expiresAt")
+    List<BookingExpiryRow> findPendingExpiries();
+    
+    // Next chunk of expired holds after the given id (keyset pagination for the expiry sweep)
+    @Query("SELECT b.id FROM Booking b " +
+           "WHERE b.status = 'PENDING' AND b.expiresAt <= :now AND b.id > :afterId " +
+           "ORDER BY b.id")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, @Param("afterId") Long afterId, Limit limit);
+    
+    // Lock the holds among the given ids that are still pending and expired. A confirmation
+    // (markConfirmed) or cancellation (markCancelled) updates the same row under its row lock,
+    // so one that commits first is skipped here and one that comes later waits for the expiry
+    // to commit and then matches no row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.id FROM Booking b " +
+           "WHERE b.id IN :bookingIds AND b.status = 'PENDING' AND b.expiresAt <= :now " +
+           "ORDER BY b.id")
+    List<Long> lockExpired(@Param("bookingIds") List<Long> bookingIds, @Param("now") LocalDateTime now);
+    
+    // Cancel only holds still pending, so a booking confirmed or cancelled meanwhile is never
+    // counted as expired
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'CANCELLED', b.updatedAt = :now " +
+           "WHERE b.id IN :bookingIds AND b.status = 'PENDING'")
+    int markAllCancelled(@Param("bookingIds") List<Long> bookingIds, @Param("now") LocalDateTime now);
+    
+    // Seats of many bookings with their boarding/drop sequence, one row per seat
+    @Query("SELECT new com.app.carpolling.dto.BookingSeatRow(b.id, t.id, t.route.id, t.departureTime, " +
+           "bp.sequenceOrder, dp.sequenceOrder, s) " +
+           "FROM Booking b JOIN b.trip t JOIN b.boardingPoint bp JOIN b.dropPoint dp JOIN b.seatNumbers s " +
+           "WHERE b.id IN :bookingIds")
+    List<BookingSeatRow> findSeatRows(@Param("bookingIds") List<Long> bookingIds);
+    
+    // Trip of each of the given bookings
+    @Query("SELECT new com.app.carpolling.dto.BookingTripRow(b.id, b.trip.id) FROM Booking b " +
+           "WHERE b.id IN :bookingIds")
+    List<BookingTripRow> findTripIds(@Param("bookingIds") List<Long> bookingIds);
+    
+    // Claim a booking for cancellation unless it is already cancelled
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'CANCELLED', b.updatedAt = :now " +
+           "WHERE b.id = :bookingId AND b.status <> 'CANCELLED'")
+    int markCancelled(@Param("bookingId") Long bookingId, @Param("now") LocalDateTime now);
+    
+    // Current status read from the database, not from an entity the caller may have loaded earlier
+    @Query("SELECT b.status FROM Booking b WHERE b.id = :bookingId")
+    Optional<BookingStatus> findStatus(@Param("bookingId") Long bookingId);
+    
+    // Confirm only a hold that is still pending and has not run out, even if no expiry has
+    // claimed it yet; 0 means it expired, was cancelled or was already confirmed
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'CONFIRMED', b.updatedAt = :now " +
+           "WHERE b.id = :bookingId AND b.status = 'PENDING' AND b.expiresAt > :now")
+    int markConfirmed(@Param("bookingId") Long bookingId, @Param("now") LocalDateTime now);
 }
 
 
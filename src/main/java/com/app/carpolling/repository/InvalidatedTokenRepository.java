@@ -2,6 +2,8 @@ package com.app.carpolling.repository;
 
 import com.app.carpolling.entity.InvalidatedToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -23,6 +25,13 @@ public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedTok
     // Find expired tokens for cleanup
     List<InvalidatedToken> findByExpiresAtBefore(LocalDateTime expiresAt);
     
+    // Token values only, for loading the in-memory blacklist filter
+    @Query("SELECT t.token FROM InvalidatedToken t")
+    List<String> findAllTokens();
+    
+    @Query("SELECT t.token FROM InvalidatedToken t WHERE t.invalidatedAt >= :since")
+    List<String> findTokensInvalidatedSince(@Param("since") LocalDateTime since);
+    
     // Delete expired tokens
     void deleteByExpiresAtBefore(LocalDateTime expiresAt);
 }
@@ -1,6 +1,11 @@
 package com.app.carpolling.repository;
 
 import com.app.carpolling.entity.RoutePoint;
+import com.app.carpolling.index.GeoPoint;
+import com.app.carpolling.index.LocationPoint;
+import com.app.carpolling.index.RouteStop;
+import com.app.carpolling.index.TimetableStop;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,8 +16,67 @@ import java.util.Optional;
 
 @Repository
 public interface RoutePointRepository extends JpaRepository<RoutePoint, Long> {
+    
+    String CITY_WORD_PREFIX = "(LOWER(rp.city) LIKE CONCAT(:prefix, '%') " +
+        "OR LOWER(rp.city) LIKE CONCAT('% ', :prefix, '%') OR LOWER(rp.city) LIKE CONCAT('%-', :prefix, '%'))";
+    String SUB_LOCATION_WORD_PREFIX = "(LOWER(rp.subLocation) LIKE CONCAT(:prefix, '%') " +
+        "OR LOWER(rp.subLocation) LIKE CONCAT('% ', :prefix, '%') OR LOWER(rp.subLocation) LIKE CONCAT('%-', :prefix, '%'))";
+    
     List<RoutePoint> findByRouteIdOrderBySequenceOrderAsc(Long routeId);
     
+    // Stops of all active routes, used to build the in-memory search indexes
+    @Query("SELECT new com.app.carpolling.index.RouteStop(rp.route.id, rp.city, rp.sequenceOrder) " +
+           "FROM RoutePoint rp WHERE rp.route.isActive = true")
+    List<RouteStop> findActiveRouteStops();
+    
+    // City and sub-location of every route point, used to build the autocomplete index
+    @Query("SELECT new com.app.carpolling.index.LocationPoint(" +
+           "rp.id, rp.route.id, rp.city, rp.subLocation, rp.isBoardingPoint, rp.isDropPoint) " +
+           "FROM RoutePoint rp")
+    List<LocationPoint> findAllLocationPoints();
+    
+    @Query("SELECT new com.app.carpolling.index.LocationPoint(" +
+           "rp.id, rp.route.id, rp.city, rp.subLocation, rp.isBoardingPoint, rp.isDropPoint) " +
+           "FROM RoutePoint rp WHERE rp.route.id = :routeId")
+    List<LocationPoint> findLocationPointsByRouteId(@Param("routeId") Long routeId);
+    
+    // Boarding points of active routes with their coordinates, used to build the spatial index
+    @Query("SELECT new com.app.carpolling.index.GeoPoint(" +
+           "rp.id, r.id, r.routeName, rp.city, rp.subLocation, rp.pointName, " +
+           "rp.latitude, rp.longitude, rp.timeFromStart) " +
+           "FROM RoutePoint rp JOIN rp.route r " +
+           "WHERE rp.isBoardingPoint = true AND r.isActive = true")
+    List<GeoPoint> findActiveBoardingGeoPoints();
+    
+    @Query("SELECT new com.app.carpolling.index.GeoPoint(" +
+           "rp.id, r.id, r.routeName, rp.city, rp.subLocation, rp.pointName, " +
+           "rp.latitude, rp.longitude, rp.timeFromStart) " +
+           "FROM RoutePoint rp JOIN rp.route r " +
+           "WHERE rp.isBoardingPoint = true AND r.id = :routeId")
+    List<GeoPoint> findBoardingGeoPointsByRouteId(@Param("routeId") Long routeId);
+    
+    // Stops of active routes with their time offsets, used to build the connection index
+    @Query("SELECT new com.app.carpolling.index.TimetableStop(" +
+           "r.id, r.routeName, rp.id, rp.city, rp.sequenceOrder, rp.distanceFromStart, rp.timeFromStart) " +
+           "FROM RoutePoint rp JOIN rp.route r " +
+           "WHERE r.isActive = true " +
+           "ORDER BY r.id ASC, rp.sequenceOrder ASC")
+    List<TimetableStop> findActiveTimetableStops();
+    
+    @Query("SELECT new com.app.carpolling.index.TimetableStop(" +
+           "r.id, r.routeName, rp.id, rp.city, rp.sequenceOrder, rp.distanceFromStart, rp.timeFromStart) " +
+           "FROM RoutePoint rp JOIN rp.route r " +
+           "WHERE r.id = :routeId " +
+           "ORDER BY rp.sequenceOrder ASC")
+    List<TimetableStop> findTimetableStopsByRouteId(@Param("routeId") Long routeId);
+    
+    @Query("SELECT new com.app.carpolling.index.TimetableStop(" +
+           "r.id, r.routeName, rp.id, rp.city, rp.sequenceOrder, rp.distanceFromStart, rp.timeFromStart) " +
+           "FROM RoutePoint rp JOIN rp.route r " +
+           "WHERE r.id IN :routeIds " +
+           "ORDER BY r.id ASC, rp.sequenceOrder ASC")
+    List<TimetableStop> findTimetableStopsByRouteIds(@Param("routeIds") List<Long> routeIds);
+    
     // Get all distinct cities
     @Query("SELECT DISTINCT rp.city FROM RoutePoint rp ORDER BY rp.city")
     List<String> findAllDistinctCities();
@@ -47,27 +111,26 @@ public interface RoutePointRepository extends JpaRepository<RoutePoint, Long> {
            "ORDER BY rp.city, rp.subLocation")
     List<RoutePoint> findAllDropPoints();
     
-    // Search boarding points by city or sub-location (case-insensitive)
+    // Autocomplete fallback while the index is not built: boarding points whose city or
+    // sub-location has a word (after a space or hyphen) starting with the lower-case prefix
     @Query("SELECT DISTINCT rp FROM RoutePoint rp " +
            "WHERE rp.isBoardingPoint = true " +
-           "AND (LOWER(rp.city) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
-           "OR LOWER(rp.subLocation) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) " +
+           "AND (" + CITY_WORD_PREFIX + " OR " + SUB_LOCATION_WORD_PREFIX + ") " +
            "ORDER BY rp.city, rp.subLocation")
-    List<RoutePoint> searchBoardingPoints(@Param("searchTerm") String searchTerm);
+    List<RoutePoint> searchBoardingPoints(@Param("prefix") String prefix, Limit limit);
     
-    // Search drop points by city or sub-location (case-insensitive)
+    // Drop points like searchBoardingPoints
     @Query("SELECT DISTINCT rp FROM RoutePoint rp " +
            "WHERE rp.isDropPoint = true " +
-           "AND (LOWER(rp.city) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
-           "OR LOWER(rp.subLocation) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) " +
+           "AND (" + CITY_WORD_PREFIX + " OR " + SUB_LOCATION_WORD_PREFIX + ") " +
            "ORDER BY rp.city, rp.subLocation")
-    List<RoutePoint> searchDropPoints(@Param("searchTerm") String searchTerm);
+    List<RoutePoint> searchDropPoints(@Param("prefix") String prefix, Limit limit);
     
-    // Search cities by name
+    // Cities like searchBoardingPoints
     @Query("SELECT DISTINCT rp.city FROM RoutePoint rp " +
-           "WHERE LOWER(rp.city) LIKE LOWER(CONCAT('%', :searchTerm, '%')) " +
+           "WHERE " + CITY_WORD_PREFIX + " " +
            "ORDER BY rp.city")
-    List<String> searchCities(@Param("searchTerm") String searchTerm);
+    List<String> searchCities(@Param("prefix") String prefix, Limit limit);
 
     @Query("SELECT rp FROM RoutePoint rp WHERE rp.city = :city AND rp.isBoardingPoint = true ORDER BY rp.subLocation")
     List<RoutePoint> findBoardingPointsByCity(@Param("city") String city);
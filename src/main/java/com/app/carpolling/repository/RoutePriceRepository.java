@@ -1,5 +1,6 @@
 package com.app.carpolling.repository;
 
+import com.app.carpolling.dto.RoutePriceEntry;
 import com.app.carpolling.entity.RoutePrice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -23,6 +24,11 @@ public interface RoutePriceRepository extends JpaRepository<RoutePrice, Long> {
         @Param("dropPointId") Long dropPointId
     );
     
+    // Whole price matrix of a route, used to fill the in-memory price cache
+    @Query("SELECT new com.app.carpolling.dto.RoutePriceEntry(rp.boardingPoint.id, rp.dropPoint.id, rp.price) " +
+           "FROM RoutePrice rp WHERE rp.route.id = :routeId")
+    List<RoutePriceEntry> findPriceEntriesByRouteId(@Param("routeId") Long routeId);
+    
     void deleteByRouteId(Long routeId);
 }
 
@@ -1,8 +1,14 @@
 package com.app.carpolling.repository;
 
+import com.app.carpolling.dto.PriceCalendarTripRow;
+import com.app.carpolling.dto.TripHeaderRow;
+import com.app.carpolling.dto.TripSearchRow;
+import com.app.carpolling.dto.UpcomingTripRow;
 import com.app.carpolling.entity.Trip;
 import com.app.carpolling.entity.TripStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -28,7 +34,138 @@ public interface TripRepository extends JpaRepository<Trip, Long> {
         @Param("toDate") LocalDateTime toDate
     );
     
+    // Search results for a boarding/drop city pair in one statement: trip, driver, vehicle
+    // and the first stop of each city on the route (prices come from RoutePriceCache, free seats
+    // for the leg from TripSeatRepository.findSeatOccupancy). Cities with several stops are
+    // approximated by their first one; TripService.toSearchResponse explains the effect
+    String SEARCH_ROW_QUERY = "SELECT new com.app.carpolling.dto.TripSearchRow(" +
+           "t.id, r.id, t.departureTime, r.routeName, " +
+           "u.name, u.phone, d.rating, " +
+           "v.brand, v.model, v.color, v.registrationNumber, v.vehicleType, v.hasAc, " +
+           "bp.id, bp.sequenceOrder, bp.distanceFromStart, bp.timeFromStart, " +
+           "dp.id, dp.sequenceOrder, dp.distanceFromStart, dp.timeFromStart) " +
+           "FROM Trip t " +
+           "JOIN t.route r " +
+           "JOIN t.driver d " +
+           "JOIN d.user u " +
+           "JOIN t.vehicle v " +
+           "JOIN RoutePoint bp ON bp.route = r AND bp.city = :boardingCity " +
+           "JOIN RoutePoint dp ON dp.route = r AND dp.city = :dropCity " +
+           "WHERE r.id IN :routeIds " +
+           "AND t.status = 'SCHEDULED' " +
+           "AND bp.sequenceOrder = (SELECT MIN(x.sequenceOrder) FROM RoutePoint x " +
+           "WHERE x.route = r AND x.city = :boardingCity) " +
+           "AND dp.sequenceOrder = (SELECT MIN(y.sequenceOrder) FROM RoutePoint y " +
+           "WHERE y.route = r AND y.city = :dropCity) ";
+    
+    @Query(SEARCH_ROW_QUERY +
+           "AND t.departureTime >= :fromDate " +
+           "AND t.departureTime <= :toDate " +
+           "ORDER BY t.departureTime ASC")
+    List<TripSearchRow> findTripSearchRows(
+        @Param("routeIds") List<Long> routeIds,
+        @Param("boardingCity") String boardingCity,
+        @Param("dropCity") String dropCity,
+        @Param("fromDate") LocalDateTime fromDate,
+        @Param("toDate") LocalDateTime toDate
+    );
+    
+    // Next page of search results after (afterDeparture, afterTripId), served by the
+    // trips(route_id, status, departure_time) index
+    @Query(SEARCH_ROW_QUERY +
+           "AND (t.departureTime > :afterDeparture " +
+           "OR (t.departureTime = :afterDeparture AND t.id > :afterTripId)) " +
+           "AND t.departureTime <= :toDate " +
+           "ORDER BY t.departureTime ASC, t.id ASC")
+    List<TripSearchRow> findTripSearchRowsAfter(
+        @Param("routeIds") List<Long> routeIds,
+        @Param("boardingCity") String boardingCity,
+        @Param("dropCity") String dropCity,
+        @Param("afterDeparture") LocalDateTime afterDeparture,
+        @Param("afterTripId") Long afterTripId,
+        @Param("toDate") LocalDateTime toDate,
+        Limit limit
+    );
+    
+    // Price calendar of a city pair: every scheduled trip of the window with its fixed price and
+    // leg (first stop per city, as in SEARCH_ROW_QUERY) in one statement; free seats on the leg
+    // come from TripSeatRepository.findSeatOccupancy
+    @Query("SELECT new com.app.carpolling.dto.PriceCalendarTripRow(" +
+           "t.id, t.departureTime, rp.price, bp.sequenceOrder, dp.sequenceOrder) " +
+           "FROM Trip t " +
+           "JOIN t.route r " +
+           "JOIN RoutePoint bp ON bp.route = r AND bp.city = :boardingCity " +
+           "JOIN RoutePoint dp ON dp.route = r AND dp.city = :dropCity " +
+           "JOIN RoutePrice rp ON rp.route = r AND rp.boardingPoint = bp AND rp.dropPoint = dp " +
+           "WHERE r.id IN :routeIds " +
+           "AND t.status = 'SCHEDULED' " +
+           "AND t.departureTime >= :fromDate " +
+           "AND t.departureTime < :toDate " +
+           "AND bp.sequenceOrder < dp.sequenceOrder " +
+           "AND bp.sequenceOrder = (SELECT MIN(x.sequenceOrder) FROM RoutePoint x " +
+           "WHERE x.route = r AND x.city = :boardingCity) " +
+           "AND dp.sequenceOrder = (SELECT MIN(y.sequenceOrder) FROM RoutePoint y " +
+           "WHERE y.route = r AND y.city = :dropCity) " +
+           "ORDER BY t.departureTime")
+    List<PriceCalendarTripRow> findPriceCalendarTrips(
+        @Param("routeIds") List<Long> routeIds,
+        @Param("boardingCity") String boardingCity,
+        @Param("dropCity") String dropCity,
+        @Param("fromDate") LocalDateTime fromDate,
+        @Param("toDate") LocalDateTime toDate
+    );
+    
+    // Search result columns of every scheduled trip of many routes in a time window, for batch
+    // searches; stops are matched per corridor in memory
+    @Query("SELECT new com.app.carpolling.dto.TripHeaderRow(" +
+           "t.id, r.id, t.departureTime, r.routeName, " +
+           "u.name, u.phone, d.rating, " +
+           "v.brand, v.model, v.color, v.registrationNumber, v.vehicleType, v.hasAc) " +
+           "FROM Trip t " +
+           "JOIN t.route r " +
+           "JOIN t.driver d " +
+           "JOIN d.user u " +
+           "JOIN t.vehicle v " +
+           "WHERE r.id IN :routeIds " +
+           "AND t.status = 'SCHEDULED' " +
+           "AND t.departureTime >= :fromDate " +
+           "AND t.departureTime <= :toDate " +
+           "ORDER BY t.departureTime ASC")
+    List<TripHeaderRow> findTripHeaders(
+        @Param("routeIds") List<Long> routeIds,
+        @Param("fromDate") LocalDateTime fromDate,
+        @Param("toDate") LocalDateTime toDate
+    );
+    
+    // Scheduled departures of several routes in a time window, earliest first
+    @Query("SELECT new com.app.carpolling.dto.UpcomingTripRow(t.id, t.route.id, t.departureTime, t.availableSeats) " +
+           "FROM Trip t " +
+           "WHERE t.route.id IN :routeIds " +
+           "AND t.status = 'SCHEDULED' " +
+           "AND t.departureTime >= :fromDate " +
+           "AND t.departureTime <= :toDate " +
+           "ORDER BY t.departureTime ASC, t.id ASC")
+    List<UpcomingTripRow> findUpcomingTrips(
+        @Param("routeIds") List<Long> routeIds,
+        @Param("fromDate") LocalDateTime fromDate,
+        @Param("toDate") LocalDateTime toDate
+    );
+    
     List<Trip> findByStatusAndDepartureTimeBefore(TripStatus status, LocalDateTime dateTime);
+    
+    // Book seats; "occupied" of them were free on the whole trip until now and leave availableSeats
+    @Modifying
+    @Query("UPDATE Trip t SET t.availableSeats = t.availableSeats - :occupied, " +
+           "t.bookedSeats = t.bookedSeats + :booked, t.version = t.version + 1 " +
+           "WHERE t.id = :tripId AND t.availableSeats >= :occupied")
+    int reserveSeatCount(@Param("tripId") Long tripId, @Param("occupied") int occupied, @Param("booked") int booked);
+    
+    // Release booked seats; "freed" of them are now free on the whole trip again
+    @Modifying
+    @Query("UPDATE Trip t SET t.availableSeats = t.availableSeats + :freed, " +
+           "t.bookedSeats = t.bookedSeats - :released, t.version = t.version + 1 " +
+           "WHERE t.id = :tripId AND t.bookedSeats >= :released")
+    int releaseSeatCount(@Param("tripId") Long tripId, @Param("freed") int freed, @Param("released") int released);
 }
 
 
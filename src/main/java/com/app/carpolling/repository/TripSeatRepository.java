@@ -1,7 +1,13 @@
 package com.app.carpolling.repository;
 
+import com.app.carpolling.dto.SeatOccupancyRow;
+import com.app.carpolling.dto.SeatStateRow;
 import com.app.carpolling.entity.TripSeat;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,6 +18,24 @@ public interface TripSeatRepository extends JpaRepository<TripSeat, Long> {
     List<TripSeat> findByTripId(Long tripId);
     List<TripSeat> findByTripIdAndIsAvailableTrue(Long tripId);
     Optional<TripSeat> findByTripIdAndSeatNumber(Long tripId, String seatNumber);
+    
+    // Lock the requested seats (in id order, so concurrent bookings cannot deadlock) while
+    // their segment masks are checked and updated
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM TripSeat s " +
+           "WHERE s.trip.id = :tripId AND s.seatNumber IN :seatNumbers " +
+           "ORDER BY s.id")
+    List<TripSeat> findForUpdate(@Param("tripId") Long tripId, @Param("seatNumbers") List<String> seatNumbers);
+    
+    // Every seat of a trip as plain values, for the in-memory seat map
+    @Query("SELECT new com.app.carpolling.dto.SeatStateRow(s.seatNumber, s.isAvailable, s.isDriverSeat, s.occupiedSegments) " +
+           "FROM TripSeat s WHERE s.trip.id = :tripId ORDER BY s.id")
+    List<SeatStateRow> findSeatStates(@Param("tripId") Long tripId);
+    
+    // Passenger seat occupancy of many trips in one statement, for leg-aware search results
+    @Query("SELECT new com.app.carpolling.dto.SeatOccupancyRow(s.trip.id, s.isAvailable, s.occupiedSegments) " +
+           "FROM TripSeat s WHERE s.trip.id IN :tripIds AND s.isDriverSeat = false")
+    List<SeatOccupancyRow> findSeatOccupancy(@Param("tripIds") List<Long> tripIds);
 }
 
 
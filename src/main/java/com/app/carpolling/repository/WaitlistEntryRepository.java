@@ -0,0 +1,43 @@
+package com.app.carpolling.repository;
+
+import com.app.carpolling.entity.WaitlistEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WaitlistEntryRepository extends JpaRepository<WaitlistEntry, Long> {
+    List<WaitlistEntry> findByUserIdOrderByCreatedAtDesc(Long userId);
+    
+    // Next page of a trip's queue after afterId, read in join order from the (trip_id, status, id) index
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.tripId = :tripId AND w.status = 'WAITING' AND w.id > :afterId " +
+           "ORDER BY w.id")
+    List<WaitlistEntry> findWaitingAfter(@Param("tripId") Long tripId, @Param("afterId") Long afterId, Limit limit);
+    
+    // Last stop any waiting entry of a trip travels to, or null if nobody waits
+    @Query("SELECT MAX(w.dropSequence) FROM WaitlistEntry w WHERE w.tripId = :tripId AND w.status = 'WAITING'")
+    Integer findLastWaitingDropSequence(@Param("tripId") Long tripId);
+    
+    @Query("SELECT COUNT(w) > 0 FROM WaitlistEntry w WHERE w.tripId = :tripId AND w.status = 'WAITING'")
+    boolean existsWaiting(@Param("tripId") Long tripId);
+    
+    @Query("SELECT DISTINCT w.tripId FROM WaitlistEntry w WHERE w.status = 'WAITING'")
+    List<Long> findTripIdsWithWaiting();
+    
+    // Promote only an entry still waiting, so an entry left meanwhile rolls its booking back
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'PROMOTED', w.bookingId = :bookingId, w.updatedAt = :now " +
+           "WHERE w.id = :entryId AND w.status = 'WAITING'")
+    int markPromoted(@Param("entryId") Long entryId, @Param("bookingId") Long bookingId, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = 'EXPIRED', w.updatedAt = :now " +
+           "WHERE w.tripId = :tripId AND w.status = 'WAITING'")
+    int expireWaiting(@Param("tripId") Long tripId, @Param("now") LocalDateTime now);
+}
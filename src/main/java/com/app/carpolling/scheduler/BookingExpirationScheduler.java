@@ -1,23 +1,27 @@
 package com.app.carpolling.scheduler;
 
-import com.app.carpolling.entity.Booking;
-import com.app.carpolling.entity.BookingStatus;
 import com.app.carpolling.repository.BookingRepository;
 import com.app.carpolling.service.BookingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 /**
- * Scheduled job to automatically cancel expired pending bookings
- * and release their seats back to the trip inventory.
+ * Safety-net sweep that cancels expired pending bookings
+ * and releases their seats back to the trip inventory.
  * 
- * Runs every minute to check for expired bookings.
+ * Holds are normally expired on time by BookingExpiryTimer; this sweep catches
+ * whatever the timer missed (failures, holds created by other instances, restarts).
  */
 @Component
 @RequiredArgsConstructor
@@ -26,49 +30,89 @@ public class BookingExpirationScheduler {
     
     private final BookingRepository bookingRepository;
     private final BookingService bookingService;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${booking.expiration.chunk-size:500}")
+    private int chunkSize;
+    
+    private Counter expirations;
+    
+    // Expirations per second of the last sweep that expired anything
+    private volatile double lastThroughput;
+    
+    @PostConstruct
+    void registerMetrics() {
+        expirations = Counter.builder("booking.expirations")
+            .tag("source", "sweep")
+            .register(meterRegistry);
+        Gauge.builder("booking.expiry.sweep.throughput", this, scheduler -> scheduler.lastThroughput)
+            .baseUnit("expirations/s")
+            .register(meterRegistry);
+    }
     
     /**
-     * Runs every minute to check and cancel expired pending bookings
-     * Cron: "0 * * * * *" = At second 0 of every minute
+     * Runs every minute by default (booking.expiration.scheduler.cron)
+     * Expired bookings are handled in chunks of booking.expiration.chunk-size, each committed on its own
      */
-    @Scheduled(cron = "0 * * * * *")
-    @Transactional
+    @Scheduled(cron = "${booking.expiration.scheduler.cron:0 * * * * *}")
     public void cancelExpiredBookings() {
-        log.info("Running booking expiration check...");
+        log.debug("Running booking expiration check...");
         
         LocalDateTime now = LocalDateTime.now();
+        long startedAt = System.nanoTime();
         
-        // Find all pending bookings that have expired
-        List<Booking> expiredBookings = bookingRepository
-            .findByStatusAndExpiresAtBefore(BookingStatus.PENDING, now);
+        int found = 0;
+        int cancelled = 0;
+        long afterId = 0;
+        while (true) {
+            // Walk the expired bookings by id so failed chunks are not picked up again in this run
+            List<Long> bookingIds = bookingRepository.findExpiredIds(now, afterId, Limit.of(chunkSize));
+            if (bookingIds.isEmpty()) {
+                break;
+            }
+            found += bookingIds.size();
+            cancelled += expireChunk(bookingIds);
+            afterId = bookingIds.get(bookingIds.size() - 1);
+            if (bookingIds.size() < chunkSize) {
+                break;
+            }
+        }
         
-        if (expiredBookings.isEmpty()) {
+        if (found == 0) {
             log.debug("No expired bookings found");
             return;
         }
         
-        log.info("Found {} expired bookings to cancel", expiredBookings.size());
+        double seconds = Math.max((System.nanoTime() - startedAt) / 1e9, 1e-3);
+        if (cancelled > 0) {
+            lastThroughput = cancelled / seconds;
+        }
+        log.info("Completed booking expiration check. Cancelled {} of {} expired bookings in {} ms ({} per second)",
+            cancelled, found, Math.round(seconds * 1000), Math.round(cancelled / seconds));
+    }
+    
+    private int expireChunk(List<Long> bookingIds) {
+        try {
+            int cancelled = bookingService.expireBookings(bookingIds);
+            expirations.increment(cancelled);
+            return cancelled;
+        } catch (Exception e) {
+            // Retry one by one so a single bad booking cannot hold back the rest of the chunk
+            log.warn("Error expiring chunk of {} bookings, retrying individually: {}",
+                bookingIds.size(), e.getMessage());
+        }
         
-        for (Booking booking : expiredBookings) {
+        int cancelled = 0;
+        for (Long bookingId : bookingIds) {
             try {
-                // Release seats
-                bookingService.releaseSeats(booking);
-                
-                // Update booking status
-                booking.setStatus(BookingStatus.CANCELLED);
-                bookingRepository.save(booking);
-                
-                log.info("Cancelled expired booking: {} (Reference: {})", 
-                    booking.getId(), booking.getBookingReference());
-                    
+                if (bookingService.expireBooking(bookingId)) {
+                    cancelled++;
+                    expirations.increment();
+                }
             } catch (Exception e) {
-                log.error("Error cancelling expired booking {}: {}", 
-                    booking.getId(), e.getMessage(), e);
+                log.error("Error cancelling expired booking {}: {}", bookingId, e.getMessage(), e);
             }
         }
-        
-        log.info("Completed booking expiration check. Cancelled {} bookings", 
-            expiredBookings.size());
+        return cancelled;
     }
 }
-
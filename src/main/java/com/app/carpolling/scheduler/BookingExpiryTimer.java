@@ -0,0 +1,138 @@
+package com.app.carpolling.scheduler;
+
+import com.app.carpolling.dto.BookingExpiryRow;
+import com.app.carpolling.event.BookingHeldEvent;
+import com.app.carpolling.repository.BookingRepository;
+import com.app.carpolling.service.BookingService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires pending bookings at their expiresAt instead of on the next minute tick.
+ *
+ * Every hold created by BookingService.createBooking is put on a delay queue once its
+ * transaction commits; a single worker thread takes each entry when it becomes due and
+ * expires the booking, so seats are back on sale within about a second. The queue is
+ * rebuilt from the pending bookings at startup. Entries of bookings that were confirmed or
+ * cancelled meanwhile are skipped by BookingService.expireBooking, and anything this timer
+ * misses (e.g. holds created by another instance) is picked up by BookingExpirationScheduler.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookingExpiryTimer {
+    
+    private final BookingRepository bookingRepository;
+    private final BookingService bookingService;
+    private final MeterRegistry meterRegistry;
+    
+    private final DelayQueue<Expiry> queue = new DelayQueue<>();
+    private volatile Thread worker;
+    private Counter expirations;
+    
+    @PostConstruct
+    void registerMetrics() {
+        expirations = Counter.builder("booking.expirations")
+            .tag("source", "timer")
+            .register(meterRegistry);
+        Gauge.builder("booking.expiry.timer.pending", queue, DelayQueue::size)
+            .register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            List<BookingExpiryRow> pending = bookingRepository.findPendingExpiries();
+            pending.forEach(row -> schedule(row.getBookingId(), row.getExpiresAt()));
+            log.info("Booking expiry timer loaded {} pending bookings", pending.size());
+        } catch (Exception e) {
+            // The safety-net sweep still expires these bookings
+            log.error("Error loading pending bookings into expiry timer: {}", e.getMessage(), e);
+        }
+        
+        worker = new Thread(this::run, "booking-expiry-timer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        Thread current = worker;
+        worker = null;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingHeld(BookingHeldEvent event) {
+        schedule(event.getBookingId(), event.getExpiresAt());
+    }
+    
+    public void schedule(Long bookingId, LocalDateTime expiresAt) {
+        // Round up to the next millisecond so the booking is never checked before it has expired
+        long dueAt = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + 1;
+        queue.put(new Expiry(bookingId, dueAt));
+    }
+    
+    public int size() {
+        return queue.size();
+    }
+    
+    private void run() {
+        while (worker != null) {
+            Expiry expiry;
+            try {
+                expiry = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            
+            try {
+                if (bookingService.expireBooking(expiry.bookingId)) {
+                    expirations.increment();
+                    log.info("Expired booking {} at end of hold", expiry.bookingId);
+                }
+            } catch (Exception e) {
+                log.error("Error expiring booking {}: {}", expiry.bookingId, e.getMessage(), e);
+            }
+        }
+    }
+    
+    private static final class Expiry implements Delayed {
+        private final Long bookingId;
+        private final long dueAt;
+        
+        private Expiry(Long bookingId, long dueAt) {
+            this.bookingId = bookingId;
+            this.dueAt = dueAt;
+        }
+        
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+        
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((Expiry) other).dueAt);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.app.carpolling.scheduler;
+
+import com.app.carpolling.index.BoardingPointGeoIndex;
+import com.app.carpolling.index.ConnectionIndex;
+import com.app.carpolling.index.LocationAutocompleteIndex;
+import com.app.carpolling.index.RouteSearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the in-memory search indexes at startup and rebuilds them periodically.
+ * 
+ * Route changes made through this instance are applied immediately via events;
+ * the periodic rebuild picks up changes made by other instances or directly in the database.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SearchIndexRefreshScheduler {
+    
+    private final RouteSearchIndex routeSearchIndex;
+    private final LocationAutocompleteIndex locationAutocompleteIndex;
+    private final BoardingPointGeoIndex boardingPointGeoIndex;
+    private final ConnectionIndex connectionIndex;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        refreshIndexes();
+    }
+    
+    /**
+     * Runs every 10 minutes by default (search.index.rebuild.cron)
+     */
+    @Scheduled(cron = "${search.index.rebuild.cron:0 */10 * * * *}")
+    public void refreshIndexes() {
+        try {
+            routeSearchIndex.rebuild();
+        } catch (Exception e) {
+            // Searches fall back to the database until the next successful rebuild
+            log.error("Error rebuilding route search index: {}", e.getMessage(), e);
+        }
+        try {
+            locationAutocompleteIndex.rebuild();
+        } catch (Exception e) {
+            // Autocomplete falls back to the database until the next successful rebuild
+            log.error("Error rebuilding location autocomplete index: {}", e.getMessage(), e);
+        }
+        try {
+            boardingPointGeoIndex.rebuild();
+        } catch (Exception e) {
+            // Nearby searches retry the build on their next call
+            log.error("Error rebuilding boarding point geo index: {}", e.getMessage(), e);
+        }
+        try {
+            connectionIndex.rebuild();
+        } catch (Exception e) {
+            // Connection searches retry the build on their next call
+            log.error("Error rebuilding connection index: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.app.carpolling.scheduler;
+
+import com.app.carpolling.inventory.SeatHoldStore;
+import com.app.carpolling.inventory.SeatInventory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Frees the seats of seat holds that ran out (every second by default, seat.hold.sweep-ms).
+ * Expired holds can no longer be extended or converted even before this runs.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SeatHoldExpiryScheduler {
+    
+    private final SeatInventory seatInventory;
+    private final SeatHoldStore seatHoldStore;
+    private final MeterRegistry meterRegistry;
+    
+    private Counter expirations;
+    
+    @PostConstruct
+    void registerMetrics() {
+        expirations = Counter.builder("seat.hold.expirations")
+            .register(meterRegistry);
+        Gauge.builder("seat.hold.active", seatHoldStore, SeatHoldStore::size)
+            .register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${seat.hold.sweep-ms:1000}")
+    public void expireHolds() {
+        try {
+            int expired = seatInventory.expireHolds(LocalDateTime.now());
+            if (expired > 0) {
+                expirations.increment(expired);
+                log.debug("Released {} expired seat holds", expired);
+            }
+        } catch (Exception e) {
+            log.error("Error releasing expired seat holds: {}", e.getMessage(), e);
+        }
+    }
+}
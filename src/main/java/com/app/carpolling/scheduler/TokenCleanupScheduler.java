@@ -3,12 +3,16 @@ package com.app.carpolling.scheduler;
 import com.app.carpolling.service.TokenBlacklistService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
  * Scheduled job to clean up expired tokens from the blacklist.
  * Runs daily at 2 AM to remove tokens that have naturally expired.
+ * 
+ * Also loads the in-memory blacklist filter at startup and keeps it in sync.
  */
 @Component
 @RequiredArgsConstructor
@@ -26,6 +30,31 @@ public class TokenCleanupScheduler {
         log.info("Starting token blacklist cleanup...");
         tokenBlacklistService.cleanupExpiredTokens();
         log.info("Token blacklist cleanup completed");
+        
+        // Drop the removed tokens from the filter as well
+        loadBlacklistFilter();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadBlacklistFilter() {
+        try {
+            tokenBlacklistService.rebuildFilter();
+        } catch (Exception e) {
+            // Blacklist checks keep going to the database until the filter is loaded
+            log.error("Error loading token blacklist filter: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Picks up tokens invalidated by other instances; every 5 seconds by default
+     */
+    @Scheduled(fixedDelayString = "${token.blacklist.filter.sync-interval-ms:5000}")
+    public void syncBlacklistFilter() {
+        try {
+            tokenBlacklistService.syncFilter();
+        } catch (Exception e) {
+            log.error("Error syncing token blacklist filter: {}", e.getMessage(), e);
+        }
     }
 }
 
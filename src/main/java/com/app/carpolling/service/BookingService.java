@@ -1,42 +1,92 @@
 package com.app.carpolling.service;
 
+import com.app.carpolling.cache.RoutePriceCache;
 import com.app.carpolling.dto.BookingRequest;
 import com.app.carpolling.dto.BookingResponse;
+import com.app.carpolling.dto.BookingSeatRow;
+import com.app.carpolling.dto.BookingTripRow;
 import com.app.carpolling.entity.*;
+import com.app.carpolling.event.BookingHeldEvent;
+import com.app.carpolling.event.TripSeatsChangedEvent;
 import com.app.carpolling.exception.BaseException;
 import com.app.carpolling.exception.ErrorCode;
+import com.app.carpolling.inventory.SeatInventory;
+import com.app.carpolling.inventory.SeatRelease;
+import com.app.carpolling.inventory.TripWriteExecutor;
+import com.app.carpolling.inventory.SegmentMask;
 import com.app.carpolling.repository.BookingRepository;
 import com.app.carpolling.repository.RoutePointRepository;
-import com.app.carpolling.repository.RoutePriceRepository;
-import com.app.carpolling.repository.TripSeatRepository;
-import com.app.carpolling.repository.TripRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class BookingService {
     
     private final BookingRepository bookingRepository;
-    private final TripSeatRepository tripSeatRepository;
     private final RoutePointRepository routePointRepository;
-    private final RoutePriceRepository routePriceRepository;
-    private final TripRepository tripRepository;
+    private final RoutePriceCache routePriceCache;
+    private final SeatInventory seatInventory;
     private final UserService userService;
     private final TripService tripService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final TripWriteExecutor tripWriteExecutor;
     
     @Value("${booking.expiration.minutes:15}")
     private int bookingExpirationMinutes;
     
-    @Transactional
+    @Value("${booking.conflict.max-attempts:3}")
+    private int maxConflictAttempts = 3;
+    
+    @Value("${booking.conflict.backoff-ms:20}")
+    private long conflictBackoffMillis = 20;
+    
+    /**
+     * Hold the requested seats in a new pending booking. Without seat numbers the inventory picks
+     * request.numberOfSeats free seats itself, adjacent ones where possible; with a holdId the
+     * booking takes over the seats of that seat hold.
+     *
+     * Runs in its own transaction, retried up to booking.conflict.max-attempts times when it
+     * loses a race on the trip or its seats (optimistic version conflict, lock timeout, deadlock).
+     * Seats already taken are reported at once. Inside a caller's transaction it runs once.
+     * In single-writer mode it runs on the trip's writer (see TripWriteExecutor).
+     */
     public Booking createBooking(BookingRequest request) {
+        return onTripWriter(request.getTripId(), status -> holdSeats(request));
+    }
+    
+    private Booking holdSeats(BookingRequest request) {
+        boolean seatsChosen = request.getSeatNumbers() != null && !request.getSeatNumbers().isEmpty();
+        if (request.getHoldId() == null && !seatsChosen && request.getNumberOfSeats() == null) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST, "Seat numbers or number of seats are required");
+        }
+        if (seatsChosen && request.getNumberOfSeats() != null
+            && request.getNumberOfSeats() != request.getSeatNumbers().size()) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST, "Number of seats does not match the seat numbers");
+        }
+        
         // Get dependencies
         User user = userService.getUserById(request.getUserId());
         Trip trip = tripService.getTripById(request.getTripId());
@@ -63,43 +113,34 @@ public class BookingService {
             throw new BaseException(ErrorCode.TRIP_NOT_AVAILABLE);
         }
         
-        // Validate seats availability
-        if (trip.getAvailableSeats() < request.getSeatNumbers().size()) {
-            throw new BaseException(ErrorCode.NOT_ENOUGH_SEATS);
-        }
-        
-        // Validate and reserve seats
-        for (String seatNumber : request.getSeatNumbers()) {
-            TripSeat seat = tripSeatRepository.findByTripIdAndSeatNumber(trip.getId(), seatNumber)
-                .orElseThrow(() -> new BaseException(ErrorCode.SEAT_NOT_FOUND, "Seat " + seatNumber + " not found"));
-            
-            if (!seat.getIsAvailable()) {
-                throw new BaseException(ErrorCode.SEAT_ALREADY_BOOKED, "Seat " + seatNumber + " is already booked");
-            }
-            
-            // Reserve seat
-            seat.setIsAvailable(false);
-            tripSeatRepository.save(seat);
-        }
+        // Segments of the route this passenger travels; seats only need to be free on those
+        long leg = SegmentMask.of(boardingPoint.getSequenceOrder(), dropPoint.getSequenceOrder());
         
         // Get fixed price from route price matrix
-        RoutePrice routePrice = routePriceRepository.findByRouteAndPoints(
+        double pricePerSeat = routePriceCache.findPrice(
             trip.getRoute().getId(),
             boardingPoint.getId(),
             dropPoint.getId()
         ).orElseThrow(() -> new BaseException(ErrorCode.PRICE_NOT_FOUND, 
             "Price not configured for this boarding-drop combination"));
         
+        // Reserve all seats atomically for the leg (trip_seats and trip counters)
+        List<String> seatNumbers;
+        if (request.getHoldId() != null) {
+            seatNumbers = seatInventory.reserveHeld(request.getHoldId(), user.getId(), trip.getId(), leg);
+        } else if (seatsChosen) {
+            seatNumbers = request.getSeatNumbers();
+            seatInventory.reserve(trip.getId(), seatNumbers, leg);
+        } else {
+            seatNumbers = seatInventory.allocate(trip.getId(), request.getNumberOfSeats(), leg);
+        }
+        eventPublisher.publishEvent(new TripSeatsChangedEvent(trip.getId(), routeId, trip.getDepartureTime()));
+        
         // Calculate distance (for reference)
         double distance = (dropPoint.getDistanceFromStart() - boardingPoint.getDistanceFromStart()) / 1000.0;
         
         // Calculate total amount
-        double pricePerSeat = routePrice.getPrice();
-        double totalAmount = pricePerSeat * request.getSeatNumbers().size();
-        
-        // Update trip available seats
-        trip.setAvailableSeats(trip.getAvailableSeats() - request.getSeatNumbers().size());
-        trip.setBookedSeats(trip.getBookedSeats() + request.getSeatNumbers().size());
+        double totalAmount = pricePerSeat * seatNumbers.size();
         
         // Create booking
         Booking booking = new Booking();
@@ -108,8 +149,8 @@ public class BookingService {
         booking.setTrip(trip);
         booking.setBoardingPoint(boardingPoint);
         booking.setDropPoint(dropPoint);
-        booking.setNumberOfSeats(request.getSeatNumbers().size());
-        booking.setSeatNumbers(request.getSeatNumbers());
+        booking.setNumberOfSeats(seatNumbers.size());
+        booking.setSeatNumbers(seatNumbers);
         booking.setTotalAmount(totalAmount);
         booking.setDistance(distance);
         booking.setStatus(BookingStatus.PENDING);
@@ -118,37 +159,180 @@ public class BookingService {
         // Set expiration time (configurable, default 15 minutes from now)
         booking.setExpiresAt(LocalDateTime.now().plusMinutes(bookingExpirationMinutes));
         
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        
+        // Let the expiry timer release the seats as soon as the hold runs out
+        eventPublisher.publishEvent(new BookingHeldEvent(saved.getId(), saved.getExpiresAt()));
+        
+        return saved;
+    }
+    
+    private <T> T onTripWriter(Long tripId, TransactionCallback<T> work) {
+        if (!tripWriteExecutor.isEnabled() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            // The caller's transaction is bound to its thread, so the write has to stay there
+            return inTransactionWithRetry(work);
+        }
+        return tripWriteExecutor.execute(tripId, () -> inTransactionWithRetry(work));
+    }
+    
+    private <T> T inTransactionWithRetry(TransactionCallback<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // A conflict has already doomed the caller's transaction; retrying inside it cannot help
+            return transactionTemplate.execute(work);
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(work);
+            } catch (OptimisticLockingFailureException | PessimisticLockingFailureException e) {
+                if (attempt >= maxConflictAttempts) {
+                    throw e;
+                }
+                log.debug("Booking transaction conflicted (attempt {} of {}): {}",
+                    attempt, maxConflictAttempts, e.getMessage());
+                conflictBackoff(attempt);
+            }
+        }
+    }
+    
+    private void conflictBackoff(int attempt) {
+        // Randomised so transactions that collided once do not collide again in lockstep
+        long delay = conflictBackoffMillis * attempt + ThreadLocalRandom.current().nextLong(conflictBackoffMillis + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BaseException(ErrorCode.INTERNAL_SERVER_ERROR, "Interrupted while retrying booking");
+        }
     }
     
     private String generateBookingReference() {
+        // Timestamp alone collides when several bookings are created in the same second
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        return "BK" + timestamp;
+        String suffix = UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+        return "BK" + timestamp + suffix;
     }
     
+    /**
+     * Confirm a pending booking whose hold has not run out. The status is changed with one
+     * conditional update, so a confirmation racing an expiry or cancellation cannot turn a
+     * booking whose seats were already released back into a confirmed one.
+     * @throws BaseException BOOKING_NOT_PENDING if the booking expired or was cancelled
+     */
     @Transactional
     public Booking confirmBooking(Long bookingId) {
+        if (bookingRepository.markConfirmed(bookingId, LocalDateTime.now()) == 0) {
+            BookingStatus status = bookingRepository.findStatus(bookingId)
+                .orElseThrow(() -> new BaseException(ErrorCode.BOOKING_NOT_FOUND));
+            if (status != BookingStatus.CONFIRMED) {
+                throw new BaseException(ErrorCode.BOOKING_NOT_PENDING);
+            }
+        }
+        
         Booking booking = bookingRepository.findById(bookingId)
             .orElseThrow(() -> new BaseException(ErrorCode.BOOKING_NOT_FOUND));
         
+        // Keep an entity already loaded by the caller in line with the update
         booking.setStatus(BookingStatus.CONFIRMED);
-        return bookingRepository.save(booking);
+        return booking;
     }
     
-    @Transactional
+    /**
+     * Cancel a booking and release its seats, retried on conflicts like createBooking
+     */
     public Booking cancelBooking(Long bookingId) {
+        Long tripId = tripWriteExecutor.isEnabled() ? tripIdsOf(List.of(bookingId)).get(bookingId) : null;
+        return onTripWriter(tripId, status -> cancelAndRelease(bookingId));
+    }
+    
+    private Booking cancelAndRelease(Long bookingId) {
+        // Claim the booking first so a concurrent expiry cannot release its seats a second time
+        if (bookingRepository.markCancelled(bookingId, LocalDateTime.now()) == 0) {
+            bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new BaseException(ErrorCode.BOOKING_NOT_FOUND));
+            throw new BaseException(ErrorCode.BOOKING_ALREADY_CANCELLED);
+        }
+        
         Booking booking = bookingRepository.findById(bookingId)
             .orElseThrow(() -> new BaseException(ErrorCode.BOOKING_NOT_FOUND));
         
-        if (booking.getStatus() == BookingStatus.CANCELLED) {
-            throw new BaseException(ErrorCode.BOOKING_ALREADY_CANCELLED);
-        }
+        // Keep an entity already loaded by the caller in line with the claim
+        booking.setStatus(BookingStatus.CANCELLED);
         
         // Release seats
         releaseSeats(booking);
         
-        booking.setStatus(BookingStatus.CANCELLED);
-        return bookingRepository.save(booking);
+        return booking;
+    }
+    
+    /**
+     * Cancel a pending booking whose hold has run out and release its seats
+     * @return false if the booking was confirmed, cancelled or extended in the meantime
+     */
+    public boolean expireBooking(Long bookingId) {
+        return expireBookings(List.of(bookingId)) == 1;
+    }
+    
+    /**
+     * Expire a chunk of bookings with a few set-based statements: lock the ones still pending and
+     * expired, mark them cancelled, then release all their seats together
+     * @return number of bookings expired; the others were confirmed or cancelled meanwhile
+     *
+     * In single-writer mode the chunk is split by trip and each part expires in its own
+     * transaction on its trip's writer.
+     */
+    public int expireBookings(List<Long> bookingIds) {
+        if (!tripWriteExecutor.isEnabled() || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(status -> expireClaimed(bookingIds));
+        }
+        
+        Map<Long, List<Long>> bookingsByTrip = new LinkedHashMap<>();
+        tripIdsOf(bookingIds).forEach((bookingId, tripId) ->
+            bookingsByTrip.computeIfAbsent(tripId, id -> new ArrayList<>()).add(bookingId));
+        Map<Long, Supplier<Integer>> writes = new LinkedHashMap<>();
+        bookingsByTrip.forEach((tripId, tripBookings) ->
+            writes.put(tripId, () -> transactionTemplate.execute(status -> expireClaimed(tripBookings))));
+        return tripWriteExecutor.executeAll(writes).stream().mapToInt(Integer::intValue).sum();
+    }
+    
+    private Map<Long, Long> tripIdsOf(List<Long> bookingIds) {
+        Map<Long, Long> tripIds = new LinkedHashMap<>();
+        for (BookingTripRow row : bookingRepository.findTripIds(bookingIds)) {
+            tripIds.put(row.getBookingId(), row.getTripId());
+        }
+        return tripIds;
+    }
+    
+    private int expireClaimed(List<Long> bookingIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> claimed = bookingRepository.lockExpired(bookingIds, now);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        if (bookingRepository.markAllCancelled(claimed, now) != claimed.size()) {
+            // The claimed rows are locked, so this means the lock did not hold; releasing their
+            // seats could free seats of a confirmed booking, so leave the chunk to the next sweep
+            throw new IllegalStateException("Expired bookings changed while locked: " + claimed);
+        }
+        
+        Map<Long, List<BookingSeatRow>> seatsByBooking = bookingRepository.findSeatRows(claimed).stream()
+            .collect(Collectors.groupingBy(BookingSeatRow::getBookingId, LinkedHashMap::new, Collectors.toList()));
+        
+        List<SeatRelease> releases = new ArrayList<>();
+        Map<Long, TripSeatsChangedEvent> changedTrips = new LinkedHashMap<>();
+        for (List<BookingSeatRow> seats : seatsByBooking.values()) {
+            BookingSeatRow first = seats.get(0);
+            releases.add(new SeatRelease(
+                first.getTripId(),
+                seats.stream().map(BookingSeatRow::getSeatNumber).collect(Collectors.toList()),
+                SegmentMask.of(first.getBoardingSequenceOrder(), first.getDropSequenceOrder())
+            ));
+            changedTrips.putIfAbsent(first.getTripId(),
+                new TripSeatsChangedEvent(first.getTripId(), first.getRouteId(), first.getDepartureTime(), true));
+        }
+        seatInventory.releaseAll(releases);
+        changedTrips.values().forEach(eventPublisher::publishEvent);
+        
+        return claimed.size();
     }
     
     /**
@@ -157,21 +341,14 @@ public class BookingService {
      */
     @Transactional
     public void releaseSeats(Booking booking) {
-        // Release individual seats
-        for (String seatNumber : booking.getSeatNumbers()) {
-            TripSeat seat = tripSeatRepository.findByTripIdAndSeatNumber(
-                booking.getTrip().getId(), seatNumber
-            ).orElseThrow(() -> new BaseException(ErrorCode.SEAT_NOT_FOUND));
-            
-            seat.setIsAvailable(true);
-            tripSeatRepository.save(seat);
-        }
-        
-        // Update trip available seats count
-        Trip trip = booking.getTrip();
-        trip.setAvailableSeats(trip.getAvailableSeats() + booking.getNumberOfSeats());
-        trip.setBookedSeats(trip.getBookedSeats() - booking.getNumberOfSeats());
-        tripRepository.save(trip);
+        // Release the booking's leg on its seats and update trip seat counts
+        long leg = SegmentMask.of(
+            booking.getBoardingPoint().getSequenceOrder(),
+            booking.getDropPoint().getSequenceOrder()
+        );
+        seatInventory.release(booking.getTrip().getId(), booking.getSeatNumbers(), leg);
+        eventPublisher.publishEvent(new TripSeatsChangedEvent(
+            booking.getTrip().getId(), booking.getTrip().getRoute().getId(), booking.getTrip().getDepartureTime(), true));
     }
     
     @Transactional(readOnly = true)
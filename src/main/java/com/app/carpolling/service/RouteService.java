@@ -5,28 +5,47 @@ import com.app.carpolling.entity.Driver;
 import com.app.carpolling.entity.Route;
 import com.app.carpolling.entity.RoutePoint;
 import com.app.carpolling.entity.RoutePrice;
+import com.app.carpolling.event.RouteChangedEvent;
 import com.app.carpolling.exception.BaseException;
 import com.app.carpolling.exception.ErrorCode;
+import com.app.carpolling.index.LocationAutocompleteIndex;
+import com.app.carpolling.index.RouteSearchIndex;
+import com.app.carpolling.index.RouteStop;
 import com.app.carpolling.repository.RoutePointRepository;
 import com.app.carpolling.repository.RoutePriceRepository;
 import com.app.carpolling.repository.RouteRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class RouteService {
     
     private final RouteRepository routeRepository;
     private final RoutePointRepository routePointRepository;
     private final RoutePriceRepository routePriceRepository;
     private final DriverService driverService;
+    private final RouteSearchIndex routeSearchIndex;
+    private final LocationAutocompleteIndex locationIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${search.autocomplete.max-results:20}")
+    private int maxAutocompleteResults = 20;
+    
+    @Value("${search.fuzzy.max-distance:3}")
+    private int maxFuzzyDistance = 3;
     
     @Transactional
     public Route createRoute(RouteCreationRequest request) {
@@ -81,6 +100,8 @@ public class RouteService {
         routePointRepository.saveAll(routePoints);
         savedRoute.setRoutePoints(routePoints);
         
+        publishRouteChanged(savedRoute, routePoints);
+        
         return savedRoute;
     }
     
@@ -144,33 +165,76 @@ public class RouteService {
             .orElseThrow(() -> new BaseException(ErrorCode.ROUTE_NOT_FOUND));
     }
     
+    /**
+     * Find active routes that visit the boarding city before the drop city.
+     * Served from the in-memory index; falls back to the database until the index is built.
+     */
     @Transactional(readOnly = true)
-    public List<Route> findRoutesByBoardingAndDropPoint(String boardingPoint, String dropPoint) {
-        return routeRepository.findRoutesByBoardingAndDropPoint(boardingPoint, dropPoint);
+    public List<Long> findRouteIdsByBoardingAndDropPoint(String boardingPoint, String dropPoint) {
+        if (routeSearchIndex.isReady()) {
+            return routeSearchIndex.findRouteIds(boardingPoint, dropPoint);
+        }
+        return routeRepository.findRoutesByBoardingAndDropPoint(boardingPoint, dropPoint)
+            .stream()
+            .map(Route::getId)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Canonical spelling of a city typed by a user; typos within search.fuzzy.max-distance edits
+     * are corrected when they point at exactly one city. Returns the input if nothing matches.
+     */
+    public String resolveCity(String city) {
+        if (city == null || !locationIndex.isReady()) {
+            return city;
+        }
+        String resolved = locationIndex.resolveCity(city.trim(), maxFuzzyDistance);
+        if (resolved == null) {
+            return city;
+        }
+        if (!resolved.equals(city)) {
+            log.debug("Resolved city '{}' to '{}'", city, resolved);
+        }
+        return resolved;
     }
     
     @Transactional(readOnly = true)
     public List<String> getAllCities() {
+        if (locationIndex.isReady()) {
+            return locationIndex.getCities(false, false);
+        }
         return routePointRepository.findAllDistinctCities();
     }
     
     @Transactional(readOnly = true)
     public List<String> getBoardingCities() {
+        if (locationIndex.isReady()) {
+            return locationIndex.getCities(true, false);
+        }
         return routePointRepository.findAllDistinctBoardingCities();
     }
     
     @Transactional(readOnly = true)
     public List<String> getDropCities() {
+        if (locationIndex.isReady()) {
+            return locationIndex.getCities(false, true);
+        }
         return routePointRepository.findAllDistinctDropCities();
     }
     
     @Transactional(readOnly = true)
     public List<String> getBoardingSubLocationsByCity(String city) {
+        if (locationIndex.isReady()) {
+            return locationIndex.getSubLocations(city, true);
+        }
         return routePointRepository.findBoardingSubLocationsByCity(city);
     }
     
     @Transactional(readOnly = true)
     public List<String> getDropSubLocationsByCity(String city) {
+        if (locationIndex.isReady()) {
+            return locationIndex.getSubLocations(city, false);
+        }
         return routePointRepository.findDropSubLocationsByCity(city);
     }
     
@@ -184,28 +248,67 @@ public class RouteService {
         return routePointRepository.findAllDropPoints();
     }
     
+    /**
+     * Autocomplete: boarding points whose city or sub-location has a word starting with the term,
+     * at most search.autocomplete.max-results of them
+     */
     @Transactional(readOnly = true)
     public List<RoutePoint> searchBoardingPoints(String searchTerm) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return routePointRepository.findAllBoardingPoints();
         }
-        return routePointRepository.searchBoardingPoints(searchTerm.trim());
+        if (locationIndex.isReady()) {
+            return findPointsInOrder(locationIndex.searchPoints(searchTerm, true, false, maxAutocompleteResults));
+        }
+        return routePointRepository.searchBoardingPoints(fallbackPrefix(searchTerm), Limit.of(maxAutocompleteResults));
     }
     
+    /**
+     * Autocomplete: drop points whose city or sub-location has a word starting with the term,
+     * at most search.autocomplete.max-results of them
+     */
     @Transactional(readOnly = true)
     public List<RoutePoint> searchDropPoints(String searchTerm) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
             return routePointRepository.findAllDropPoints();
         }
-        return routePointRepository.searchDropPoints(searchTerm.trim());
+        if (locationIndex.isReady()) {
+            return findPointsInOrder(locationIndex.searchPoints(searchTerm, false, true, maxAutocompleteResults));
+        }
+        return routePointRepository.searchDropPoints(fallbackPrefix(searchTerm), Limit.of(maxAutocompleteResults));
     }
     
+    /**
+     * Autocomplete: cities having a word that starts with the term, at most
+     * search.autocomplete.max-results of them
+     */
     @Transactional(readOnly = true)
     public List<String> searchCities(String searchTerm) {
         if (searchTerm == null || searchTerm.trim().isEmpty()) {
-            return routePointRepository.findAllDistinctCities();
+            return getAllCities();
+        }
+        if (locationIndex.isReady()) {
+            return locationIndex.searchCities(searchTerm, false, false, maxAutocompleteResults);
+        }
+        return routePointRepository.searchCities(fallbackPrefix(searchTerm), Limit.of(maxAutocompleteResults));
+    }
+    
+    // Same word-prefix match and cap as the index while it is not built; only accents are not folded
+    private String fallbackPrefix(String searchTerm) {
+        return searchTerm.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    // Primary-key lookup of the points found by the index, kept in the index's order
+    private List<RoutePoint> findPointsInOrder(List<Long> pointIds) {
+        if (pointIds.isEmpty()) {
+            return new ArrayList<>();
         }
-        return routePointRepository.searchCities(searchTerm.trim());
+        Map<Long, RoutePoint> byId = routePointRepository.findAllById(pointIds).stream()
+            .collect(Collectors.toMap(RoutePoint::getId, rp -> rp));
+        return pointIds.stream()
+            .map(byId::get)
+            .filter(java.util.Objects::nonNull)
+            .collect(Collectors.toList());
     }
     
     @Transactional(readOnly = true)
@@ -325,6 +428,15 @@ public class RouteService {
         
         // Create new price matrix
         createPriceMatrix(route, routePoints, request.getPrices());
+        
+        publishRouteChanged(route, routePoints);
+    }
+    
+    private void publishRouteChanged(Route route, List<RoutePoint> routePoints) {
+        List<RouteStop> stops = routePoints.stream()
+            .map(rp -> new RouteStop(route.getId(), rp.getCity(), rp.getSequenceOrder()))
+            .collect(Collectors.toList());
+        eventPublisher.publishEvent(new RouteChangedEvent(route.getId(), route.getIsActive(), stops));
     }
 }
 
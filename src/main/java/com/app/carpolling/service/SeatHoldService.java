@@ -0,0 +1,154 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.dto.BookingRequest;
+import com.app.carpolling.dto.SeatHoldConvertRequest;
+import com.app.carpolling.dto.SeatHoldRequest;
+import com.app.carpolling.dto.SeatHoldResponse;
+import com.app.carpolling.entity.Booking;
+import com.app.carpolling.entity.RoutePoint;
+import com.app.carpolling.entity.Trip;
+import com.app.carpolling.entity.TripStatus;
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.exception.ErrorCode;
+import com.app.carpolling.inventory.SeatHold;
+import com.app.carpolling.inventory.SeatHoldStore;
+import com.app.carpolling.inventory.SeatInventory;
+import com.app.carpolling.inventory.SegmentMask;
+import com.app.carpolling.repository.RoutePointRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Short seat holds for a checkout: hold seats for a few seconds or minutes, extend the hold,
+ * turn it into a pending booking, or release it.
+ *
+ * A hold lives only in memory (SeatHoldStore) and writes nothing to the database, so an
+ * abandoned checkout leaves no booking behind; its seats are freed by SeatHoldExpiryScheduler
+ * once it runs out. Bookings and seat availability treat held seats as taken.
+ *
+ * Since holds leave no trace in the database, one user may hold at most
+ * seat.hold.max-seats-per-user seats at a time over all trips (per instance), so a client cannot
+ * keep a trip's seats from everyone else by holding and extending them.
+ */
+@Service
+@RequiredArgsConstructor
+public class SeatHoldService {
+    
+    private final SeatInventory seatInventory;
+    private final SeatHoldStore seatHoldStore;
+    private final RoutePointRepository routePointRepository;
+    private final UserService userService;
+    private final TripService tripService;
+    private final BookingService bookingService;
+    
+    @Value("${seat.hold.ttl-seconds:120}")
+    private int ttlSeconds = 120;
+    
+    @Value("${seat.hold.max-ttl-seconds:600}")
+    private int maxTtlSeconds = 600;
+    
+    @Value("${seat.hold.max-lifetime-seconds:1800}")
+    private int maxLifetimeSeconds = 1800;
+    
+    @Value("${seat.hold.max-holds:100000}")
+    private int maxHolds = 100000;
+    
+    @Value("${seat.hold.max-seats-per-user:6}")
+    private int maxSeatsPerUser = 6;
+    
+    /**
+     * Hold the requested seats, or any request.numberOfSeats seats, on the requested leg
+     * @throws BaseException SEAT_ALREADY_BOOKED or NOT_ENOUGH_SEATS if the seats are taken or held,
+     * TOO_MANY_REQUESTS if the user would hold more than seat.hold.max-seats-per-user seats
+     */
+    public SeatHoldResponse hold(SeatHoldRequest request) {
+        boolean seatsChosen = request.getSeatNumbers() != null && !request.getSeatNumbers().isEmpty();
+        if (!seatsChosen && request.getNumberOfSeats() == null) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST, "Seat numbers or number of seats are required");
+        }
+        if (seatHoldStore.size() >= maxHolds) {
+            throw new BaseException(ErrorCode.TOO_MANY_REQUESTS, "Too many seats on hold, try again shortly");
+        }
+        
+        Long userId = userService.getUserById(request.getUserId()).getId();
+        Trip trip = tripService.getTripById(request.getTripId());
+        if (trip.getStatus() != TripStatus.SCHEDULED) {
+            throw new BaseException(ErrorCode.TRIP_NOT_AVAILABLE);
+        }
+        Long routeId = trip.getRoute().getId();
+        RoutePoint boardingPoint = routePointRepository.findBoardingPoint(
+            routeId, request.getBoardingCity(), request.getBoardingSubLocation()
+        ).orElseThrow(() -> new BaseException(ErrorCode.BOARDING_POINT_NOT_FOUND,
+            "Boarding point not found: " + request.getBoardingCity() + " - " + request.getBoardingSubLocation()));
+        RoutePoint dropPoint = routePointRepository.findDropPoint(
+            routeId, request.getDropCity(), request.getDropSubLocation()
+        ).orElseThrow(() -> new BaseException(ErrorCode.DROP_POINT_NOT_FOUND,
+            "Drop point not found: " + request.getDropCity() + " - " + request.getDropSubLocation()));
+        long leg = SegmentMask.of(boardingPoint.getSequenceOrder(), dropPoint.getSequenceOrder());
+        
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusSeconds(holdSeconds(request.getHoldSeconds()));
+        int count = seatsChosen ? request.getSeatNumbers().size() : request.getNumberOfSeats();
+        SeatHold hold = seatInventory.hold(trip.getId(), request.getSeatNumbers(), count, leg,
+            seatNumbers -> new SeatHold(UUID.randomUUID().toString(), trip.getId(), userId, seatNumbers, leg,
+                request.getBoardingCity(), request.getBoardingSubLocation(),
+                request.getDropCity(), request.getDropSubLocation(), now, expiresAt),
+            maxSeatsPerUser);
+        return toResponse(hold);
+    }
+    
+    /**
+     * Keep a hold for holdSeconds from now, up to seat.hold.max-lifetime-seconds after it was made
+     */
+    public SeatHoldResponse extend(String holdId, Long userId, Integer holdSeconds) {
+        SeatHold hold = seatHoldStore.get(holdId, LocalDateTime.now());
+        if (hold == null) {
+            throw new BaseException(ErrorCode.SEAT_HOLD_NOT_FOUND);
+        }
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(holdSeconds(holdSeconds));
+        LocalDateTime latest = hold.getCreatedAt().plusSeconds(maxLifetimeSeconds);
+        SeatHold extended = seatInventory.extendHold(holdId, userId, expiresAt.isAfter(latest) ? latest : expiresAt);
+        if (extended == null) {
+            throw new BaseException(ErrorCode.SEAT_HOLD_NOT_FOUND);
+        }
+        return toResponse(extended);
+    }
+    
+    /**
+     * Turn a hold into a pending booking of its seats; the hold ends once the booking is created
+     */
+    public Booking convert(String holdId, SeatHoldConvertRequest request) {
+        SeatHold hold = seatHoldStore.get(holdId, LocalDateTime.now());
+        if (hold == null || !hold.getUserId().equals(request.getUserId())) {
+            throw new BaseException(ErrorCode.SEAT_HOLD_NOT_FOUND);
+        }
+        BookingRequest booking = BookingRequest.builder()
+            .userId(request.getUserId())
+            .tripId(hold.getTripId())
+            .boardingCity(hold.getBoardingCity()).boardingSubLocation(hold.getBoardingSubLocation())
+            .dropCity(hold.getDropCity()).dropSubLocation(hold.getDropSubLocation())
+            .passengerNames(request.getPassengerNames()).passengerContacts(request.getPassengerContacts())
+            .holdId(holdId)
+            .build();
+        return bookingService.createBooking(booking);
+    }
+    
+    public void release(String holdId, Long userId) {
+        if (!seatInventory.releaseHold(holdId, userId)) {
+            throw new BaseException(ErrorCode.SEAT_HOLD_NOT_FOUND);
+        }
+    }
+    
+    private int holdSeconds(Integer requested) {
+        return Math.min(requested != null ? requested : ttlSeconds, maxTtlSeconds);
+    }
+    
+    private SeatHoldResponse toResponse(SeatHold hold) {
+        return new SeatHoldResponse(hold.getId(), hold.getTripId(), hold.getSeatNumbers(),
+            hold.getBoardingCity(), hold.getDropCity(), hold.getExpiresAt());
+    }
+}
@@ -1,22 +1,108 @@
 package com.app.carpolling.service;
 
+import com.app.carpolling.cache.VerifiedTokenCache;
 import com.app.carpolling.entity.InvalidatedToken;
 import com.app.carpolling.repository.InvalidatedTokenRepository;
+import com.app.carpolling.utils.BloomFilter;
 import com.app.carpolling.utils.JWTUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
+/**
+ * Token blacklist backed by invalidated_tokens.
+ *
+ * A Bloom filter of all invalidated tokens sits in front of the table, so the common case of a
+ * token that was never revoked is answered without a database query; only probable hits are
+ * checked against the table. The filter is loaded at startup, updated by invalidateToken and
+ * synced every few seconds with tokens invalidated by other instances, and rebuilt after the
+ * daily cleanup (Bloom filters cannot remove entries).
+ *
+ * Metrics: token.blacklist.filter.fpp, token.blacklist.filter.memory
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TokenBlacklistService {
     
+    // Re-read tokens invalidated slightly before the last sync to allow for clock differences
+    private static final long SYNC_OVERLAP_SECONDS = 60;
+    
     private final InvalidatedTokenRepository invalidatedTokenRepository;
     private final JWTUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${token.blacklist.filter.expected-tokens:100000}")
+    private long expectedTokens;
+    
+    @Value("${token.blacklist.filter.fpp:0.001}")
+    private double falsePositiveProbability;
+    
+    // Null until loaded; every check goes to the database meanwhile
+    private volatile BloomFilter revokedTokens;
+    private volatile LocalDateTime syncedUntil;
+    
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("token.blacklist.filter.fpp", this, service -> service.filterFalsePositiveRate())
+            .description("Estimated false-positive rate of the blacklist Bloom filter")
+            .register(meterRegistry);
+        Gauge.builder("token.blacklist.filter.memory", this, service -> service.filterMemoryBytes())
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Load the filter from every invalidated token
+     */
+    public void rebuildFilter() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<String> tokens = invalidatedTokenRepository.findAllTokens();
+        
+        // Leave room to grow before the next rebuild
+        BloomFilter filter = new BloomFilter(Math.max(expectedTokens, tokens.size() * 2L), falsePositiveProbability);
+        tokens.forEach(filter::put);
+        
+        revokedTokens = filter;
+        syncedUntil = startedAt;
+        
+        // Pick up tokens invalidated while the load was running
+        syncFilter();
+        log.info("Token blacklist filter loaded with {} tokens ({} KB)", tokens.size(), filter.memoryBytes() / 1024);
+    }
+    
+    /**
+     * Add tokens invalidated since the last sync, including those invalidated by other instances
+     */
+    public void syncFilter() {
+        BloomFilter filter = revokedTokens;
+        if (filter == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        invalidatedTokenRepository.findTokensInvalidatedSince(syncedUntil.minusSeconds(SYNC_OVERLAP_SECONDS))
+            .forEach(filter::put);
+        syncedUntil = now;
+    }
+    
+    public double filterFalsePositiveRate() {
+        BloomFilter filter = revokedTokens;
+        return filter != null ? filter.expectedFalsePositiveRate() : 0;
+    }
+    
+    public long filterMemoryBytes() {
+        BloomFilter filter = revokedTokens;
+        return filter != null ? filter.memoryBytes() : 0;
+    }
     
     /**
      * Add a token to the blacklist
@@ -46,6 +132,15 @@ public class TokenBlacklistService {
             
             invalidatedTokenRepository.save(invalidatedToken);
             
+            // Stop serving the token from the verified-claims cache
+            verifiedTokenCache.evict(token);
+            
+            // Adding before commit is safe: a false hit only means one extra table lookup
+            BloomFilter filter = revokedTokens;
+            if (filter != null) {
+                filter.put(token);
+            }
+            
             log.info("Token invalidated for user: {}", phoneNumber);
             
         } catch (Exception e) {
@@ -59,12 +154,17 @@ public class TokenBlacklistService {
      * @param token JWT token to check
      * @return true if token is blacklisted, false otherwise
      */
-    @Transactional(readOnly = true)
     public boolean isTokenBlacklisted(String token) {
         if (token == null || token.trim().isEmpty()) {
             return false;
         }
         
+        // Definitely not revoked: no transaction, no query
+        BloomFilter filter = revokedTokens;
+        if (filter != null && !filter.mightContain(token)) {
+            return false;
+        }
+        
         boolean isBlacklisted = invalidatedTokenRepository.existsByToken(token);
         
         if (isBlacklisted) {
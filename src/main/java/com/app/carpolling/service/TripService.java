@@ -1,37 +1,127 @@
 package com.app.carpolling.service;
 
+import com.app.carpolling.cache.RoutePriceCache;
+import com.app.carpolling.cache.TripSearchCache;
+import com.app.carpolling.dto.BatchTripSearchResult;
+import com.app.carpolling.dto.ConnectionItinerary;
+import com.app.carpolling.dto.ConnectionSearchRequest;
+import com.app.carpolling.dto.ConnectionSearchResponse;
+import com.app.carpolling.dto.NearbyBoardingPointResponse;
+import com.app.carpolling.dto.PriceCalendarDay;
+import com.app.carpolling.dto.PriceCalendarTripRow;
 import com.app.carpolling.dto.SeatAvailabilityResponse;
+import com.app.carpolling.dto.SeatOccupancyRow;
 import com.app.carpolling.dto.TripCreationRequest;
+import com.app.carpolling.dto.TripHeaderRow;
+import com.app.carpolling.dto.TripSearchPage;
+import com.app.carpolling.dto.TripSearchPageRequest;
 import com.app.carpolling.dto.TripSearchRequest;
 import com.app.carpolling.dto.TripSearchResponse;
+import com.app.carpolling.dto.TripSearchRow;
+import com.app.carpolling.dto.UpcomingTripRow;
 import com.app.carpolling.entity.*;
+import com.app.carpolling.event.TripSeatsChangedEvent;
 import com.app.carpolling.exception.BaseException;
 import com.app.carpolling.exception.ErrorCode;
+import com.app.carpolling.index.BoardingPointGeoIndex;
+import com.app.carpolling.index.ConnectionIndex;
+import com.app.carpolling.index.GeoPoint;
+import com.app.carpolling.index.TimetableStop;
+import com.app.carpolling.inventory.SeatHoldStore;
+import com.app.carpolling.inventory.SeatInventory;
+import com.app.carpolling.inventory.SegmentMask;
 import com.app.carpolling.repository.RoutePointRepository;
-import com.app.carpolling.repository.RoutePriceRepository;
 import com.app.carpolling.repository.TripRepository;
 import com.app.carpolling.repository.TripSeatRepository;
+import com.app.carpolling.utils.SearchCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class TripService {
     
+    private static final Comparator<TripSearchResponse> EARLIEST_FIRST = Comparator
+        .comparing(TripSearchResponse::getDepartureTime)
+        .thenComparing(TripSearchResponse::getTripId);
+    
     private final TripRepository tripRepository;
     private final TripSeatRepository tripSeatRepository;
     private final RoutePointRepository routePointRepository;
-    private final RoutePriceRepository routePriceRepository;
+    private final RoutePriceCache routePriceCache;
     private final RouteService routeService;
     private final VehicleService vehicleService;
     private final DriverService driverService;
+    private final TripSearchCache tripSearchCache;
+    private final BoardingPointGeoIndex boardingPointGeoIndex;
+    private final ConnectionIndex connectionIndex;
+    private final SeatHoldStore seatHoldStore;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${search.results.max-size:100}")
+    private int maxSearchResults = 100;
+    
+    @Value("${search.batch.max-size:500}")
+    private int maxBatchSize = 500;
+    
+    @Value("${search.page.max-size:50}")
+    private int maxPageSize = 50;
+    
+    @Value("${search.page.max-days:30}")
+    private int maxSearchDays = 30;
+    
+    @Value("${search.page.max-rounds:5}")
+    private int maxPageRounds = 5;
+    
+    @Value("${search.calendar.max-days:31}")
+    private int maxCalendarDays = 31;
+    
+    @Value("${search.connections.min-layover-minutes:15}")
+    private int defaultMinLayoverMinutes = 15;
+    
+    @Value("${search.connections.max-layover-minutes:240}")
+    private int defaultMaxLayoverMinutes = 240;
+    
+    @Value("${search.connections.max-layover-limit-minutes:720}")
+    private int maxLayoverLimitMinutes = 720;
+    
+    @Value("${search.connections.max-results:20}")
+    private int maxConnectionResults = 20;
+    
+    @Value("${search.connections.budget-ms:200}")
+    private long connectionBudgetMillis = 200;
+    
+    @Value("${geo.nearby.max-radius-meters:50000}")
+    private int maxNearbyRadiusMeters = 50000;
+    
+    @Value("${geo.nearby.max-results:50}")
+    private int maxNearbyResults = 50;
+    
+    @Value("${geo.nearby.trip-horizon-hours:24}")
+    private int nearbyTripHorizonHours = 24;
+    
+    @Value("${geo.nearby.trips-per-point:5}")
+    private int nearbyTripsPerPoint = 5;
     
     @Transactional
     public Trip createTrip(TripCreationRequest request) {
@@ -66,6 +156,9 @@ public class TripService {
         // Create seats for the trip
         createSeatsForTrip(savedTrip, vehicle);
         
+        eventPublisher.publishEvent(new TripSeatsChangedEvent(
+            savedTrip.getId(), route.getId(), savedTrip.getDepartureTime()));
+        
         return savedTrip;
     }
     
@@ -78,6 +171,7 @@ public class TripService {
         driverSeat.setSeatNumber("D1");
         driverSeat.setIsAvailable(false);
         driverSeat.setIsDriverSeat(true);
+        driverSeat.setOccupiedSegments(0L);
         seats.add(driverSeat);
         
         // Create passenger seats
@@ -87,124 +181,802 @@ public class TripService {
             seat.setSeatNumber("S" + i);
             seat.setIsAvailable(true);
             seat.setIsDriverSeat(false);
+            seat.setOccupiedSegments(0L);
             seats.add(seat);
         }
         
         tripSeatRepository.saveAll(seats);
     }
     
-    @Transactional(readOnly = true)
+    /**
+     * Trips of a city pair on a date with at least requiredSeats free on the leg.
+     *
+     * Results come from TripSearchCache, which shares one computation between identical searches
+     * and keeps it until a booking, release, new trip or price change affects it. It holds every
+     * trip with a free seat; requiredSeats, the filters (AC, vehicle type, driver rating,
+     * departure window) and the ranking are applied per caller, and only the top `limit` trips
+     * are returned. Not transactional, so callers waiting for a shared result do not hold a
+     * database connection.
+     */
     public List<TripSearchResponse> searchTrips(TripSearchRequest request) {
-        // Find routes that have both boarding and drop points
-        List<Route> routes = routeService.findRoutesByBoardingAndDropPoint(
-            request.getBoardingPoint(),
-            request.getDropPoint()
+        // Correct typos in city names so they do not end in an empty result
+        String boardingCity = routeService.resolveCity(request.getBoardingPoint());
+        String dropCity = routeService.resolveCity(request.getDropPoint());
+        
+        List<TripSearchResponse> trips = tripSearchCache.get(
+            boardingCity,
+            dropCity,
+            request.getTravelDate(),
+            () -> findTrips(boardingCity, dropCity, request.getTravelDate())
         );
         
-        if (routes.isEmpty()) {
-            return new ArrayList<>();
+        return rankAndFilter(trips, request);
+    }
+    
+    /**
+     * Several day searches in one call, for clients polling many corridors.
+     *
+     * Routes of every corridor come from the in-memory route index. Trips are loaded with one
+     * query per distinct travel date, covering only that day and the routes searched on it, so
+     * searches spread over weeks never scan the days between them. Stops and seat occupancy of
+     * all those trips are then loaded with one query each, and prices come from RoutePriceCache. Each search gets the same
+     * filtering and ranking as searchTrips. A failing search reports its error in its own result
+     * without failing the others.
+     */
+    @Transactional(readOnly = true)
+    public List<BatchTripSearchResult> searchTripsBatch(List<TripSearchRequest> requests) {
+        if (requests.size() > maxBatchSize) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST,
+                "At most " + maxBatchSize + " searches are allowed per batch");
         }
         
-        List<Long> routeIds = routes.stream()
-            .map(Route::getId)
-            .collect(Collectors.toList());
+        String[] boardingCities = new String[requests.size()];
+        String[] dropCities = new String[requests.size()];
+        List<List<Long>> routeIdsByRequest = new ArrayList<>(requests.size());
+        Map<LocalDate, Set<Long>> routeIdsByDate = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TripSearchRequest request = requests.get(i);
+            boardingCities[i] = routeService.resolveCity(request.getBoardingPoint());
+            dropCities[i] = routeService.resolveCity(request.getDropPoint());
+            List<Long> routeIds = routeService.findRouteIdsByBoardingAndDropPoint(boardingCities[i], dropCities[i]);
+            routeIdsByRequest.add(routeIds);
+            if (!routeIds.isEmpty()) {
+                routeIdsByDate.computeIfAbsent(request.getTravelDate(), date -> new HashSet<>()).addAll(routeIds);
+            }
+        }
         
-        // Find available trips for these routes on the specified date
-        LocalDateTime startOfDay = request.getTravelDate().atStartOfDay();
-        LocalDateTime endOfDay = request.getTravelDate().atTime(LocalTime.MAX);
+        Map<Long, List<TripHeaderRow>> tripsByRoute = Map.of();
+        Map<Long, List<TimetableStop>> stopsByRoute = Map.of();
+        Map<Long, List<SeatOccupancyRow>> seatsByTrip = Map.of();
+        if (!routeIdsByDate.isEmpty()) {
+            // One range on the (route_id, status, departureTime) index per day searched
+            List<TripHeaderRow> trips = new ArrayList<>();
+            for (Map.Entry<LocalDate, Set<Long>> day : routeIdsByDate.entrySet()) {
+                trips.addAll(tripRepository.findTripHeaders(
+                    new ArrayList<>(day.getValue()), day.getKey().atStartOfDay(), day.getKey().atTime(LocalTime.MAX)));
+            }
+            if (!trips.isEmpty()) {
+                tripsByRoute = trips.stream().collect(Collectors.groupingBy(TripHeaderRow::getRouteId));
+                stopsByRoute = routePointRepository.findTimetableStopsByRouteIds(
+                    new ArrayList<>(tripsByRoute.keySet())
+                ).stream().collect(Collectors.groupingBy(TimetableStop::getRouteId));
+                seatsByTrip = tripSeatRepository.findSeatOccupancy(
+                    trips.stream().map(TripHeaderRow::getTripId).collect(Collectors.toList())
+                ).stream().collect(Collectors.groupingBy(SeatOccupancyRow::getTripId));
+            }
+        }
         
-        List<Trip> trips = tripRepository.findAvailableTrips(routeIds, startOfDay, endOfDay);
+        List<BatchTripSearchResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TripSearchRequest request = requests.get(i);
+            try {
+                List<TripSearchResponse> trips = new ArrayList<>();
+                for (Long routeId : routeIdsByRequest.get(i)) {
+                    List<TimetableStop> stops = stopsByRoute.getOrDefault(routeId, List.of());
+                    TimetableStop boarding = firstStop(stops, boardingCities[i]);
+                    TimetableStop drop = firstStop(stops, dropCities[i]);
+                    if (boarding == null || drop == null) {
+                        continue;
+                    }
+                    for (TripHeaderRow trip : tripsByRoute.getOrDefault(routeId, List.of())) {
+                        if (!trip.getDepartureTime().toLocalDate().equals(request.getTravelDate())) {
+                            continue;
+                        }
+                        TripSearchResponse response = toSearchResponse(toSearchRow(trip, boarding, drop), seatsByTrip, 1);
+                        if (response != null) {
+                            trips.add(response);
+                        }
+                    }
+                }
+                results.add(new BatchTripSearchResult(i, boardingCities[i], dropCities[i], request.getTravelDate(),
+                    rankAndFilter(trips, request), null));
+            } catch (BaseException e) {
+                results.add(new BatchTripSearchResult(i, boardingCities[i], dropCities[i], request.getTravelDate(),
+                    new ArrayList<>(), e.getMessage()));
+            }
+        }
+        return results;
+    }
+    
+    private TimetableStop firstStop(List<TimetableStop> stops, String city) {
+        for (TimetableStop stop : stops) {
+            if (stop.getCity().equals(city)) {
+                return stop;
+            }
+        }
+        return null;
+    }
+    
+    private TripSearchRow toSearchRow(TripHeaderRow trip, TimetableStop boarding, TimetableStop drop) {
+        return new TripSearchRow(
+            trip.getTripId(), trip.getRouteId(), trip.getDepartureTime(), trip.getRouteName(),
+            trip.getDriverName(), trip.getDriverPhone(), trip.getDriverRating(),
+            trip.getVehicleBrand(), trip.getVehicleModel(), trip.getVehicleColor(),
+            trip.getRegistrationNumber(), trip.getVehicleType(), trip.getHasAc(),
+            boarding.getPointId(), boarding.getSequenceOrder(), boarding.getDistanceFromStart(), boarding.getTimeFromStart(),
+            drop.getPointId(), drop.getSequenceOrder(), drop.getDistanceFromStart(), drop.getTimeFromStart()
+        );
+    }
+    
+    /**
+     * Trips matching the request's seats and filters, best first in its sort order, at most limit of them
+     */
+    private List<TripSearchResponse> rankAndFilter(List<TripSearchResponse> trips, TripSearchRequest request) {
+        int requiredSeats = request.getRequiredSeats() != null ? request.getRequiredSeats() : 1;
+        // Without a limit only the top search.results.max-size trips; /search/page walks the whole day
+        int limit = Math.max(1, Math.min(request.getLimit() != null ? request.getLimit() : maxSearchResults,
+            maxSearchResults));
+        Comparator<TripSearchResponse> order = searchOrder(request.getSortBy());
         
-        // Convert to response DTOs
+        // Filter and rank in one pass, keeping only the best trips in a max-heap on the sort order
+        PriorityQueue<TripSearchResponse> best = new PriorityQueue<>(limit + 1, order.reversed());
+        for (TripSearchResponse trip : trips) {
+            if (!matchesFilters(trip, request, requiredSeats)) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(trip);
+            } else if (order.compare(trip, best.peek()) < 0) {
+                best.poll();
+                best.add(trip);
+            }
+        }
+        
+        List<TripSearchResponse> responses = new ArrayList<>(best);
+        responses.sort(order);
+        return responses;
+    }
+    
+    private Comparator<TripSearchResponse> searchOrder(String sortBy) {
+        if (sortBy == null || sortBy.equalsIgnoreCase("EARLIEST")) {
+            return EARLIEST_FIRST;
+        }
+        switch (sortBy.toUpperCase()) {
+            case "CHEAPEST":
+                return Comparator.comparing(TripSearchResponse::getPrice).thenComparing(EARLIEST_FIRST);
+            case "FASTEST":
+                return Comparator.comparing(TripSearchResponse::getDuration).thenComparing(EARLIEST_FIRST);
+            case "BEST_RATED":
+                return Comparator.comparing(TripSearchResponse::getDriverRating,
+                    Comparator.nullsLast(Comparator.<Double>reverseOrder())).thenComparing(EARLIEST_FIRST);
+            default:
+                throw new BaseException(ErrorCode.INVALID_REQUEST,
+                    "sortBy must be EARLIEST, CHEAPEST, FASTEST or BEST_RATED");
+        }
+    }
+    
+    private boolean matchesFilters(TripSearchResponse trip, TripSearchRequest request, int requiredSeats) {
+        if (trip.getAvailableSeats() < requiredSeats) {
+            return false;
+        }
+        if (request.getHasAc() != null && !request.getHasAc().equals(trip.getHasAC())) {
+            return false;
+        }
+        if (request.getVehicleTypes() != null && !request.getVehicleTypes().isEmpty()
+            && !request.getVehicleTypes().contains(trip.getVehicleType())) {
+            return false;
+        }
+        if (request.getMinRating() != null
+            && (trip.getDriverRating() == null || trip.getDriverRating() < request.getMinRating())) {
+            return false;
+        }
+        LocalTime departure = trip.getDepartureTime().toLocalTime();
+        if (request.getDepartureFrom() != null && departure.isBefore(request.getDepartureFrom())) {
+            return false;
+        }
+        return request.getDepartureTo() == null || !departure.isAfter(request.getDepartureTo());
+    }
+    
+    private TripSearchCache.SearchResult findTrips(String boardingCity, String dropCity, LocalDate travelDate) {
+        // Find routes that have both boarding and drop points
+        List<Long> routeIds = routeService.findRouteIdsByBoardingAndDropPoint(boardingCity, dropCity);
+        
+        if (routeIds.isEmpty()) {
+            return new TripSearchCache.SearchResult(new ArrayList<>(), routeIds);
+        }
+        
+        // Load every matching trip with driver, vehicle and stop data in one query
+        LocalDateTime startOfDay = travelDate.atStartOfDay();
+        LocalDateTime endOfDay = travelDate.atTime(LocalTime.MAX);
+        
+        List<TripSearchRow> rows = tripRepository.findTripSearchRows(
+            routeIds,
+            boardingCity,
+            dropCity,
+            startOfDay,
+            endOfDay
+        );
+        
+        if (rows.isEmpty()) {
+            return new TripSearchCache.SearchResult(new ArrayList<>(), routeIds);
+        }
+        
+        // Seat occupancy of all matching trips in one more query
+        Map<Long, List<SeatOccupancyRow>> seatsByTrip = loadSeatOccupancy(rows);
+        
+        // Convert to response DTOs, counting seats free on the searched leg only
         List<TripSearchResponse> responses = new ArrayList<>();
-        for (Trip trip : trips) {
-            if (trip.getAvailableSeats() >= request.getRequiredSeats()) {
-                TripSearchResponse response = buildTripSearchResponse(
-                    trip,
-                    request.getBoardingPoint(),
-                    request.getDropPoint()
-                );
+        for (TripSearchRow row : rows) {
+            TripSearchResponse response = toSearchResponse(row, seatsByTrip, 1);
+            if (response != null) {
                 responses.add(response);
             }
         }
         
-        return responses;
+        return new TripSearchCache.SearchResult(responses, routeIds);
+    }
+    
+    /**
+     * Departures of a city pair from a point in time onwards, one page at a time.
+     *
+     * Pages are read with a keyset on (departureTime, tripId) instead of an offset, so each page
+     * costs the same however deep the client scrolls and trips booked or added meanwhile never
+     * shift results between pages. The cursor returned with a page points at the last trip
+     * scanned (not the last one returned), so trips skipped for lack of seats are not read again.
+     */
+    @Transactional(readOnly = true)
+    public TripSearchPage searchTripsPage(TripSearchPageRequest request) {
+        int pageSize = Math.max(1, Math.min(
+            request.getPageSize() != null ? request.getPageSize() : maxPageSize, maxPageSize));
+        int requiredSeats = request.getRequiredSeats() != null ? request.getRequiredSeats() : 1;
+        
+        LocalDateTime afterDeparture;
+        long afterTripId;
+        LocalDateTime windowEnd;
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            SearchCursor cursor = SearchCursor.decode(request.getCursor());
+            afterDeparture = cursor.getDepartureTime();
+            afterTripId = cursor.getTripId();
+            // Cursors come back from the client; one never spans more than search.page.max-days
+            LocalDateTime latestEnd = afterDeparture.plusDays(maxSearchDays);
+            windowEnd = cursor.getWindowEnd().isAfter(latestEnd) ? latestEnd : cursor.getWindowEnd();
+        } else {
+            afterDeparture = request.getDepartureFrom() != null ? request.getDepartureFrom() : LocalDateTime.now();
+            afterTripId = 0L; // Includes trips leaving exactly at departureFrom
+            windowEnd = afterDeparture.plusDays(maxSearchDays);
+        }
+        
+        String boardingCity = routeService.resolveCity(request.getBoardingPoint());
+        String dropCity = routeService.resolveCity(request.getDropPoint());
+        List<Long> routeIds = routeService.findRouteIdsByBoardingAndDropPoint(boardingCity, dropCity);
+        
+        if (routeIds.isEmpty()) {
+            return new TripSearchPage(new ArrayList<>(), null, false);
+        }
+        
+        // Trips without enough seats on the leg are skipped, so a page may need several batches;
+        // the number of batches is capped and the client continues from the cursor
+        List<TripSearchResponse> responses = new ArrayList<>();
+        int batchSize = pageSize + 1;
+        for (int round = 0; round < maxPageRounds; round++) {
+            List<TripSearchRow> rows = tripRepository.findTripSearchRowsAfter(
+                routeIds,
+                boardingCity,
+                dropCity,
+                afterDeparture,
+                afterTripId,
+                windowEnd,
+                Limit.of(batchSize)
+            );
+            
+            Map<Long, List<SeatOccupancyRow>> seatsByTrip = loadSeatOccupancy(rows);
+            for (int i = 0; i < rows.size(); i++) {
+                TripSearchRow row = rows.get(i);
+                afterDeparture = row.getDepartureTime();
+                afterTripId = row.getTripId();
+                
+                TripSearchResponse response = toSearchResponse(row, seatsByTrip, requiredSeats);
+                if (response != null) {
+                    responses.add(response);
+                }
+                if (responses.size() == pageSize) {
+                    boolean hasMore = i < rows.size() - 1 || rows.size() == batchSize;
+                    return page(responses, hasMore, afterDeparture, afterTripId, windowEnd);
+                }
+            }
+            
+            if (rows.size() < batchSize) {
+                return page(responses, false, afterDeparture, afterTripId, windowEnd);
+            }
+        }
+        
+        return page(responses, true, afterDeparture, afterTripId, windowEnd);
     }
     
-    private TripSearchResponse buildTripSearchResponse(Trip trip, String boardingPoint, String dropPoint) {
-        // Get route points
-        List<RoutePoint> routePoints = routePointRepository
-            .findByRouteIdOrderBySequenceOrderAsc(trip.getRoute().getId());
+    /**
+     * Cheapest price, earliest departure and seats left per day for a city pair, replacing one
+     * full search per day with two queries: the window's trips with their price and leg, then
+     * their seat occupancy. Seats are counted on the requested leg like searchTrips, so a seat
+     * booked only on another part of the route still counts. Every day of the window is
+     * returned, days without a bookable trip included.
+     */
+    @Transactional(readOnly = true)
+    public List<PriceCalendarDay> getPriceCalendar(String boardingCity, String dropCity, LocalDate fromDate,
+                                                   Integer days, Integer requiredSeats) {
+        if (fromDate == null) {
+            fromDate = LocalDate.now();
+        }
+        int windowDays = days != null ? days : 7;
+        if (windowDays < 1 || windowDays > maxCalendarDays) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST,
+                "Calendar window must be between 1 and " + maxCalendarDays + " days");
+        }
+        int seatsNeeded = requiredSeats != null ? requiredSeats : 1;
         
-        RoutePoint boarding = routePoints.stream()
-            .filter(rp -> rp.getCity().equals(boardingPoint))
-            .findFirst()
-            .orElseThrow(() -> new BaseException(ErrorCode.BOARDING_POINT_NOT_FOUND));
+        boardingCity = routeService.resolveCity(boardingCity);
+        dropCity = routeService.resolveCity(dropCity);
         
-        RoutePoint drop = routePoints.stream()
-            .filter(rp -> rp.getCity().equals(dropPoint))
-            .findFirst()
-            .orElseThrow(() -> new BaseException(ErrorCode.DROP_POINT_NOT_FOUND));
+        Map<LocalDate, PriceCalendarDay> byDate = new HashMap<>();
+        List<Long> routeIds = routeService.findRouteIdsByBoardingAndDropPoint(boardingCity, dropCity);
+        if (!routeIds.isEmpty()) {
+            // Departures already gone today are not bookable
+            LocalDateTime from = fromDate.atStartOfDay();
+            LocalDateTime now = LocalDateTime.now();
+            List<PriceCalendarTripRow> trips = tripRepository.findPriceCalendarTrips(
+                routeIds,
+                boardingCity,
+                dropCity,
+                from.isBefore(now) ? now : from,
+                fromDate.plusDays(windowDays).atStartOfDay()
+            );
+            Map<Long, List<SeatOccupancyRow>> seatsByTrip = trips.isEmpty() ? Map.of()
+                : tripSeatRepository.findSeatOccupancy(
+                    trips.stream().map(PriceCalendarTripRow::getTripId).collect(Collectors.toList())
+                ).stream().collect(Collectors.groupingBy(SeatOccupancyRow::getTripId));
+            
+            for (PriceCalendarTripRow trip : trips) {
+                long leg = SegmentMask.of(trip.getBoardingSequenceOrder(), trip.getDropSequenceOrder());
+                int freeSeats = countFreeSeats(seatsByTrip.getOrDefault(trip.getTripId(), List.of()), leg);
+                if (freeSeats == 0 || freeSeats < seatsNeeded) {
+                    continue;
+                }
+                // Rows come in departure order, so the first trip of a day is its earliest
+                LocalDate date = trip.getDepartureTime().toLocalDate();
+                PriceCalendarDay day = byDate.computeIfAbsent(date,
+                    d -> new PriceCalendarDay(d, trip.getPrice(), trip.getDepartureTime(), 0L, 0L));
+                day.setCheapestPrice(Math.min(day.getCheapestPrice(), trip.getPrice()));
+                day.setSeatsLeft(day.getSeatsLeft() + freeSeats);
+                day.setTripCount(day.getTripCount() + 1);
+            }
+        }
         
+        List<PriceCalendarDay> calendar = new ArrayList<>(windowDays);
+        for (int i = 0; i < windowDays; i++) {
+            LocalDate date = fromDate.plusDays(i);
+            calendar.add(byDate.getOrDefault(date, new PriceCalendarDay(date, null, null, 0L, 0L)));
+        }
+        return calendar;
+    }
+    
+    private TripSearchPage page(List<TripSearchResponse> trips, boolean hasMore,
+                                LocalDateTime lastDeparture, long lastTripId, LocalDateTime windowEnd) {
+        String nextCursor = hasMore ? new SearchCursor(lastDeparture, lastTripId, windowEnd).encode() : null;
+        return new TripSearchPage(trips, nextCursor, hasMore);
+    }
+    
+    private Map<Long, List<SeatOccupancyRow>> loadSeatOccupancy(List<TripSearchRow> rows) {
+        if (rows.isEmpty()) {
+            return Map.of();
+        }
+        return tripSeatRepository.findSeatOccupancy(
+            rows.stream().map(TripSearchRow::getTripId).collect(Collectors.toList())
+        ).stream().collect(Collectors.groupingBy(SeatOccupancyRow::getTripId));
+    }
+    
+    /**
+     * @return the search result for a row, or null if the trip lacks the required seats on the leg
+     *
+     * The leg runs from the first stop of the boarding city to the first stop of the drop city
+     * (SEARCH_ROW_QUERY picks MIN(sequenceOrder) per city), while a booking covers the stops of
+     * the sub-locations actually chosen. Where a city has several stops the count is therefore
+     * an approximation: a later boarding stop may leave more seats free than shown, and a later
+     * drop stop fewer, in which case createBooking rejects the seats it cannot give.
+     */
+    private TripSearchResponse toSearchResponse(TripSearchRow row, Map<Long, List<SeatOccupancyRow>> seatsByTrip,
+                                                int requiredSeats) {
+        if (row.getBoardingSequenceOrder() >= row.getDropSequenceOrder()) {
+            return null; // Route passes the drop city before the first boarding stop
+        }
+        long leg = SegmentMask.of(row.getBoardingSequenceOrder(), row.getDropSequenceOrder());
+        int freeSeats = countFreeSeats(seatsByTrip.getOrDefault(row.getTripId(), List.of()), leg);
+        if (freeSeats > 0 && freeSeats >= requiredSeats) {
+            return buildTripSearchResponse(row, freeSeats);
+        }
+        return null;
+    }
+    
+    private int countFreeSeats(List<SeatOccupancyRow> seats, long leg) {
+        int free = 0;
+        for (SeatOccupancyRow seat : seats) {
+            long occupancy = SegmentMask.occupancy(seat.getIsAvailable(), false, seat.getOccupiedSegments());
+            if (SegmentMask.isFree(occupancy, leg)) {
+                free++;
+            }
+        }
+        return free;
+    }
+    
+    private TripSearchResponse buildTripSearchResponse(TripSearchRow row, int availableSeats) {
         // Get fixed price from route price matrix
-        RoutePrice routePrice = routePriceRepository.findByRouteAndPoints(
-            trip.getRoute().getId(),
-            boarding.getId(),
-            drop.getId()
+        double price = routePriceCache.findPrice(
+            row.getRouteId(),
+            row.getBoardingPointId(),
+            row.getDropPointId()
         ).orElseThrow(() -> new BaseException(ErrorCode.PRICE_NOT_FOUND, 
             "Price not configured for this boarding-drop combination"));
         
-        double distance = (drop.getDistanceFromStart() - boarding.getDistanceFromStart()) / 1000.0;
-        int duration = drop.getTimeFromStart() - boarding.getTimeFromStart();
+        double distance = (row.getDropDistanceFromStart() - row.getBoardingDistanceFromStart()) / 1000.0;
+        int duration = row.getDropTimeFromStart() - row.getBoardingTimeFromStart();
         
-        LocalDateTime arrivalTime = trip.getDepartureTime().plusMinutes(duration);
+        LocalDateTime arrivalTime = row.getDepartureTime().plusMinutes(duration);
         
         TripSearchResponse response = new TripSearchResponse();
-        response.setTripId(trip.getId());
-        response.setDriverName(trip.getDriver().getUser().getName());
-        response.setDriverPhone(trip.getDriver().getUser().getPhone());
-        response.setDriverRating(trip.getDriver().getRating());
-        response.setVehicleBrand(trip.getVehicle().getBrand());
-        response.setVehicleModel(trip.getVehicle().getModel());
-        response.setVehicleColor(trip.getVehicle().getColor());
-        response.setRegistrationNumber(trip.getVehicle().getRegistrationNumber());
-        response.setVehicleType(trip.getVehicle().getVehicleType());
-        response.setHasAC(trip.getVehicle().getHasAc());
-        response.setDepartureTime(trip.getDepartureTime());
+        response.setTripId(row.getTripId());
+        response.setDriverName(row.getDriverName());
+        response.setDriverPhone(row.getDriverPhone());
+        response.setDriverRating(row.getDriverRating());
+        response.setVehicleBrand(row.getVehicleBrand());
+        response.setVehicleModel(row.getVehicleModel());
+        response.setVehicleColor(row.getVehicleColor());
+        response.setRegistrationNumber(row.getRegistrationNumber());
+        response.setVehicleType(row.getVehicleType());
+        response.setHasAC(row.getHasAc());
+        response.setDepartureTime(row.getDepartureTime());
         response.setArrivalTime(arrivalTime);
-        response.setAvailableSeats(trip.getAvailableSeats());
-        response.setPrice(routePrice.getPrice()); // Fixed price per seat
+        response.setAvailableSeats(availableSeats);
+        response.setPrice(price); // Fixed price per seat
         response.setDistance(distance);
         response.setDuration(duration);
-        response.setRouteName(trip.getRoute().getRouteName());
+        response.setRouteName(row.getRouteName());
         
         return response;
     }
     
+    /**
+     * Journeys of two trips changing at a shared city, best first by arrival time or by price.
+     *
+     * Transfer options (first route, transfer city, second route) come from the in-memory
+     * ConnectionIndex; the trips of every route involved and their seat occupancy are then
+     * loaded with one query each. The scan matches each first-trip arrival with the second-trip
+     * departures of its transfer stop inside the layover window, found by binary search over the
+     * departures in time order, and keeps the best `limit` itineraries in a bounded heap. It stops
+     * after search.connections.budget-ms and returns what it found so far, marked incomplete.
+     */
     @Transactional(readOnly = true)
-    public SeatAvailabilityResponse getSeatAvailability(Long tripId) {
+    public ConnectionSearchResponse searchConnections(ConnectionSearchRequest request) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectionBudgetMillis);
+        int requiredSeats = request.getRequiredSeats() != null ? request.getRequiredSeats() : 1;
+        int limit = Math.max(1, Math.min(request.getLimit() != null ? request.getLimit() : 5, maxConnectionResults));
+        int minLayover = request.getMinLayoverMinutes() != null
+            ? request.getMinLayoverMinutes() : defaultMinLayoverMinutes;
+        int maxLayover = request.getMaxLayoverMinutes() != null
+            ? request.getMaxLayoverMinutes() : defaultMaxLayoverMinutes;
+        if (minLayover < 0 || maxLayover < minLayover || maxLayover > maxLayoverLimitMinutes) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST,
+                "Layover must be between 0 and " + maxLayoverLimitMinutes + " minutes, minimum first");
+        }
+        boolean byPrice = isSortedByPrice(request.getSortBy());
+        Comparator<ConnectionItinerary> order = byPrice
+            ? Comparator.comparing(ConnectionItinerary::getPrice).thenComparing(ConnectionItinerary::getArrivalTime)
+            : Comparator.comparing(ConnectionItinerary::getArrivalTime).thenComparing(ConnectionItinerary::getPrice);
+        
+        String boardingCity = routeService.resolveCity(request.getBoardingPoint());
+        String dropCity = routeService.resolveCity(request.getDropPoint());
+        
+        connectionIndex.ensureReady();
+        List<ConnectionIndex.Transfer> transfers = connectionIndex.findTransfers(boardingCity, dropCity);
+        if (transfers.isEmpty()) {
+            return new ConnectionSearchResponse(new ArrayList<>(), true);
+        }
+        
+        // First trips leave on the travel date; second trips may have left their first stop the
+        // day before, or leave up to a layover after the latest arrival at a transfer stop
+        Set<Long> routeIds = new HashSet<>();
+        int latestArrival = 0;
+        int latestDeparture = 0;
+        for (ConnectionIndex.Transfer transfer : transfers) {
+            routeIds.add(transfer.getFirstRouteId());
+            routeIds.add(transfer.getSecondRouteId());
+            latestArrival = Math.max(latestArrival, transfer.getArrival().getTimeFromStart());
+            latestDeparture = Math.max(latestDeparture, transfer.getDeparture().getTimeFromStart());
+        }
+        LocalDateTime startOfDay = request.getTravelDate().atStartOfDay();
+        LocalDateTime endOfDay = request.getTravelDate().atTime(LocalTime.MAX);
+        List<UpcomingTripRow> trips = tripRepository.findUpcomingTrips(
+            new ArrayList<>(routeIds),
+            startOfDay.minusMinutes(latestDeparture),
+            endOfDay.plusMinutes(latestArrival + maxLayover)
+        );
+        if (trips.isEmpty()) {
+            return new ConnectionSearchResponse(new ArrayList<>(), true);
+        }
+        Map<Long, List<UpcomingTripRow>> tripsByRoute = trips.stream()
+            .collect(Collectors.groupingBy(UpcomingTripRow::getRouteId));
+        Map<Long, List<SeatOccupancyRow>> seatsByTrip = tripSeatRepository.findSeatOccupancy(
+            trips.stream().map(UpcomingTripRow::getTripId).collect(Collectors.toList())
+        ).stream().collect(Collectors.groupingBy(SeatOccupancyRow::getTripId));
+        
+        // Max-heap on the sort order holding the best itineraries found so far
+        PriorityQueue<ConnectionItinerary> best = new PriorityQueue<>(limit + 1, order.reversed());
+        boolean complete = true;
+        scan:
+        for (ConnectionIndex.Transfer transfer : transfers) {
+            List<UpcomingTripRow> firstTrips = tripsByRoute.getOrDefault(transfer.getFirstRouteId(), List.of());
+            List<UpcomingTripRow> secondTrips = tripsByRoute.getOrDefault(transfer.getSecondRouteId(), List.of());
+            if (firstTrips.isEmpty() || secondTrips.isEmpty()) {
+                continue;
+            }
+            Optional<Double> firstPrice = routePriceCache.findPrice(transfer.getFirstRouteId(),
+                transfer.getBoarding().getPointId(), transfer.getArrival().getPointId());
+            Optional<Double> secondPrice = routePriceCache.findPrice(transfer.getSecondRouteId(),
+                transfer.getDeparture().getPointId(), transfer.getDrop().getPointId());
+            if (firstPrice.isEmpty() || secondPrice.isEmpty()) {
+                continue; // One of the legs is not sold on its own
+            }
+            if (byPrice && best.size() == limit && firstPrice.get() + secondPrice.get() > best.peek().getPrice()) {
+                continue; // Every itinerary of this transfer costs the same
+            }
+            
+            long firstLeg = SegmentMask.of(transfer.getBoarding().getSequenceOrder(),
+                transfer.getArrival().getSequenceOrder());
+            long secondLeg = SegmentMask.of(transfer.getDeparture().getSequenceOrder(),
+                transfer.getDrop().getSequenceOrder());
+            for (UpcomingTripRow firstTrip : firstTrips) {
+                if (System.nanoTime() > deadline) {
+                    complete = false;
+                    break scan;
+                }
+                if (firstTrip.getDepartureTime().isBefore(startOfDay) || firstTrip.getDepartureTime().isAfter(endOfDay)) {
+                    continue;
+                }
+                int firstSeats = countFreeSeats(seatsByTrip.getOrDefault(firstTrip.getTripId(), List.of()), firstLeg);
+                if (firstSeats == 0 || firstSeats < requiredSeats) {
+                    continue;
+                }
+                
+                // Second trips reach the transfer stop in the order they leave their first stop
+                LocalDateTime arrivesAt = firstTrip.getDepartureTime().plusMinutes(transfer.getArrival().getTimeFromStart());
+                LocalDateTime latestConnection = arrivesAt.plusMinutes(maxLayover);
+                int offset = transfer.getDeparture().getTimeFromStart();
+                for (int i = firstDepartingFrom(secondTrips, arrivesAt.plusMinutes(minLayover - offset));
+                     i < secondTrips.size(); i++) {
+                    UpcomingTripRow secondTrip = secondTrips.get(i);
+                    if (secondTrip.getDepartureTime().plusMinutes(offset).isAfter(latestConnection)) {
+                        break;
+                    }
+                    int secondSeats = countFreeSeats(
+                        seatsByTrip.getOrDefault(secondTrip.getTripId(), List.of()), secondLeg);
+                    if (secondSeats == 0 || secondSeats < requiredSeats) {
+                        continue;
+                    }
+                    ConnectionItinerary itinerary = buildConnectionItinerary(transfer, firstTrip, secondTrip,
+                        firstPrice.get(), secondPrice.get(), firstSeats, secondSeats);
+                    if (best.size() < limit) {
+                        best.add(itinerary);
+                    } else if (order.compare(itinerary, best.peek()) < 0) {
+                        best.poll();
+                        best.add(itinerary);
+                    } else if (!byPrice) {
+                        break; // Later second trips only arrive later
+                    }
+                }
+            }
+        }
+        
+        List<ConnectionItinerary> itineraries = new ArrayList<>(best);
+        itineraries.sort(order);
+        return new ConnectionSearchResponse(itineraries, complete);
+    }
+    
+    private boolean isSortedByPrice(String sortBy) {
+        if (sortBy == null || sortBy.equalsIgnoreCase("ARRIVAL")) {
+            return false;
+        }
+        if (sortBy.equalsIgnoreCase("PRICE")) {
+            return true;
+        }
+        throw new BaseException(ErrorCode.INVALID_REQUEST, "sortBy must be ARRIVAL or PRICE");
+    }
+    
+    /**
+     * Index of the first trip leaving at or after the given time; trips are in departure order
+     */
+    private int firstDepartingFrom(List<UpcomingTripRow> trips, LocalDateTime time) {
+        int low = 0;
+        int high = trips.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (trips.get(middle).getDepartureTime().isBefore(time)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    private ConnectionItinerary buildConnectionItinerary(ConnectionIndex.Transfer transfer,
+                                                         UpcomingTripRow firstTrip, UpcomingTripRow secondTrip,
+                                                         double firstPrice, double secondPrice,
+                                                         int firstSeats, int secondSeats) {
+        ConnectionItinerary.Leg first = new ConnectionItinerary.Leg(
+            firstTrip.getTripId(),
+            transfer.getFirstRouteName(),
+            transfer.getBoarding().getCity(),
+            transfer.getBoarding().getPointId(),
+            transfer.getArrival().getCity(),
+            transfer.getArrival().getPointId(),
+            firstTrip.getDepartureTime().plusMinutes(transfer.getBoarding().getTimeFromStart()),
+            firstTrip.getDepartureTime().plusMinutes(transfer.getArrival().getTimeFromStart()),
+            firstPrice,
+            firstSeats
+        );
+        ConnectionItinerary.Leg second = new ConnectionItinerary.Leg(
+            secondTrip.getTripId(),
+            transfer.getSecondRouteName(),
+            transfer.getDeparture().getCity(),
+            transfer.getDeparture().getPointId(),
+            transfer.getDrop().getCity(),
+            transfer.getDrop().getPointId(),
+            secondTrip.getDepartureTime().plusMinutes(transfer.getDeparture().getTimeFromStart()),
+            secondTrip.getDepartureTime().plusMinutes(transfer.getDrop().getTimeFromStart()),
+            secondPrice,
+            secondSeats
+        );
+        return new ConnectionItinerary(
+            transfer.getTransferCity(),
+            first.getDepartureTime(),
+            second.getArrivalTime(),
+            (int) Duration.between(first.getDepartureTime(), second.getArrivalTime()).toMinutes(),
+            (int) Duration.between(first.getArrivalTime(), second.getDepartureTime()).toMinutes(),
+            firstPrice + secondPrice,
+            Math.min(firstSeats, secondSeats),
+            List.of(first, second)
+        );
+    }
+    
+    /**
+     * Boarding points of active routes within radiusMeters of a location, nearest first, each
+     * with the trips boarding there in the next geo.nearby.trip-horizon-hours. Points come from
+     * the in-memory grid index; the trips of all points are loaded with one query.
+     */
+    @Transactional(readOnly = true)
+    public List<NearbyBoardingPointResponse> findNearbyBoardingPoints(Double latitude, Double longitude,
+                                                                      Integer radiusMeters, Integer limit) {
+        if (latitude == null || longitude == null || Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST, "Valid latitude and longitude are required");
+        }
+        int radius = radiusMeters != null ? radiusMeters : 2000;
+        if (radius <= 0 || radius > maxNearbyRadiusMeters) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST,
+                "Radius must be between 1 and " + maxNearbyRadiusMeters + " meters");
+        }
+        int maxResults = Math.max(1, Math.min(limit != null ? limit : 10, maxNearbyResults));
+        
+        boardingPointGeoIndex.ensureReady();
+        List<BoardingPointGeoIndex.Nearby> nearby =
+            boardingPointGeoIndex.findNearest(latitude, longitude, radius, maxResults);
+        if (nearby.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        // Trips that reach one of the points before the horizon, whichever stop they started from
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime horizon = now.plusHours(nearbyTripHorizonHours);
+        int latestStop = nearby.stream().mapToInt(n -> n.getPoint().getTimeFromStart()).max().orElse(0);
+        Map<Long, List<UpcomingTripRow>> tripsByRoute = tripRepository.findUpcomingTrips(
+            nearby.stream().map(n -> n.getPoint().getRouteId()).distinct().collect(Collectors.toList()),
+            now.minusMinutes(latestStop),
+            horizon
+        ).stream().collect(Collectors.groupingBy(UpcomingTripRow::getRouteId));
+        
+        List<NearbyBoardingPointResponse> responses = new ArrayList<>();
+        for (BoardingPointGeoIndex.Nearby match : nearby) {
+            GeoPoint point = match.getPoint();
+            List<NearbyBoardingPointResponse.UpcomingTrip> trips = new ArrayList<>();
+            for (UpcomingTripRow trip : tripsByRoute.getOrDefault(point.getRouteId(), List.of())) {
+                LocalDateTime boardingTime = trip.getDepartureTime().plusMinutes(point.getTimeFromStart());
+                if (boardingTime.isBefore(now) || boardingTime.isAfter(horizon)) {
+                    continue;
+                }
+                trips.add(new NearbyBoardingPointResponse.UpcomingTrip(
+                    trip.getTripId(), trip.getDepartureTime(), boardingTime, trip.getAvailableSeats()));
+                if (trips.size() == nearbyTripsPerPoint) {
+                    break;
+                }
+            }
+            responses.add(new NearbyBoardingPointResponse(
+                point.getPointId(),
+                point.getRouteId(),
+                point.getRouteName(),
+                point.getCity(),
+                point.getSubLocation(),
+                point.getPointName(),
+                point.getLatitude(),
+                point.getLongitude(),
+                (int) Math.round(match.getDistanceMeters()),
+                trips
+            ));
+        }
+        return responses;
+    }
+    
+    /**
+     * Seat map of a trip. With boarding and drop city a seat is available when it is free on
+     * that leg; without them only seats free for the whole trip are shown as available.
+     * Seats on hold (SeatHoldService) count as taken on their held leg.
+     */
+    @Transactional(readOnly = true)
+    public SeatAvailabilityResponse getSeatAvailability(Long tripId, String boardingCity, String dropCity) {
         Trip trip = tripRepository.findById(tripId)
             .orElseThrow(() -> new BaseException(ErrorCode.TRIP_NOT_FOUND));
         
+        long leg = SegmentMask.FULL_TRIP;
+        if (boardingCity != null && dropCity != null) {
+            leg = SegmentMask.of(
+                firstSequenceOrder(trip.getRoute().getId(), boardingCity),
+                firstSequenceOrder(trip.getRoute().getId(), dropCity)
+            );
+        }
+        
         List<TripSeat> seats = tripSeatRepository.findByTripId(tripId);
+        Map<String, Long> held = seatHoldStore.heldSegments(tripId);
         
-        List<SeatAvailabilityResponse.SeatInfo> seatInfos = seats.stream()
-            .filter(seat -> !seat.getIsDriverSeat()) // Exclude driver seat
-            .map(seat -> new SeatAvailabilityResponse.SeatInfo(
+        List<SeatAvailabilityResponse.SeatInfo> seatInfos = new ArrayList<>();
+        int availableSeats = 0;
+        for (TripSeat seat : seats) {
+            if (seat.getIsDriverSeat()) {
+                continue; // Exclude driver seat
+            }
+            long occupancy = SeatInventory.occupancy(seat) | held.getOrDefault(seat.getSeatNumber(), 0L);
+            boolean available = SegmentMask.isFree(occupancy, leg);
+            if (available) {
+                availableSeats++;
+            }
+            seatInfos.add(new SeatAvailabilityResponse.SeatInfo(
                 seat.getSeatNumber(),
-                seat.getIsAvailable(),
+                available,
                 seat.getIsDriverSeat()
-            ))
-            .collect(Collectors.toList());
+            ));
+        }
         
         return new SeatAvailabilityResponse(
             tripId,
             trip.getVehicle().getTotalSeats() - 1, // Exclude driver seat
-            trip.getAvailableSeats(),
+            availableSeats,
             seatInfos
         );
     }
     
+    // First stop of the city on the route, the same leg approximation as search (see toSearchResponse)
+    private int firstSequenceOrder(Long routeId, String city) {
+        return routePointRepository.findByRouteIdAndCity(routeId, city).stream()
+            .mapToInt(RoutePoint::getSequenceOrder)
+            .min()
+            .orElseThrow(() -> new BaseException(ErrorCode.ROUTE_POINT_NOT_FOUND,
+                "City " + city + " is not on this trip's route"));
+    }
+    
     @Transactional(readOnly = true)
     public Trip getTripById(Long tripId) {
         return tripRepository.findById(tripId)
@@ -239,7 +1011,7 @@ public class TripService {
         }
         
         // Get price for this city combination
-        RoutePrice routePrice = routePriceRepository.findByRouteAndPoints(
+        double pricePerSeat = routePriceCache.findPrice(
             routeId,
             boardingPoints.get(0).getId(),
             dropPoints.get(0).getId()
@@ -263,7 +1035,7 @@ public class TripService {
         response.put("dropCity", dropCity);
         response.put("boardingPoints", boardingPointDtos);
         response.put("dropPoints", dropPointDtos);
-        response.put("pricePerSeat", routePrice.getPrice());
+        response.put("pricePerSeat", pricePerSeat);
         
         return response;
     }
@@ -0,0 +1,282 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.dto.BookingRequest;
+import com.app.carpolling.dto.WaitlistRequest;
+import com.app.carpolling.entity.Booking;
+import com.app.carpolling.entity.RoutePoint;
+import com.app.carpolling.entity.Trip;
+import com.app.carpolling.entity.TripStatus;
+import com.app.carpolling.entity.WaitlistEntry;
+import com.app.carpolling.entity.WaitlistStatus;
+import com.app.carpolling.event.TripSeatsChangedEvent;
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.exception.ErrorCode;
+import com.app.carpolling.inventory.SeatInventory;
+import com.app.carpolling.inventory.SegmentMask;
+import com.app.carpolling.repository.RoutePointRepository;
+import com.app.carpolling.repository.WaitlistEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Per-trip waitlist for sold-out legs, promoted when seats are released.
+ *
+ * A passenger joins when a trip has too few free seats on their leg. Once a cancellation or an
+ * expiry commits (TripSeatsChangedEvent with released set), the trip is handed to a single
+ * promoter thread, which walks the trip's waiting entries in join order and turns each one that
+ * now fits into a pending booking of any free seats (the normal booking hold, which expires like
+ * any other). An entry whose group does not fit is skipped, not blocking smaller groups behind it.
+ *
+ * The trips known to have anyone waiting are kept in memory, so their releases are handed over
+ * without a query. A run reads the queue in pages of waitlist.promotion.max-scan entries from the
+ * (trip_id, status, id) index, each page after the last id seen, and goes on until no seat is free
+ * on any segment a waiting passenger travels or the queue ends. Repeated releases of a trip while
+ * it is queued collapse into one run.
+ *
+ * With several instances, each promotes on the releases it commits itself. Its set of trips is
+ * loaded at startup and grows with local joins only, so a release of a trip missing from it checks
+ * the index once for passengers who joined on another instance. Two instances promoting the same
+ * trip at once are safe: an entry is promoted by one conditional update and seats by the inventory.
+ *
+ * Metrics: waitlist.promotions, waitlist.trips.waiting
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class WaitlistService {
+    
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final RoutePointRepository routePointRepository;
+    private final SeatInventory seatInventory;
+    private final UserService userService;
+    private final TripService tripService;
+    private final BookingService bookingService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${waitlist.promotion.max-scan:50}")
+    private int maxScan = 50;
+    
+    private final Set<Long> waitingTrips = ConcurrentHashMap.newKeySet();
+    private final Set<Long> queuedTrips = ConcurrentHashMap.newKeySet();
+    private final ExecutorService promoter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "waitlist-promoter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Counter promotions;
+    
+    @PostConstruct
+    void registerMetrics() {
+        promotions = Counter.builder("waitlist.promotions")
+            .register(meterRegistry);
+        Gauge.builder("waitlist.trips.waiting", waitingTrips, Set::size)
+            .register(meterRegistry);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadWaitingTrips() {
+        try {
+            waitingTrips.addAll(waitlistEntryRepository.findTripIdsWithWaiting());
+            log.info("Waitlist loaded {} trips with waiting passengers", waitingTrips.size());
+        } catch (Exception e) {
+            log.error("Error loading waitlisted trips: {}", e.getMessage(), e);
+        }
+    }
+    
+    @PreDestroy
+    public void stop() {
+        promoter.shutdownNow();
+    }
+    
+    /**
+     * Join the waitlist of a trip for numberOfSeats seats on the requested leg
+     * @throws BaseException INVALID_REQUEST if that many seats are free now (book them instead)
+     */
+    public WaitlistEntry join(WaitlistRequest request) {
+        Long userId = userService.getUserById(request.getUserId()).getId();
+        Trip trip = tripService.getTripById(request.getTripId());
+        if (trip.getStatus() != TripStatus.SCHEDULED) {
+            throw new BaseException(ErrorCode.TRIP_NOT_AVAILABLE);
+        }
+        Long routeId = trip.getRoute().getId();
+        RoutePoint boardingPoint = routePointRepository.findBoardingPoint(
+            routeId, request.getBoardingCity(), request.getBoardingSubLocation()
+        ).orElseThrow(() -> new BaseException(ErrorCode.BOARDING_POINT_NOT_FOUND,
+            "Boarding point not found: " + request.getBoardingCity() + " - " + request.getBoardingSubLocation()));
+        RoutePoint dropPoint = routePointRepository.findDropPoint(
+            routeId, request.getDropCity(), request.getDropSubLocation()
+        ).orElseThrow(() -> new BaseException(ErrorCode.DROP_POINT_NOT_FOUND,
+            "Drop point not found: " + request.getDropCity() + " - " + request.getDropSubLocation()));
+        
+        long leg = SegmentMask.of(boardingPoint.getSequenceOrder(), dropPoint.getSequenceOrder());
+        if (seatInventory.freeSeats(trip.getId(), leg) >= request.getNumberOfSeats()) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST, "Enough seats are available, book them instead");
+        }
+        
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setTripId(trip.getId());
+        entry.setUserId(userId);
+        entry.setBoardingCity(request.getBoardingCity());
+        entry.setBoardingSubLocation(request.getBoardingSubLocation());
+        entry.setDropCity(request.getDropCity());
+        entry.setDropSubLocation(request.getDropSubLocation());
+        entry.setBoardingSequence(boardingPoint.getSequenceOrder());
+        entry.setDropSequence(dropPoint.getSequenceOrder());
+        entry.setNumberOfSeats(request.getNumberOfSeats());
+        entry.setStatus(WaitlistStatus.WAITING);
+        WaitlistEntry saved = waitlistEntryRepository.save(entry);
+        // Marked only once the entry is committed; see the re-check at the end of promote
+        waitingTrips.add(trip.getId());
+        return saved;
+    }
+    
+    @Transactional
+    public WaitlistEntry leave(Long entryId, Long userId) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId)
+            .filter(found -> found.getUserId().equals(userId))
+            .orElseThrow(() -> new BaseException(ErrorCode.RESOURCE_NOT_FOUND, "Waitlist entry not found"));
+        if (entry.getStatus() != WaitlistStatus.WAITING) {
+            throw new BaseException(ErrorCode.INVALID_REQUEST, "Waitlist entry is no longer waiting");
+        }
+        entry.setStatus(WaitlistStatus.CANCELLED);
+        return waitlistEntryRepository.save(entry);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<WaitlistEntry> getUserEntries(Long userId) {
+        return waitlistEntryRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatsChanged(TripSeatsChangedEvent event) {
+        if (!event.isReleased()) {
+            return;
+        }
+        if (!waitingTrips.contains(event.getTripId())) {
+            // Joined on another instance, or nobody waits
+            if (!waitlistEntryRepository.existsWaiting(event.getTripId())) {
+                return;
+            }
+            waitingTrips.add(event.getTripId());
+        }
+        schedulePromotion(event.getTripId());
+    }
+    
+    private void schedulePromotion(Long tripId) {
+        if (!queuedTrips.add(tripId)) {
+            // Already queued; that run sees these seats too
+            return;
+        }
+        try {
+            promoter.execute(() -> {
+                queuedTrips.remove(tripId);
+                try {
+                    promote(tripId);
+                } catch (Exception e) {
+                    log.error("Error promoting waitlist of trip {}: {}", tripId, e.getMessage(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queuedTrips.remove(tripId);
+        }
+    }
+    
+    /**
+     * Promote the waiting entries of a trip that fit the seats free now, in join order
+     * @return entries promoted
+     */
+    public int promote(Long tripId) {
+        int promoted = 0;
+        Integer lastDropSequence = waitlistEntryRepository.findLastWaitingDropSequence(tripId);
+        long afterId = 0;
+        boolean scanning = lastDropSequence != null;
+        while (scanning && anySeatFree(tripId, lastDropSequence)) {
+            List<WaitlistEntry> waiting = waitlistEntryRepository.findWaitingAfter(tripId, afterId, Limit.of(maxScan));
+            for (WaitlistEntry entry : waiting) {
+                afterId = entry.getId();
+                long leg = SegmentMask.of(entry.getBoardingSequence(), entry.getDropSequence());
+                if (seatInventory.freeSeats(tripId, leg) < entry.getNumberOfSeats()) {
+                    continue;
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> promoteEntry(entry));
+                    promoted++;
+                    promotions.increment();
+                    log.info("Promoted waitlist entry {} on trip {}", entry.getId(), tripId);
+                } catch (BaseException e) {
+                    if (e.getErrorCode() == ErrorCode.TRIP_NOT_AVAILABLE || e.getErrorCode() == ErrorCode.TRIP_NOT_FOUND) {
+                        int expired = transactionTemplate.execute(
+                            status -> waitlistEntryRepository.expireWaiting(tripId, LocalDateTime.now()));
+                        log.info("Trip {} is no longer bookable; expired {} waitlist entries", tripId, expired);
+                        scanning = false;
+                        break;
+                    }
+                    // Seats taken meanwhile or the entry left; it keeps its place if still waiting
+                    log.debug("Waitlist entry {} not promoted: {}", entry.getId(), e.getMessage());
+                }
+            }
+            if (waiting.size() < maxScan) {
+                scanning = false;
+            }
+        }
+        
+        if (!waitlistEntryRepository.existsWaiting(tripId)) {
+            waitingTrips.remove(tripId);
+            // A join committed between the check and the removal must not be forgotten
+            if (waitlistEntryRepository.existsWaiting(tripId)) {
+                waitingTrips.add(tripId);
+            }
+        }
+        return promoted;
+    }
+    
+    /**
+     * Whether any seat is free on some segment up to lastDropSequence; once none is, no waiting
+     * entry can fit and the rest of the queue need not be read
+     */
+    private boolean anySeatFree(Long tripId, int lastDropSequence) {
+        for (int sequence = 1; sequence < lastDropSequence; sequence++) {
+            if (seatInventory.freeSeats(tripId, SegmentMask.of(sequence, sequence + 1)) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void promoteEntry(WaitlistEntry entry) {
+        BookingRequest request = BookingRequest.builder()
+            .userId(entry.getUserId())
+            .tripId(entry.getTripId())
+            .boardingCity(entry.getBoardingCity()).boardingSubLocation(entry.getBoardingSubLocation())
+            .dropCity(entry.getDropCity()).dropSubLocation(entry.getDropSubLocation())
+            .numberOfSeats(entry.getNumberOfSeats())
+            .build();
+        Booking booking = bookingService.createBooking(request);
+        if (waitlistEntryRepository.markPromoted(entry.getId(), booking.getId(), LocalDateTime.now()) == 0) {
+            // Left the waitlist meanwhile; rolls the booking back
+            throw new BaseException(ErrorCode.INVALID_REQUEST, "Waitlist entry is no longer waiting");
+        }
+    }
+}
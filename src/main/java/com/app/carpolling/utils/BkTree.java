@@ -0,0 +1,132 @@
+package com.app.carpolling.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Burkhard-Keller tree over strings under Levenshtein distance.
+ *
+ * Finds the words closest to a query without comparing it to the whole vocabulary: the triangle
+ * inequality limits each step to children whose edge distance lies within maxDistance of the
+ * query's distance to the node. Each word carries a value. Not thread-safe while being built;
+ * safe for concurrent searches once built.
+ */
+public class BkTree<V> {
+
+  private Node<V> root;
+  private int size;
+
+  public void add(String word, V value) {
+    if (root == null) {
+      root = new Node<>(word, value);
+      size++;
+      return;
+    }
+    Node<V> node = root;
+    while (true) {
+      int distance = distance(word, node.word);
+      if (distance == 0) {
+        return; // Keep the first value of a word
+      }
+      Node<V> child = node.children.get(distance);
+      if (child == null) {
+        node.children.put(distance, new Node<>(word, value));
+        size++;
+        return;
+      }
+      node = child;
+    }
+  }
+
+  /**
+   * Values of the words nearest to the query, all at the same smallest distance
+   * @return empty if no word lies within maxDistance
+   */
+  public Match<V> nearest(String query, int maxDistance) {
+    Match<V> best = new Match<>(maxDistance + 1, new ArrayList<>());
+    if (root == null) {
+      return best;
+    }
+    Deque<Node<V>> pending = new ArrayDeque<>();
+    pending.push(root);
+    while (!pending.isEmpty()) {
+      Node<V> node = pending.pop();
+      int distance = distance(query, node.word);
+      if (distance < best.distance) {
+        best = new Match<>(distance, new ArrayList<>(List.of(node.value)));
+      } else if (distance == best.distance && distance <= maxDistance) {
+        best.values.add(node.value);
+      }
+      // Words further than the current best are of no interest, which also shrinks the search
+      int bound = Math.min(maxDistance, best.distance);
+      for (Map.Entry<Integer, Node<V>> child : node.children.entrySet()) {
+        if (Math.abs(child.getKey() - distance) <= bound) {
+          pending.push(child.getValue());
+        }
+      }
+    }
+    return best;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Levenshtein distance: insertions, deletions and substitutions needed to turn a into b
+   */
+  public static int distance(String a, String b) {
+    int[] previous = new int[b.length() + 1];
+    int[] current = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      current[0] = i;
+      for (int j = 1; j <= b.length(); j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+      }
+      int[] swap = previous;
+      previous = current;
+      current = swap;
+    }
+    return previous[b.length()];
+  }
+
+  /**
+   * Distance of the nearest words and their values; no values if nothing was within range
+   */
+  public static final class Match<V> {
+    private final int distance;
+    private final List<V> values;
+
+    private Match(int distance, List<V> values) {
+      this.distance = distance;
+      this.values = values;
+    }
+
+    public int getDistance() {
+      return distance;
+    }
+
+    public List<V> getValues() {
+      return values;
+    }
+  }
+
+  private static final class Node<V> {
+    private final String word;
+    private final V value;
+    private final Map<Integer, Node<V>> children = new HashMap<>(4);
+
+    private Node(String word, V value) {
+      this.word = word;
+      this.value = value;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.app.carpolling.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over strings.
+ *
+ * Answers "definitely not added" or "possibly added". Values are hashed with SHA-256 and the
+ * k bit positions are derived from it by double hashing, so callers cannot craft values that
+ * collide more often than chance. Sized for an expected number of values and false-positive
+ * probability; adding more values than expected only raises the false-positive rate.
+ */
+public class BloomFilter {
+
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  public BloomFilter(long expectedValues, double falsePositiveProbability) {
+    long n = Math.max(expectedValues, 1);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.min((m + 63) / 64, Integer.MAX_VALUE);
+    this.bits = new AtomicLongArray(Math.max(words, 1));
+    this.bitCount = (long) bits.length() * 64;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+  }
+
+  public void put(String value) {
+    long[] hashes = hash(value);
+    for (int i = 0; i < hashCount; i++) {
+      long bit = position(hashes, i);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = bits.get(word);
+        if ((current & mask) != 0) {
+          break;
+        }
+      } while (!bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  public boolean mightContain(String value) {
+    long[] hashes = hash(value);
+    for (int i = 0; i < hashCount; i++) {
+      long bit = position(hashes, i);
+      if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Current false-positive probability, estimated from the fraction of bits set
+   */
+  public double expectedFalsePositiveRate() {
+    long set = 0;
+    for (int i = 0; i < bits.length(); i++) {
+      set += Long.bitCount(bits.get(i));
+    }
+    return Math.pow((double) set / bitCount, hashCount);
+  }
+
+  public long memoryBytes() {
+    return (long) bits.length() * Long.BYTES;
+  }
+
+  private long position(long[] hashes, int i) {
+    return Math.floorMod(hashes[0] + i * hashes[1], bitCount);
+  }
+
+  private static long[] hash(String value) {
+    ByteBuffer digest = ByteBuffer.wrap(Hashing.sha256(value));
+    return new long[]{digest.getLong(), digest.getLong() | 1};
+  }
+}
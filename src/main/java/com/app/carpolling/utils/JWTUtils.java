@@ -1,6 +1,8 @@
 package com.app.carpolling.utils;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -23,6 +25,9 @@ public class JWTUtils {
   // keep this in vault
   private static final String SECRET = "rishi prasath is a good boy and very handsome boy";
   private static final Key secretKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+  
+  // Immutable and thread-safe, so one parser serves every request
+  private static final JwtParser parser = Jwts.parserBuilder().setSigningKey(secretKey).build();
 
   public String generateToken(String phoneNumber) {
     if (phoneNumber == null || phoneNumber.trim().isEmpty()) {
@@ -53,12 +58,7 @@ public class JWTUtils {
     
     logger.debug("Extracting phoneNumber from token");
     try {
-      String phoneNumber = Jwts.parserBuilder()
-          .setSigningKey(secretKey)
-          .build()
-          .parseClaimsJws(token)
-          .getBody()
-          .getSubject();
+      String phoneNumber = parser.parseClaimsJws(token).getBody().getSubject();
       
       if (phoneNumber == null || phoneNumber.trim().isEmpty()) {
         logger.error("Extracted phoneNumber from token is null or empty");
@@ -132,4 +132,27 @@ public class JWTUtils {
     }
   }
 
+  /**
+   * Parse and verify a token once, for callers that need both validation and claims
+   * @return verified claims with a non-empty subject, or null if the token is not valid
+   */
+  public Claims verifyToken(String token) {
+    if (token == null || token.trim().isEmpty() || token.length() < 10) {
+      logger.warn("Token verification failed: token is missing or too short");
+      return null;
+    }
+    
+    try {
+      Claims claims = parser.parseClaimsJws(token).getBody();
+      if (claims.getSubject() == null || claims.getSubject().trim().isEmpty()) {
+        logger.error("Token verification failed: subject (phoneNumber) is null or empty");
+        return null;
+      }
+      return claims;
+    } catch (JwtException | IllegalArgumentException e) {
+      logger.error("Token verification failed: {} - {}", e.getClass().getSimpleName(), e.getMessage());
+      return null;
+    }
+  }
+
 }
@@ -0,0 +1,60 @@
+package com.app.carpolling.utils;
+
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.exception.ErrorCode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset-paginated trip search: the (departureTime, tripId) of the
+ * last trip scanned, plus the end of the search window so later pages cover the same days.
+ */
+public final class SearchCursor {
+
+  private static final String VERSION = "v1";
+
+  private final LocalDateTime departureTime;
+  private final long tripId;
+  private final LocalDateTime windowEnd;
+
+  public SearchCursor(LocalDateTime departureTime, long tripId, LocalDateTime windowEnd) {
+    this.departureTime = departureTime;
+    this.tripId = tripId;
+    this.windowEnd = windowEnd;
+  }
+
+  public LocalDateTime getDepartureTime() {
+    return departureTime;
+  }
+
+  public long getTripId() {
+    return tripId;
+  }
+
+  public LocalDateTime getWindowEnd() {
+    return windowEnd;
+  }
+
+  public String encode() {
+    String value = VERSION + "|" + departureTime + "|" + tripId + "|" + windowEnd;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @throws BaseException INVALID_REQUEST if the token was not produced by encode()
+   */
+  public static SearchCursor decode(String token) {
+    try {
+      String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      String[] parts = value.split("\\|");
+      if (parts.length != 4 || !VERSION.equals(parts[0])) {
+        throw new IllegalArgumentException("Unknown cursor format");
+      }
+      return new SearchCursor(LocalDateTime.parse(parts[1]), Long.parseLong(parts[2]), LocalDateTime.parse(parts[3]));
+    } catch (RuntimeException e) {
+      throw new BaseException(ErrorCode.INVALID_REQUEST, "Invalid search cursor");
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.app.carpolling.cache;
+
+import com.app.carpolling.dto.RoutePriceEntry;
+import com.app.carpolling.repository.RoutePriceRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cached price matrices are read-only, and are reloaded once older than the TTL so prices set
+ * through another instance reach this one.
+ */
+class RoutePriceCacheTests {
+
+    private RoutePriceRepository repository;
+    private RoutePriceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RoutePriceRepository.class);
+        when(repository.findPriceEntriesByRouteId(7L)).thenReturn(List.of(
+            new RoutePriceEntry(1L, 2L, 150.0),
+            new RoutePriceEntry(1L, 3L, 300.0)
+        ));
+        cache = new RoutePriceCache(repository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxRoutes", 10);
+        ReflectionTestUtils.setField(cache, "ttlMillis", 60_000L);
+    }
+
+    @Test
+    void sharedMatricesCannotBeModified() {
+        Map<Long, Map<Long, Double>> matrix = cache.getMatrix(7L);
+        assertThrows(UnsupportedOperationException.class, () -> matrix.get(1L).put(2L, 1.0));
+        assertThrows(UnsupportedOperationException.class, () -> matrix.remove(1L));
+        assertEquals(Optional.of(150.0), cache.findPrice(7L, 1L, 2L));
+    }
+
+    @Test
+    void reloadsMatricesOlderThanTheTtl() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttlMillis", 1000L);
+        cache.findPrice(7L, 1L, 2L);
+        cache.findPrice(7L, 1L, 3L);
+        verify(repository, times(1)).findPriceEntriesByRouteId(7L);
+
+        // Changed through another instance: no local event, picked up after the TTL
+        when(repository.findPriceEntriesByRouteId(7L)).thenReturn(List.of(new RoutePriceEntry(1L, 2L, 175.0)));
+        Thread.sleep(1100);
+        assertEquals(Optional.of(175.0), cache.findPrice(7L, 1L, 2L));
+        verify(repository, times(2)).findPriceEntriesByRouteId(7L);
+    }
+}
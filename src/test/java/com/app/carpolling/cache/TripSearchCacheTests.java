@@ -0,0 +1,146 @@
+package com.app.carpolling.cache;
+
+import com.app.carpolling.dto.TripSearchResponse;
+import com.app.carpolling.event.RouteChangedEvent;
+import com.app.carpolling.event.TripSeatsChangedEvent;
+import com.app.carpolling.index.RouteStop;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Identical concurrent searches run the search once and all receive its result; seat and route
+ * changes drop exactly the results they affect.
+ */
+class TripSearchCacheTests {
+    
+    private static final LocalDate TRAVEL_DATE = LocalDate.of(2030, 1, 15);
+    
+    private TripSearchCache cache;
+    
+    @BeforeEach
+    void setUp() {
+        cache = new TripSearchCache(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "ttlMillis", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxTrips", 1000);
+        ReflectionTestUtils.setField(cache, "waitMillis", 10_000L);
+    }
+    
+    @Test
+    void concurrentIdenticalSearchesShareOneComputation() throws Exception {
+        int callers = 32;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<TripSearchResponse> result = List.of(new TripSearchResponse());
+        
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<TripSearchResponse>>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(pool.submit(() -> cache.get("Bangalore", "Chennai", TRAVEL_DATE, () -> {
+                    loads.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return new TripSearchCache.SearchResult(result, List.of(1L));
+                })));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread.sleep(200); // Let the other callers join the running search
+            release.countDown();
+            
+            List<TripSearchResponse> first = futures.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<List<TripSearchResponse>> future : futures) {
+                assertSame(first, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        assertEquals(1, loads.get());
+        assertEquals((callers - 1) / (double) callers, cache.coalescingRatio(), 1e-9);
+    }
+    
+    @Test
+    void differentDatesAreSearchedSeparately() {
+        AtomicInteger loads = new AtomicInteger();
+        search("Bangalore", "Chennai", TRAVEL_DATE, 1L, loads);
+        search("Bangalore", "Chennai", TRAVEL_DATE.plusDays(1), 1L, loads);
+        search("Bangalore", "Chennai", TRAVEL_DATE, 1L, loads);
+        
+        assertEquals(2, loads.get());
+    }
+    
+    @Test
+    void seatChangeDropsOnlyResultsOfThatRouteAndDate() {
+        AtomicInteger loads = new AtomicInteger();
+        search("Bangalore", "Chennai", TRAVEL_DATE, 1L, loads);
+        search("Bangalore", "Chennai", TRAVEL_DATE.plusDays(1), 1L, loads);
+        search("Mysore", "Coorg", TRAVEL_DATE, 2L, loads);
+        
+        cache.onTripSeatsChanged(new TripSeatsChangedEvent(10L, 1L, TRAVEL_DATE.atTime(9, 0)));
+        
+        search("Bangalore", "Chennai", TRAVEL_DATE, 1L, loads);
+        search("Bangalore", "Chennai", TRAVEL_DATE.plusDays(1), 1L, loads);
+        search("Mysore", "Coorg", TRAVEL_DATE, 2L, loads);
+        assertEquals(4, loads.get());
+    }
+    
+    @Test
+    void routeChangeDropsResultsOfCorridorsItServes() {
+        AtomicInteger loads = new AtomicInteger();
+        search("Bangalore", "Chennai", TRAVEL_DATE, 1L, loads);
+        search("Mysore", "Coorg", TRAVEL_DATE, 2L, loads);
+        
+        // A new route 3 now also serves Mysore -> Coorg
+        cache.onRouteChanged(new RouteChangedEvent(3L, true, List.of(
+            new RouteStop(3L, "Mysore", 1), new RouteStop(3L, "Coorg", 2))));
+        
+        search("Bangalore", "Chennai", TRAVEL_DATE, 1L, loads);
+        search("Mysore", "Coorg", TRAVEL_DATE, 2L, loads);
+        assertEquals(3, loads.get());
+    }
+    
+    @Test
+    void evictsLeastRecentlyUsedBeyondTripBudget() {
+        ReflectionTestUtils.setField(cache, "maxTrips", 2);
+        AtomicInteger loads = new AtomicInteger();
+        search("A", "B", TRAVEL_DATE, 1L, loads);
+        search("C", "D", TRAVEL_DATE, 1L, loads);
+        search("E", "F", TRAVEL_DATE, 1L, loads);
+        
+        assertEquals(2, cache.size());
+        search("A", "B", TRAVEL_DATE, 1L, loads);
+        assertEquals(4, loads.get());
+    }
+    
+    private void search(String boardingCity, String dropCity, LocalDate date, Long routeId, AtomicInteger loads) {
+        cache.get(boardingCity, dropCity, date, () -> {
+            loads.incrementAndGet();
+            return new TripSearchCache.SearchResult(List.of(new TripSearchResponse()), List.of(routeId));
+        });
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
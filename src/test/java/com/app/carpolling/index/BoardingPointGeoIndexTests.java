@@ -0,0 +1,106 @@
+package com.app.carpolling.index;
+
+import com.app.carpolling.event.RouteChangedEvent;
+import com.app.carpolling.repository.RoutePointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Nearest boarding point lookups: only points inside the radius are returned, nearest first, the
+ * limit keeps the closest ones, route changes re-index just that route, and concurrent first
+ * lookups share one load.
+ */
+class BoardingPointGeoIndexTests {
+    
+    private RoutePointRepository repository;
+    private BoardingPointGeoIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        repository = mock(RoutePointRepository.class);
+        when(repository.findActiveBoardingGeoPoints()).thenReturn(List.of(
+            point(1L, 10L, "Silk Board", 12.9172, 77.6229),
+            point(2L, 10L, "Electronic City", 12.8452, 77.6602),
+            point(3L, 11L, "Madiwala", 12.9226, 77.6174),
+            point(4L, 12L, "T Nagar", 13.0418, 80.2341)
+        ));
+        index = new BoardingPointGeoIndex(repository);
+        index.rebuild();
+    }
+    
+    @Test
+    void returnsPointsWithinRadiusNearestFirst() {
+        List<BoardingPointGeoIndex.Nearby> nearby = index.findNearest(12.9180, 77.6220, 2000, 10);
+        
+        assertEquals(List.of(1L, 3L), pointIds(nearby));
+        assertTrue(nearby.get(0).getDistanceMeters() < 200);
+        assertEquals(List.of(1L, 3L, 2L), pointIds(index.findNearest(12.9180, 77.6220, 15000, 10)));
+        assertEquals(List.of(1L), pointIds(index.findNearest(12.9180, 77.6220, 15000, 1)));
+        assertEquals(List.of(), pointIds(index.findNearest(15.0, 75.0, 5000, 10)));
+    }
+    
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        RoutePointRepository slowRepository = mock(RoutePointRepository.class);
+        CountDownLatch loading = new CountDownLatch(1);
+        when(slowRepository.findActiveBoardingGeoPoints()).thenAnswer(invocation -> {
+            loading.countDown();
+            Thread.sleep(200);
+            return List.of(point(1L, 10L, "Silk Board", 12.9172, 77.6229));
+        });
+        BoardingPointGeoIndex cold = new BoardingPointGeoIndex(slowRepository);
+        
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<Long>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> {
+                    cold.ensureReady();
+                    return pointIds(cold.findNearest(12.9180, 77.6220, 2000, 10));
+                }));
+                loading.await();
+            }
+            for (Future<List<Long>> result : results) {
+                assertEquals(List.of(1L), result.get());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        verify(slowRepository, times(1)).findActiveBoardingGeoPoints();
+    }
+    
+    @Test
+    void reindexesChangedRoutesOnly() {
+        when(repository.findBoardingGeoPointsByRouteId(11L)).thenReturn(List.of(
+            point(5L, 11L, "Koramangala", 12.9352, 77.6245)
+        ));
+        index.onRouteChanged(new RouteChangedEvent(11L, true, List.of()));
+        assertEquals(List.of(1L, 5L), pointIds(index.findNearest(12.9180, 77.6220, 2500, 10)));
+        
+        index.onRouteChanged(new RouteChangedEvent(10L, false, List.of()));
+        assertEquals(List.of(5L), pointIds(index.findNearest(12.9180, 77.6220, 2500, 10)));
+        assertEquals(List.of(4L), pointIds(index.findNearest(13.0418, 80.2341, 100, 10)));
+    }
+    
+    private static GeoPoint point(Long pointId, Long routeId, String name, double latitude, double longitude) {
+        return new GeoPoint(pointId, routeId, "Route " + routeId, "City", name, name, latitude, longitude, 0);
+    }
+    
+    private static List<Long> pointIds(List<BoardingPointGeoIndex.Nearby> nearby) {
+        return nearby.stream().map(n -> n.getPoint().getPointId()).toList();
+    }
+}
@@ -0,0 +1,77 @@
+package com.app.carpolling.index;
+
+import com.app.carpolling.repository.RoutePointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Prefix matching of the autocomplete index: case and accents are ignored, every word of a name
+ * can be matched, boarding/drop flags filter, and results come back in display order. Misspelt
+ * cities resolve to the nearest canonical name.
+ */
+class LocationAutocompleteIndexTests {
+    
+    private LocationAutocompleteIndex index;
+    
+    @BeforeEach
+    void setUp() {
+        RoutePointRepository repository = mock(RoutePointRepository.class);
+        when(repository.findAllLocationPoints()).thenReturn(List.of(
+            new LocationPoint(1L, 10L, "Bangalore", "Silk Board", true, false),
+            new LocationPoint(2L, 10L, "Bangalore", "Electronic City", true, true),
+            new LocationPoint(3L, 10L, "Chennai", "T Nagar", false, true),
+            new LocationPoint(4L, 11L, "Belagavi", "Central", true, true),
+            new LocationPoint(5L, 11L, "Pondichéry", "Beach Road", false, true)
+        ));
+        index = new LocationAutocompleteIndex(repository);
+        index.rebuild();
+    }
+    
+    @Test
+    void matchesCityPrefixIgnoringCaseAndAccents() {
+        assertEquals(List.of("Bangalore", "Belagavi"), index.searchCities("b", false, false, 10));
+        assertEquals(List.of("Bangalore"), index.searchCities("BAN", false, false, 10));
+        assertEquals(List.of("Pondichéry"), index.searchCities("pondichery", false, false, 10));
+        assertEquals(List.of("Bangalore"), index.searchCities("b", false, false, 1));
+        assertEquals(List.of("Chennai"), index.searchCities("c", false, true, 10));
+        assertEquals(List.of(), index.searchCities("p", true, false, 10));
+    }
+    
+    @Test
+    void matchesAnyWordOfPointNames() {
+        assertEquals(List.of(1L), index.searchPoints("board", true, false, 10));
+        assertEquals(List.of(1L), index.searchPoints("silk b", true, false, 10));
+        assertEquals(List.of(2L, 1L), index.searchPoints("bangalore", true, false, 10));
+        assertEquals(List.of(2L, 4L, 3L), index.searchPoints("c", false, true, 10));
+        assertEquals(List.of(), index.searchPoints("oard", true, true, 10));
+    }
+    
+    @Test
+    void listsSubLocationsByCity() {
+        assertEquals(List.of("Electronic City", "Silk Board"), index.getSubLocations("Bangalore", true));
+        assertEquals(List.of("Electronic City"), index.getSubLocations("Bangalore", false));
+        assertEquals(List.of("Bangalore", "Belagavi"), index.getCities(true, false));
+    }
+    
+    @Test
+    void resolvesMisspeltCities() {
+        assertEquals("Bangalore", index.resolveCity("Bangalore", 3));
+        assertEquals("Bangalore", index.resolveCity("bangalore", 3));
+        assertEquals("Bangalore", index.resolveCity("Banglore", 3));
+        assertEquals("Bangalore", index.resolveCity("Bengaluru", 3));
+        assertEquals("Chennai", index.resolveCity("chenai", 3));
+        assertEquals("Pondichéry", index.resolveCity("pondichery", 3));
+        // A sub-location of a single city stands for that city
+        assertEquals("Bangalore", index.resolveCity("silk bord", 3));
+        // Too far from anything, or too short to correct safely
+        assertNull(index.resolveCity("Mumbai", 3));
+        assertNull(index.resolveCity("Be", 3));
+    }
+}
@@ -0,0 +1,194 @@
+package com.app.carpolling.inventory;
+
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.exception.ErrorCode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes of one trip run one at a time on the trip's worker; a full queue or a nested write
+ * falls back to the caller's thread.
+ */
+class TripWriteExecutorTests {
+
+    private SimpleMeterRegistry meterRegistry;
+    private TripWriteExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new TripWriteExecutor(meterRegistry);
+        ReflectionTestUtils.setField(executor, "enabled", true);
+        ReflectionTestUtils.setField(executor, "workers", 2);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 1);
+        ReflectionTestUtils.setField(executor, "waitMillis", 10_000L);
+        executor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.stop();
+    }
+
+    @Test
+    void writesOfOneTripNeverOverlap() throws Exception {
+        ReflectionTestUtils.setField(executor, "queueCapacity", 64);
+        executor.stop();
+        executor.start();
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            results.add(callers.submit(() -> executor.execute(7L, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(2);
+                running.decrementAndGet();
+                return Thread.currentThread().getName();
+            })));
+        }
+        for (Future<String> result : results) {
+            assertTrue(result.get(10, TimeUnit.SECONDS).startsWith("trip-writer-"));
+        }
+        callers.shutdown();
+
+        assertEquals(1, maxRunning.get());
+        assertEquals(32.0, tasks("queued"));
+    }
+
+    @Test
+    void fullQueueRunsTheWriteOnTheCaller() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> blocking = () -> {
+            started.countDown();
+            await(release);
+            return "blocked";
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        Future<String> running = callers.submit(() -> executor.execute(4L, blocking));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<String> queued = callers.submit(() -> executor.execute(4L, blocking));
+        while (executor.queueDepth() < 1) {
+            Thread.sleep(1);
+        }
+
+        String caller = Thread.currentThread().getName();
+        assertEquals(caller, executor.execute(4L, () -> Thread.currentThread().getName()));
+        assertEquals(1.0, tasks("fallback"));
+
+        release.countDown();
+        assertEquals("blocked", running.get(5, TimeUnit.SECONDS));
+        assertEquals("blocked", queued.get(5, TimeUnit.SECONDS));
+        callers.shutdown();
+    }
+
+    @Test
+    void fullQueueIsRejectedWhenConfigured() throws Exception {
+        ReflectionTestUtils.setField(executor, "rejectWhenFull", true);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> blocking = () -> {
+            started.countDown();
+            await(release);
+            return "blocked";
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        callers.submit(() -> executor.execute(4L, blocking));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> executor.execute(4L, blocking));
+        while (executor.queueDepth() < 1) {
+            Thread.sleep(1);
+        }
+
+        BaseException rejected = assertThrows(BaseException.class, () -> executor.execute(4L, () -> "late"));
+        assertEquals(ErrorCode.TOO_MANY_REQUESTS, rejected.getErrorCode());
+
+        release.countDown();
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void nestedWriteRunsOnTheSameWorker() {
+        String[] threads = executor.execute(1L, () -> new String[]{
+            Thread.currentThread().getName(),
+            executor.execute(2L, () -> Thread.currentThread().getName())
+        });
+
+        assertEquals(threads[0], threads[1]);
+        assertEquals(1.0, tasks("direct"));
+    }
+
+    @Test
+    void executeAllWaitsForEveryTripAndRethrowsTheFirstFailure() {
+        AtomicInteger completed = new AtomicInteger();
+        Map<Long, Supplier<Integer>> writes = new LinkedHashMap<>();
+        writes.put(1L, () -> {
+            sleep(20);
+            return completed.incrementAndGet();
+        });
+        writes.put(2L, () -> {
+            throw new BaseException(ErrorCode.INVALID_REQUEST, "bad trip");
+        });
+        writes.put(3L, completed::incrementAndGet);
+
+        BaseException failure = assertThrows(BaseException.class, () -> executor.executeAll(writes));
+        assertEquals("bad trip", failure.getMessage());
+        assertEquals(2, completed.get());
+
+        writes.remove(2L);
+        assertEquals(2, executor.executeAll(writes).size());
+    }
+
+    @Test
+    void disabledModeRunsOnTheCaller() {
+        executor.stop();
+
+        assertFalse(executor.isEnabled());
+        assertEquals(Thread.currentThread().getName(), executor.execute(1L, () -> Thread.currentThread().getName()));
+    }
+
+    private double tasks(String path) {
+        return meterRegistry.get("booking.writer.tasks").tag("path", path).functionCounter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.entity.RoutePoint;
+import com.app.carpolling.index.LocationAutocompleteIndex;
+import com.app.carpolling.repository.DriverRepository;
+import com.app.carpolling.repository.UserRepository;
+import com.app.carpolling.repository.VehicleRepository;
+import com.app.carpolling.support.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The autocomplete endpoints answer the same while the location index is still being built: the
+ * database fallback matches word prefixes and applies search.autocomplete.max-results too.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AutocompleteFallbackTests {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DriverRepository driverRepository;
+    
+    @Autowired
+    private VehicleRepository vehicleRepository;
+    
+    @Autowired
+    private RouteService routeService;
+    
+    @Autowired
+    private TripService tripService;
+    
+    @Autowired
+    private LocationAutocompleteIndex locationIndex;
+    
+    private String suffix;
+    
+    @BeforeEach
+    void setUp() {
+        TestDataFactory factory = new TestDataFactory(
+            userRepository, driverRepository, vehicleRepository, routeService, tripService);
+        suffix = String.valueOf(TestDataFactory.nextId());
+        factory.route(factory.driver(), 80.0, "Navi Mumbai" + suffix, "Ambernath" + suffix, "Mumbra" + suffix);
+        locationIndex.rebuild();
+    }
+    
+    @Test
+    void fallbackMatchesTheIndex() {
+        assertEquals(List.of("Mumbra" + suffix, "Navi Mumbai" + suffix), bothWays(() -> routeService.searchCities("mumb")));
+        assertEquals(List.of(), bothWays(() -> routeService.searchCities("umbra" + suffix)));
+        assertEquals(List.of("Mumbra" + suffix), bothWays(() -> routeService.searchCities("MUMBRA" + suffix)));
+        
+        assertEquals(List.of("Navi Mumbai" + suffix),
+            bothWays(() -> cities(routeService.searchBoardingPoints("mumbai" + suffix))));
+        assertTrue(bothWays(() -> cities(routeService.searchDropPoints("mumbra" + suffix))).contains("Mumbra" + suffix));
+        
+        ReflectionTestUtils.setField(routeService, "maxAutocompleteResults", 1);
+        try {
+            assertEquals(1, bothWays(() -> routeService.searchCities("mumb")).size());
+        } finally {
+            ReflectionTestUtils.setField(routeService, "maxAutocompleteResults", 20);
+        }
+    }
+    
+    private <T> T bothWays(Supplier<T> search) {
+        T fromIndex = search.get();
+        ReflectionTestUtils.setField(locationIndex, "ready", false);
+        try {
+            assertEquals(fromIndex, search.get(), "Database fallback differs from the index");
+        } finally {
+            ReflectionTestUtils.setField(locationIndex, "ready", true);
+        }
+        return fromIndex;
+    }
+    
+    private static List<String> cities(List<RoutePoint> points) {
+        return points.stream().map(RoutePoint::getCity).toList();
+    }
+}
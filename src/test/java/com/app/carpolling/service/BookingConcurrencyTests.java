@@ -0,0 +1,306 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.dto.BookingRequest;
+import com.app.carpolling.dto.BookingSeatRow;
+import com.app.carpolling.entity.Booking;
+import com.app.carpolling.entity.BookingStatus;
+import com.app.carpolling.entity.Route;
+import com.app.carpolling.entity.Trip;
+import com.app.carpolling.entity.TripSeat;
+import com.app.carpolling.entity.User;
+import com.app.carpolling.entity.UserRole;
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.exception.ErrorCode;
+import com.app.carpolling.inventory.SegmentMask;
+import com.app.carpolling.inventory.TripWriteExecutor;
+import com.app.carpolling.repository.BookingRepository;
+import com.app.carpolling.repository.DriverRepository;
+import com.app.carpolling.repository.TripRepository;
+import com.app.carpolling.repository.TripSeatRepository;
+import com.app.carpolling.repository.UserRepository;
+import com.app.carpolling.repository.VehicleRepository;
+import com.app.carpolling.support.TestDataFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress test of the seat counters: many threads book and cancel overlapping legs of one trip
+ * at once, and afterwards the trip's availableSeats/bookedSeats must still match trip_seats and
+ * the active bookings exactly, with no seat sold twice on any segment. The same holds with the
+ * single-writer mode switched on, including for an expiry sweep split by trip, and when
+ * confirmations race the expiry of the same holds.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookingConcurrencyTests {
+    
+    private static final int THREADS = 8;
+    private static final int ATTEMPTS_PER_THREAD = 15;
+    private static final int SEATS = 6;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DriverRepository driverRepository;
+    
+    @Autowired
+    private VehicleRepository vehicleRepository;
+    
+    @Autowired
+    private TripRepository tripRepository;
+    
+    @Autowired
+    private TripSeatRepository tripSeatRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private RouteService routeService;
+    
+    @Autowired
+    private TripService tripService;
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private TripWriteExecutor tripWriteExecutor;
+    
+    @Test
+    void countersNeverDriftFromSeatsUnderConcurrentBookings() throws InterruptedException {
+        String[] cities = cities();
+        Trip trip = createTrip(cities);
+        stress(trip, cities);
+        assertCountersMatchSeats(trip);
+    }
+    
+    @Test
+    void countersNeverDriftWithSingleWriter() throws InterruptedException {
+        ReflectionTestUtils.setField(tripWriteExecutor, "enabled", true);
+        ReflectionTestUtils.setField(tripWriteExecutor, "workers", 2);
+        tripWriteExecutor.start();
+        try {
+            String[] cities = cities();
+            String[] otherCities = cities();
+            Trip trip = createTrip(cities);
+            Trip other = createTrip(otherCities);
+            stress(trip, cities);
+            stress(other, otherCities);
+            assertCountersMatchSeats(trip);
+            assertCountersMatchSeats(other);
+            
+            // Expire every remaining hold of both trips in one chunk
+            List<Long> pending = new ArrayList<>();
+            for (Trip expiring : List.of(trip, other)) {
+                for (Booking booking : bookingRepository.findByTripIdAndStatus(expiring.getId(), BookingStatus.PENDING)) {
+                    booking.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+                    bookingRepository.save(booking);
+                    pending.add(booking.getId());
+                }
+            }
+            assertEquals(pending.size(), bookingService.expireBookings(pending));
+            assertCountersMatchSeats(trip);
+            assertCountersMatchSeats(other);
+            assertEquals(SEATS, tripRepository.findById(trip.getId()).orElseThrow().getAvailableSeats());
+        } finally {
+            tripWriteExecutor.stop();
+            ReflectionTestUtils.setField(tripWriteExecutor, "enabled", false);
+        }
+    }
+    
+    @Test
+    void confirmationRacingAnExpiryNeverKeepsReleasedSeats() throws Exception {
+        String[] cities = cities();
+        Trip trip = createTrip(cities);
+        TestDataFactory factory = new TestDataFactory(
+            userRepository, driverRepository, vehicleRepository, routeService, tripService);
+        User passenger = factory.user(UserRole.PASSENGER);
+        
+        // One hold per seat, each raced by a confirmation and an expiry
+        List<Long> holds = new ArrayList<>();
+        for (int seat = 1; seat <= SEATS; seat++) {
+            holds.add(bookingService.createBooking(BookingRequest.builder()
+                .userId(passenger.getId())
+                .tripId(trip.getId())
+                .boardingCity(cities[0]).boardingSubLocation("Central")
+                .dropCity(cities[2]).dropSubLocation("Central")
+                .seatNumbers(List.of("S" + seat))
+                .passengerNames("Passenger").passengerContacts("9000000000")
+                .build()).getId());
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(2 * SEATS);
+        Map<Long, Future<Boolean>> confirmed = new HashMap<>();
+        Map<Long, Future<Boolean>> expired = new HashMap<>();
+        for (Long bookingId : holds) {
+            // Both threads are released together just as the hold is set to run out within a
+            // few milliseconds, so the confirmation lands on either side of the deadline
+            CyclicBarrier start = new CyclicBarrier(2, () -> {
+                Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+                booking.setExpiresAt(LocalDateTime.now().plusNanos(ThreadLocalRandom.current().nextLong(5_000_000L)));
+                bookingRepository.save(booking);
+            });
+            confirmed.put(bookingId, executor.submit(() -> {
+                start.await(1, TimeUnit.MINUTES);
+                try {
+                    bookingService.confirmBooking(bookingId);
+                    return true;
+                } catch (BaseException e) {
+                    assertEquals(ErrorCode.BOOKING_NOT_PENDING, e.getErrorCode());
+                    return false;
+                }
+            }));
+            expired.put(bookingId, executor.submit(() -> {
+                start.await(1, TimeUnit.MINUTES);
+                // Keep trying until the hold runs out, unless it was confirmed or swept first
+                while (bookingRepository.findStatus(bookingId).orElseThrow() == BookingStatus.PENDING) {
+                    if (bookingService.expireBooking(bookingId)) {
+                        return true;
+                    }
+                    Thread.onSpinWait();
+                }
+                return false;
+            }));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        
+        for (Long bookingId : holds) {
+            boolean wasConfirmed = confirmed.get(bookingId).get();
+            assertFalse(wasConfirmed && expired.get(bookingId).get(),
+                "Booking " + bookingId + " both confirmed and expired");
+            // Otherwise expired by its racer, or swept by the scheduler first
+            assertEquals(wasConfirmed ? BookingStatus.CONFIRMED : BookingStatus.CANCELLED,
+                bookingRepository.findById(bookingId).orElseThrow().getStatus());
+        }
+        assertCountersMatchSeats(trip);
+    }
+    
+    private static String[] cities() {
+        String suffix = String.valueOf(TestDataFactory.nextId());
+        return new String[]{"Salem" + suffix, "Erode" + suffix, "Coimbatore" + suffix};
+    }
+    
+    private Trip createTrip(String[] cities) {
+        TestDataFactory factory = new TestDataFactory(
+            userRepository, driverRepository, vehicleRepository, routeService, tripService);
+        Route route = factory.route(factory.driver(), 250.0, cities);
+        return factory.trip(route, factory.vehicle(factory.driver(), SEATS), LocalDateTime.now().plusDays(2));
+    }
+    
+    private void stress(Trip trip, String[] cities) throws InterruptedException {
+        TestDataFactory factory = new TestDataFactory(
+            userRepository, driverRepository, vehicleRepository, routeService, tripService);
+        User passenger = factory.user(UserRole.PASSENGER);
+        
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    int boarding = random.nextInt(2);
+                    int drop = boarding + 1 + random.nextInt(2 - boarding);
+                    List<String> seats = randomSeats(random);
+                    try {
+                        Booking booking = bookingService.createBooking(BookingRequest.builder()
+                            .userId(passenger.getId())
+                            .tripId(trip.getId())
+                            .boardingCity(cities[boarding]).boardingSubLocation("Central")
+                            .dropCity(cities[drop]).dropSubLocation("Central")
+                            .seatNumbers(seats)
+                            .passengerNames("Passenger").passengerContacts("9000000000")
+                            .build());
+                        booked.incrementAndGet();
+                        if (random.nextBoolean()) {
+                            bookingService.cancelBooking(booking.getId());
+                        }
+                    } catch (BaseException | DataAccessException e) {
+                        rejected.incrementAndGet(); // Seat taken, or conflict retries exhausted
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(2, TimeUnit.MINUTES));
+        assertTrue(failures.isEmpty(), () -> "Unexpected failures: " + failures);
+        assertTrue(booked.get() > 0);
+    }
+    
+    private void assertCountersMatchSeats(Trip trip) {
+        // Legs held by active bookings, per seat
+        List<Long> activeBookings = new ArrayList<>();
+        for (BookingStatus status : List.of(BookingStatus.PENDING, BookingStatus.CONFIRMED)) {
+            bookingRepository.findByTripIdAndStatus(trip.getId(), status)
+                .forEach(booking -> activeBookings.add(booking.getId()));
+        }
+        Map<String, Long> expectedOccupancy = new HashMap<>();
+        int activeSeats = 0;
+        if (!activeBookings.isEmpty()) {
+            for (BookingSeatRow row : bookingRepository.findSeatRows(activeBookings)) {
+                long leg = SegmentMask.of(row.getBoardingSequenceOrder(), row.getDropSequenceOrder());
+                long held = expectedOccupancy.getOrDefault(row.getSeatNumber(), 0L);
+                assertEquals(0L, held & leg, "Seat " + row.getSeatNumber() + " sold twice on a segment");
+                expectedOccupancy.put(row.getSeatNumber(), held | leg);
+                activeSeats++;
+            }
+        }
+        
+        int freeSeats = 0;
+        for (TripSeat seat : tripSeatRepository.findByTripId(trip.getId())) {
+            if (seat.getIsDriverSeat()) {
+                continue;
+            }
+            long occupancy = seat.getOccupiedSegments();
+            assertEquals(expectedOccupancy.getOrDefault(seat.getSeatNumber(), 0L), occupancy,
+                "Segments of seat " + seat.getSeatNumber());
+            assertEquals(occupancy == 0, seat.getIsAvailable());
+            if (occupancy == 0) {
+                freeSeats++;
+            }
+        }
+        
+        Trip reloaded = tripRepository.findById(trip.getId()).orElseThrow();
+        assertEquals(freeSeats, reloaded.getAvailableSeats(), "availableSeats drifted from trip_seats");
+        assertEquals(activeSeats, reloaded.getBookedSeats(), "bookedSeats drifted from active bookings");
+        assertTrue(reloaded.getVersion() > 0);
+    }
+    
+    private static List<String> randomSeats(ThreadLocalRandom random) {
+        List<String> seats = new ArrayList<>();
+        for (int i = 1; i <= SEATS; i++) {
+            seats.add("S" + i);
+        }
+        Collections.shuffle(seats, random);
+        return new ArrayList<>(seats.subList(0, 1 + random.nextInt(2)));
+    }
+}
@@ -0,0 +1,103 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.dto.ConnectionItinerary;
+import com.app.carpolling.dto.ConnectionSearchRequest;
+import com.app.carpolling.dto.ConnectionSearchResponse;
+import com.app.carpolling.entity.Route;
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.repository.DriverRepository;
+import com.app.carpolling.repository.UserRepository;
+import com.app.carpolling.repository.VehicleRepository;
+import com.app.carpolling.support.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Two-trip connections: second trips are only offered inside the layover window after the
+ * first trip reaches the transfer city, results come back best first by arrival or price, and
+ * both legs need the requested seats.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ConnectionSearchTests {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DriverRepository driverRepository;
+    
+    @Autowired
+    private VehicleRepository vehicleRepository;
+    
+    @Autowired
+    private RouteService routeService;
+    
+    @Autowired
+    private TripService tripService;
+    
+    private TestDataFactory factory;
+    private String boarding;
+    private String transfer;
+    private String drop;
+    private LocalDateTime morning;
+    
+    @BeforeEach
+    void setUp() {
+        factory = new TestDataFactory(userRepository, driverRepository, vehicleRepository, routeService, tripService);
+        String suffix = String.valueOf(TestDataFactory.nextId());
+        boarding = "Hubli" + suffix;
+        transfer = "Davangere" + suffix;
+        drop = "Tumkur" + suffix;
+        morning = LocalDateTime.now().plusDays(1).withHour(8).withMinute(0).withSecond(0).withNano(0);
+        
+        // Every leg takes 60 minutes; the first trip reaches the transfer city at 09:00
+        Route first = factory.route(factory.driver(), 300.0, boarding, transfer);
+        Route second = factory.route(factory.driver(), 200.0, transfer, drop);
+        Route cheaper = factory.route(factory.driver(), 100.0, transfer, drop);
+        factory.trip(first, factory.vehicle(factory.driver(), 4), morning);
+        for (int minutes : new int[]{65, 90, 180, 360}) {
+            factory.trip(second, factory.vehicle(factory.driver(), 4), morning.plusMinutes(minutes));
+        }
+        factory.trip(cheaper, factory.vehicle(factory.driver(), 4), morning.plusMinutes(240));
+    }
+    
+    @Test
+    void ranksConnectionsInsideLayoverWindow() {
+        ConnectionSearchResponse byArrival = tripService.searchConnections(request("ARRIVAL", 1, 10));
+        assertTrue(byArrival.isComplete());
+        assertEquals(List.of(morning.plusMinutes(150), morning.plusMinutes(240), morning.plusMinutes(300)),
+            byArrival.getItineraries().stream().map(ConnectionItinerary::getArrivalTime).toList());
+        ConnectionItinerary earliest = byArrival.getItineraries().get(0);
+        assertEquals(transfer, earliest.getTransferCity());
+        assertEquals(30, earliest.getLayoverMinutes());
+        assertEquals(150, earliest.getDuration());
+        assertEquals(500.0, earliest.getPrice());
+        assertEquals(2, earliest.getLegs().size());
+        
+        ConnectionSearchResponse byPrice = tripService.searchConnections(request("PRICE", 1, 2));
+        assertEquals(List.of(400.0, 500.0),
+            byPrice.getItineraries().stream().map(ConnectionItinerary::getPrice).toList());
+        assertEquals(morning.plusMinutes(300), byPrice.getItineraries().get(0).getArrivalTime());
+    }
+    
+    @Test
+    void requiresSeatsOnBothLegs() {
+        assertEquals(List.of(), tripService.searchConnections(request("ARRIVAL", 5, 10)).getItineraries());
+        assertThrows(BaseException.class, () -> tripService.searchConnections(request("FASTEST", 1, 10)));
+    }
+    
+    private ConnectionSearchRequest request(String sortBy, int requiredSeats, int limit) {
+        return new ConnectionSearchRequest(boarding, drop, morning.toLocalDate(), requiredSeats, null, null, sortBy, limit);
+    }
+}
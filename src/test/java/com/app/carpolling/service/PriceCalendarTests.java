@@ -0,0 +1,109 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.dto.BookingRequest;
+import com.app.carpolling.dto.PriceCalendarDay;
+import com.app.carpolling.entity.Route;
+import com.app.carpolling.entity.Trip;
+import com.app.carpolling.entity.User;
+import com.app.carpolling.entity.UserRole;
+import com.app.carpolling.repository.DriverRepository;
+import com.app.carpolling.repository.TripRepository;
+import com.app.carpolling.repository.UserRepository;
+import com.app.carpolling.repository.VehicleRepository;
+import com.app.carpolling.support.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The price calendar counts seats on the requested leg like searchTrips, so seats booked only on
+ * another part of the route still show as bookable.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PriceCalendarTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private RouteService routeService;
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    private String[] cities;
+    private Trip trip;
+    private LocalDate travelDate;
+
+    @BeforeEach
+    void setUp() {
+        TestDataFactory factory = new TestDataFactory(
+            userRepository, driverRepository, vehicleRepository, routeService, tripService);
+        String suffix = String.valueOf(TestDataFactory.nextId());
+        cities = new String[]{"Nellore" + suffix, "Ongole" + suffix, "Guntur" + suffix};
+        Route route = factory.route(factory.driver(), 90.0, cities);
+        travelDate = LocalDate.now().plusDays(4);
+        trip = factory.trip(route, factory.vehicle(factory.driver(), 2), travelDate.atTime(9, 0));
+
+        // Both seats taken on the first segment only
+        User passenger = factory.user(UserRole.PASSENGER);
+        bookingService.createBooking(BookingRequest.builder()
+            .userId(passenger.getId())
+            .tripId(trip.getId())
+            .boardingCity(cities[0]).boardingSubLocation("Central")
+            .dropCity(cities[1]).dropSubLocation("Central")
+            .seatNumbers(List.of("S1", "S2"))
+            .passengerNames("Passenger").passengerContacts("9000000000")
+            .build());
+    }
+
+    @Test
+    void seatsBookedOnADisjointLegStillCount() {
+        assertEquals(0, tripRepository.findById(trip.getId()).orElseThrow().getAvailableSeats());
+
+        PriceCalendarDay day = day(cities[1], cities[2], 1);
+        assertEquals(90.0, day.getCheapestPrice());
+        assertEquals(LocalDateTime.of(travelDate, trip.getDepartureTime().toLocalTime()), day.getEarliestDeparture());
+        assertEquals(2L, day.getSeatsLeft());
+        assertEquals(1L, day.getTripCount());
+        assertEquals(2, tripService.getSeatAvailability(trip.getId(), cities[1], cities[2]).getAvailableSeats());
+    }
+
+    @Test
+    void legsWithoutEnoughSeatsAreLeftOut() {
+        PriceCalendarDay overlapping = day(cities[0], cities[2], 1);
+        assertNull(overlapping.getCheapestPrice());
+        assertEquals(0L, overlapping.getTripCount());
+
+        PriceCalendarDay tooFew = day(cities[1], cities[2], 3);
+        assertEquals(0L, tooFew.getSeatsLeft());
+    }
+
+    private PriceCalendarDay day(String boardingCity, String dropCity, int requiredSeats) {
+        List<PriceCalendarDay> calendar = tripService.getPriceCalendar(boardingCity, dropCity, travelDate, 1, requiredSeats);
+        assertEquals(1, calendar.size());
+        return calendar.get(0);
+    }
+}
@@ -0,0 +1,124 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.dto.BookingRequest;
+import com.app.carpolling.entity.Booking;
+import com.app.carpolling.entity.Route;
+import com.app.carpolling.entity.Trip;
+import com.app.carpolling.entity.User;
+import com.app.carpolling.entity.UserRole;
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.exception.ErrorCode;
+import com.app.carpolling.repository.DriverRepository;
+import com.app.carpolling.repository.TripRepository;
+import com.app.carpolling.repository.UserRepository;
+import com.app.carpolling.repository.VehicleRepository;
+import com.app.carpolling.support.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Bookings by seat count: the server picks free seats on the leg, the shortest run of adjacent
+ * seats that fits the group first, and splits a group only when no run fits.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SeatAllocationTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private TripRepository tripRepository;
+
+    @Autowired
+    private RouteService routeService;
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    private String[] cities;
+    private Trip trip;
+    private User passenger;
+
+    @BeforeEach
+    void setUp() {
+        TestDataFactory factory = new TestDataFactory(
+            userRepository, driverRepository, vehicleRepository, routeService, tripService);
+        String suffix = String.valueOf(TestDataFactory.nextId());
+        cities = new String[]{"Madurai" + suffix, "Dindigul" + suffix, "Trichy" + suffix};
+        Route route = factory.route(factory.driver(), 180.0, cities);
+        trip = factory.trip(route, factory.vehicle(factory.driver(), 6), LocalDateTime.now().plusDays(3));
+        passenger = factory.user(UserRole.PASSENGER);
+    }
+
+    @Test
+    void groupsGetAdjacentSeatsAndSplitOnlyWhenNothingFits() {
+        book(List.of("S2"), null);
+        book(List.of("S5"), null);
+
+        // Free runs are S1, S3-S4 and S6; the pair fits only in S3-S4
+        assertEquals(List.of("S3", "S4"), book(null, 2).getSeatNumbers());
+
+        // No two adjacent seats are left
+        Booking split = book(null, 2);
+        assertEquals(List.of("S1", "S6"), split.getSeatNumbers());
+        assertEquals(2, split.getNumberOfSeats());
+
+        BaseException full = assertThrows(BaseException.class, () -> book(null, 1));
+        assertEquals(ErrorCode.NOT_ENOUGH_SEATS, full.getErrorCode());
+        assertEquals(0, tripRepository.findById(trip.getId()).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void seatsTakenOnOtherLegsAreReused() {
+        // First segment only, on S1-S3
+        book(List.of("S1", "S2", "S3"), null, cities[0], cities[1]);
+
+        // The second segment still has all six seats in one run
+        assertEquals(List.of("S1", "S2", "S3", "S4"), book(null, 4, cities[1], cities[2]).getSeatNumbers());
+        assertEquals(List.of("S4", "S5"), book(null, 2, cities[0], cities[1]).getSeatNumbers());
+    }
+
+    @Test
+    void seatNumbersOrCountAreRequired() {
+        BaseException missing = assertThrows(BaseException.class, () -> book(null, null));
+        assertEquals(ErrorCode.INVALID_REQUEST, missing.getErrorCode());
+
+        BaseException mismatch = assertThrows(BaseException.class, () -> book(List.of("S1"), 2));
+        assertEquals(ErrorCode.INVALID_REQUEST, mismatch.getErrorCode());
+    }
+
+    private Booking book(List<String> seatNumbers, Integer numberOfSeats) {
+        return book(seatNumbers, numberOfSeats, cities[0], cities[2]);
+    }
+
+    private Booking book(List<String> seatNumbers, Integer numberOfSeats, String boarding, String drop) {
+        return bookingService.createBooking(BookingRequest.builder()
+            .userId(passenger.getId())
+            .tripId(trip.getId())
+            .boardingCity(boarding).boardingSubLocation("Central")
+            .dropCity(drop).dropSubLocation("Central")
+            .seatNumbers(seatNumbers)
+            .numberOfSeats(numberOfSeats)
+            .passengerNames("Passenger").passengerContacts("9000000000")
+            .build());
+    }
+}
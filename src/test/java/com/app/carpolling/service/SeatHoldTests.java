@@ -0,0 +1,173 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.dto.BookingRequest;
+import com.app.carpolling.dto.SeatAvailabilityResponse;
+import com.app.carpolling.dto.SeatHoldConvertRequest;
+import com.app.carpolling.dto.SeatHoldRequest;
+import com.app.carpolling.dto.SeatHoldResponse;
+import com.app.carpolling.entity.Booking;
+import com.app.carpolling.entity.BookingStatus;
+import com.app.carpolling.entity.Route;
+import com.app.carpolling.entity.Trip;
+import com.app.carpolling.entity.User;
+import com.app.carpolling.entity.UserRole;
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.exception.ErrorCode;
+import com.app.carpolling.inventory.SeatInventory;
+import com.app.carpolling.repository.BookingRepository;
+import com.app.carpolling.repository.DriverRepository;
+import com.app.carpolling.repository.UserRepository;
+import com.app.carpolling.repository.VehicleRepository;
+import com.app.carpolling.support.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Seat holds keep their seats from bookings and from seat availability without writing a
+ * booking, end by conversion into a booking, release or expiry, and are capped per user.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SeatHoldTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private RouteService routeService;
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SeatHoldService seatHoldService;
+
+    @Autowired
+    private SeatInventory seatInventory;
+
+    private String[] cities;
+    private Trip trip;
+    private User passenger;
+    private User other;
+
+    @BeforeEach
+    void setUp() {
+        TestDataFactory factory = new TestDataFactory(
+            userRepository, driverRepository, vehicleRepository, routeService, tripService);
+        String suffix = String.valueOf(TestDataFactory.nextId());
+        cities = new String[]{"Vellore" + suffix, "Arcot" + suffix, "Kanchipuram" + suffix};
+        Route route = factory.route(factory.driver(), 120.0, cities);
+        trip = factory.trip(route, factory.vehicle(factory.driver(), 4), LocalDateTime.now().plusDays(1));
+        passenger = factory.user(UserRole.PASSENGER);
+        other = factory.user(UserRole.PASSENGER);
+    }
+
+    @Test
+    void heldSeatsAreTakenUntilTheHoldBecomesABooking() {
+        SeatHoldResponse hold = seatHoldService.hold(holdRequest(passenger, null, 2));
+        assertEquals(List.of("S1", "S2"), hold.getSeatNumbers());
+        assertTrue(bookingRepository.findByTripIdAndStatus(trip.getId(), BookingStatus.PENDING).isEmpty());
+        assertEquals(2, available().getAvailableSeats());
+
+        // Still held after the seat map is reloaded from the database
+        seatInventory.invalidate(trip.getId());
+        BaseException taken = assertThrows(BaseException.class, () -> book(other, List.of("S1")));
+        assertEquals(ErrorCode.SEAT_ALREADY_BOOKED, taken.getErrorCode());
+
+        BaseException notTheirs = assertThrows(BaseException.class,
+            () -> seatHoldService.convert(hold.getHoldId(), new SeatHoldConvertRequest(other.getId(), "Other", null)));
+        assertEquals(ErrorCode.SEAT_HOLD_NOT_FOUND, notTheirs.getErrorCode());
+
+        Booking booking = seatHoldService.convert(hold.getHoldId(),
+            new SeatHoldConvertRequest(passenger.getId(), "Passenger", "9000000000"));
+        assertEquals(List.of("S1", "S2"), booking.getSeatNumbers());
+        assertEquals(BookingStatus.PENDING, booking.getStatus());
+        assertEquals(2, available().getAvailableSeats());
+
+        BaseException used = assertThrows(BaseException.class,
+            () -> seatHoldService.convert(hold.getHoldId(), new SeatHoldConvertRequest(passenger.getId(), null, null)));
+        assertEquals(ErrorCode.SEAT_HOLD_NOT_FOUND, used.getErrorCode());
+    }
+
+    @Test
+    void releasedAndExpiredHoldsFreeTheirSeats() {
+        SeatHoldResponse released = seatHoldService.hold(holdRequest(passenger, List.of("S3"), null));
+        assertThrows(BaseException.class, () -> seatHoldService.release(released.getHoldId(), other.getId()));
+        seatHoldService.release(released.getHoldId(), passenger.getId());
+        assertEquals(List.of("S3"), book(other, List.of("S3")).getSeatNumbers());
+
+        SeatHoldResponse expiring = seatHoldService.hold(holdRequest(passenger, List.of("S4"), null));
+        SeatHoldResponse extended = seatHoldService.extend(expiring.getHoldId(), passenger.getId(), 300);
+        assertTrue(extended.getExpiresAt().isAfter(expiring.getExpiresAt()));
+        assertEquals(2, available().getAvailableSeats());
+
+        assertTrue(seatInventory.expireHolds(LocalDateTime.now().plusMinutes(10)) >= 1);
+        BaseException gone = assertThrows(BaseException.class,
+            () -> seatHoldService.extend(expiring.getHoldId(), passenger.getId(), 60));
+        assertEquals(ErrorCode.SEAT_HOLD_NOT_FOUND, gone.getErrorCode());
+        assertEquals(List.of("S4"), book(other, List.of("S4")).getSeatNumbers());
+    }
+
+    @Test
+    void oneUserCannotHoldMoreThanTheCap() {
+        ReflectionTestUtils.setField(seatHoldService, "maxSeatsPerUser", 3);
+        try {
+            SeatHoldResponse first = seatHoldService.hold(holdRequest(passenger, null, 2));
+            BaseException over = assertThrows(BaseException.class,
+                () -> seatHoldService.hold(holdRequest(passenger, List.of("S3", "S4"), null)));
+            assertEquals(ErrorCode.TOO_MANY_REQUESTS, over.getErrorCode());
+
+            // The rejected hold claimed nothing; other users still get the seats
+            assertEquals(List.of("S3", "S4"), seatHoldService.hold(holdRequest(other, List.of("S3", "S4"), null))
+                .getSeatNumbers());
+
+            seatHoldService.release(first.getHoldId(), passenger.getId());
+            assertEquals(List.of("S1", "S2"), seatHoldService.hold(holdRequest(passenger, null, 2)).getSeatNumbers());
+        } finally {
+            ReflectionTestUtils.setField(seatHoldService, "maxSeatsPerUser", 6);
+        }
+    }
+
+    private SeatAvailabilityResponse available() {
+        return tripService.getSeatAvailability(trip.getId(), cities[0], cities[2]);
+    }
+
+    private SeatHoldRequest holdRequest(User user, List<String> seatNumbers, Integer numberOfSeats) {
+        return new SeatHoldRequest(user.getId(), trip.getId(), cities[0], "Central", cities[2], "Central",
+            seatNumbers, numberOfSeats, 60);
+    }
+
+    private Booking book(User user, List<String> seatNumbers) {
+        return bookingService.createBooking(BookingRequest.builder()
+            .userId(user.getId())
+            .tripId(trip.getId())
+            .boardingCity(cities[0]).boardingSubLocation("Central")
+            .dropCity(cities[2]).dropSubLocation("Central")
+            .seatNumbers(seatNumbers)
+            .passengerNames("Passenger").passengerContacts("9000000000")
+            .build());
+    }
+}
@@ -0,0 +1,124 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.dto.TripSearchPage;
+import com.app.carpolling.dto.TripSearchPageRequest;
+import com.app.carpolling.dto.TripSearchResponse;
+import com.app.carpolling.entity.Driver;
+import com.app.carpolling.entity.Route;
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.repository.DriverRepository;
+import com.app.carpolling.repository.UserRepository;
+import com.app.carpolling.repository.VehicleRepository;
+import com.app.carpolling.support.TestDataFactory;
+import com.app.carpolling.utils.SearchCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyset pagination of searchTripsPage: following the cursor visits every departure across
+ * several days exactly once and in departure order, including trips sharing a departure time, and
+ * a cursor never widens the window past search.page.max-days.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TripSearchPageTests {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DriverRepository driverRepository;
+    
+    @Autowired
+    private VehicleRepository vehicleRepository;
+    
+    @Autowired
+    private RouteService routeService;
+    
+    @Autowired
+    private TripService tripService;
+    
+    private TestDataFactory factory;
+    
+    @BeforeEach
+    void setUp() {
+        factory = new TestDataFactory(userRepository, driverRepository, vehicleRepository, routeService, tripService);
+    }
+    
+    @Test
+    void cursorWalksAllDeparturesOnce() {
+        String suffix = String.valueOf(TestDataFactory.nextId());
+        String boarding = "Mysore" + suffix;
+        String drop = "Coorg" + suffix;
+        Driver driver = factory.driver();
+        Route route = factory.route(driver, 300.0, boarding, drop);
+        
+        // 3 days x 4 departures, two of them at the same minute each day
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(6).withMinute(0).withSecond(0).withNano(0);
+        List<Long> expected = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            for (int slot : new int[]{0, 0, 90, 180}) {
+                expected.add(factory.trip(route, factory.vehicle(factory.driver(), 4),
+                    start.plusDays(day).plusMinutes(slot)).getId());
+            }
+        }
+        
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TripSearchPageRequest request = new TripSearchPageRequest(boarding, drop, start, 1, 5, cursor);
+            TripSearchPage page = tripService.searchTripsPage(request);
+            page.getTrips().stream().map(TripSearchResponse::getTripId).forEach(seen::add);
+            assertTrue(page.getTrips().size() <= 5);
+            cursor = page.getNextCursor();
+            pages++;
+            if (!page.isHasMore()) {
+                assertNull(cursor);
+            }
+        } while (cursor != null && pages < 10);
+        
+        assertEquals(expected, seen);
+        assertEquals(3, pages);
+    }
+    
+    @Test
+    void handMadeCursorCannotWidenTheWindow() {
+        String suffix = String.valueOf(TestDataFactory.nextId());
+        String boarding = "Hassan" + suffix;
+        String drop = "Sakleshpur" + suffix;
+        Route route = factory.route(factory.driver(), 150.0, boarding, drop);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withHour(6).withMinute(0).withSecond(0).withNano(0);
+        Long inWindow = factory.trip(route, factory.vehicle(factory.driver(), 4), start.plusDays(1)).getId();
+        factory.trip(route, factory.vehicle(factory.driver(), 4), start.plusDays(5));
+        
+        ReflectionTestUtils.setField(tripService, "maxSearchDays", 3);
+        try {
+            String cursor = new SearchCursor(start, 0L, start.plusYears(1)).encode();
+            TripSearchPage page = tripService.searchTripsPage(new TripSearchPageRequest(boarding, drop, null, 1, 5, cursor));
+            assertEquals(List.of(inWindow), page.getTrips().stream().map(TripSearchResponse::getTripId).toList());
+            assertNull(page.getNextCursor());
+        } finally {
+            ReflectionTestUtils.setField(tripService, "maxSearchDays", 30);
+        }
+    }
+    
+    @Test
+    void rejectsTamperedCursor() {
+        TripSearchPageRequest request = new TripSearchPageRequest("A", "B", null, 1, 5, "not-a-cursor");
+        assertThrows(BaseException.class, () -> tripService.searchTripsPage(request));
+    }
+}
@@ -0,0 +1,130 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.dto.BatchTripSearchResult;
+import com.app.carpolling.dto.TripSearchRequest;
+import com.app.carpolling.dto.TripSearchResponse;
+import com.app.carpolling.entity.Driver;
+import com.app.carpolling.entity.Route;
+import com.app.carpolling.entity.Vehicle;
+import com.app.carpolling.repository.DriverRepository;
+import com.app.carpolling.repository.UserRepository;
+import com.app.carpolling.repository.VehicleRepository;
+import com.app.carpolling.support.CountingStatementInspector;
+import com.app.carpolling.support.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Regression test for the trip search read path: the number of SQL statements issued by
+ * searchTrips must not depend on how many trips match, nor that of searchTripsBatch on how many
+ * corridors are searched (only on how many distinct days).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TripSearchQueryCountTests {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DriverRepository driverRepository;
+    
+    @Autowired
+    private VehicleRepository vehicleRepository;
+    
+    @Autowired
+    private RouteService routeService;
+    
+    @Autowired
+    private TripService tripService;
+    
+    private TestDataFactory factory;
+    
+    @BeforeEach
+    void setUp() {
+        factory = new TestDataFactory(userRepository, driverRepository, vehicleRepository, routeService, tripService);
+    }
+    
+    @Test
+    void statementCountStaysConstantAsTripsGrow() {
+        LocalDate travelDate = LocalDate.now().plusDays(3);
+        
+        TripSearchRequest small = corridorWithTrips(travelDate, 1);
+        TripSearchRequest large = corridorWithTrips(travelDate, 40);
+        
+        int smallStatements = countStatements(small, 1);
+        int largeStatements = countStatements(large, 40);
+        
+        assertEquals(smallStatements, largeStatements,
+            "searchTrips issued more statements for 40 trips than for 1 trip");
+    }
+    
+    @Test
+    void batchStatementCountStaysConstantAsSearchesGrow() {
+        LocalDate travelDate = LocalDate.now().plusDays(4);
+        List<TripSearchRequest> searches = List.of(
+            corridorWithTrips(travelDate, 2),
+            corridorWithTrips(travelDate, 3),
+            corridorWithTrips(travelDate.plusDays(1), 1),
+            new TripSearchRequest("Nowhere", "Elsewhere", travelDate, 1)
+        );
+        
+        // Same trips as one search per corridor; this also loads the price matrices
+        List<List<Long>> expected = searches.stream().map(this::tripIds).toList();
+        
+        // One search per distinct day
+        CountingStatementInspector.reset();
+        tripService.searchTripsBatch(List.of(searches.get(0), searches.get(2)));
+        int perDayStatements = CountingStatementInspector.count();
+        
+        CountingStatementInspector.reset();
+        List<BatchTripSearchResult> results = tripService.searchTripsBatch(searches);
+        int batchStatements = CountingStatementInspector.count();
+        
+        assertEquals(perDayStatements, batchStatements,
+            "searchTripsBatch issued more statements for 4 searches than for 2 on the same days");
+        for (int i = 0; i < searches.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals(expected.get(i),
+                results.get(i).getTrips().stream().map(TripSearchResponse::getTripId).toList());
+        }
+    }
+    
+    private List<Long> tripIds(TripSearchRequest request) {
+        return tripService.searchTrips(request).stream().map(TripSearchResponse::getTripId).toList();
+    }
+    
+    private TripSearchRequest corridorWithTrips(LocalDate travelDate, int tripCount) {
+        String suffix = String.valueOf(TestDataFactory.nextId());
+        String boarding = "Bangalore" + suffix;
+        String via = "Hosur" + suffix;
+        String drop = "Chennai" + suffix;
+        
+        Driver driver = factory.driver();
+        Route route = factory.route(driver, 500.0, boarding, via, drop);
+        for (int i = 0; i < tripCount; i++) {
+            // Each trip gets its own driver and vehicle so nothing is shared between rows
+            Driver tripDriver = factory.driver();
+            Vehicle vehicle = factory.vehicle(tripDriver, 4);
+            factory.trip(route, vehicle, travelDate.atTime(5, 0).plusMinutes(i * 15L));
+        }
+        return new TripSearchRequest(via, drop, travelDate, 1);
+    }
+    
+    private int countStatements(TripSearchRequest request, int expectedTrips) {
+        CountingStatementInspector.reset();
+        List<TripSearchResponse> results = tripService.searchTrips(request);
+        int statements = CountingStatementInspector.count();
+        
+        assertEquals(expectedTrips, results.size());
+        return statements;
+    }
+}
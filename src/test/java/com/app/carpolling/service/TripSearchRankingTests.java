@@ -0,0 +1,139 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.dto.TripSearchRequest;
+import com.app.carpolling.dto.TripSearchResponse;
+import com.app.carpolling.entity.Driver;
+import com.app.carpolling.entity.Route;
+import com.app.carpolling.entity.Vehicle;
+import com.app.carpolling.entity.VehicleType;
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.repository.DriverRepository;
+import com.app.carpolling.repository.UserRepository;
+import com.app.carpolling.repository.VehicleRepository;
+import com.app.carpolling.support.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Ranking and filtering of searchTrips: every sort order returns the best trips first, limit
+ * keeps only the top ones (search.results.max-size bounds every search, with or without a
+ * limit), and the AC, vehicle type, rating and departure window filters apply.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TripSearchRankingTests {
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private DriverRepository driverRepository;
+    
+    @Autowired
+    private VehicleRepository vehicleRepository;
+    
+    @Autowired
+    private RouteService routeService;
+    
+    @Autowired
+    private TripService tripService;
+    
+    private TestDataFactory factory;
+    private String boarding;
+    private String drop;
+    private LocalDateTime day;
+    private Long direct0700;
+    private Long via0600;
+    private Long direct0900;
+    private Long via1200;
+    
+    @BeforeEach
+    void setUp() {
+        factory = new TestDataFactory(userRepository, driverRepository, vehicleRepository, routeService, tripService);
+        String suffix = String.valueOf(TestDataFactory.nextId());
+        boarding = "Udupi" + suffix;
+        drop = "Karwar" + suffix;
+        day = LocalDateTime.now().plusDays(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
+        
+        // Direct: 60 minutes for 300; via Kumta: 120 minutes for 200
+        Route direct = factory.route(factory.driver(), 300.0, boarding, drop);
+        Route via = factory.route(factory.driver(), 200.0, boarding, "Kumta" + suffix, drop);
+        direct0700 = factory.trip(direct, vehicle(4.0, true, VehicleType.MUV), day.withHour(7)).getId();
+        via0600 = factory.trip(via, vehicle(4.8, false, VehicleType.SEDAN), day.withHour(6)).getId();
+        direct0900 = factory.trip(direct, vehicle(3.5, true, VehicleType.MUV), day.withHour(9)).getId();
+        via1200 = factory.trip(via, vehicle(4.5, true, VehicleType.MUV), day.withHour(12)).getId();
+    }
+    
+    @Test
+    void ranksBySortOrderAndKeepsTopK() {
+        assertEquals(List.of(via0600, direct0700, direct0900, via1200), search(request("EARLIEST", null)));
+        assertEquals(List.of(via0600, via1200), search(request("CHEAPEST", 2)));
+        assertEquals(List.of(direct0700, direct0900, via0600), search(request("FASTEST", 3)));
+        assertEquals(List.of(via0600, via1200, direct0700, direct0900), search(request("best_rated", null)));
+        assertThrows(BaseException.class, () -> tripService.searchTrips(request("SHORTEST", null)));
+    }
+    
+    @Test
+    void capsEverySearchAtTheMaxSize() {
+        ReflectionTestUtils.setField(tripService, "maxSearchResults", 2);
+        try {
+            assertEquals(List.of(via0600, direct0700), search(request(null, null)));
+            assertEquals(List.of(via0600, direct0700), search(request(null, 10)));
+            assertEquals(List.of(via0600), search(request(null, 1)));
+        } finally {
+            ReflectionTestUtils.setField(tripService, "maxSearchResults", 100);
+        }
+    }
+    
+    @Test
+    void appliesFilters() {
+        TripSearchRequest ac = request(null, null);
+        ac.setHasAc(true);
+        assertEquals(List.of(direct0700, direct0900, via1200), search(ac));
+        
+        TripSearchRequest sedan = request(null, null);
+        sedan.setVehicleTypes(List.of(VehicleType.SEDAN));
+        assertEquals(List.of(via0600), search(sedan));
+        
+        TripSearchRequest rated = request("CHEAPEST", null);
+        rated.setMinRating(4.2);
+        assertEquals(List.of(via0600, via1200), search(rated));
+        
+        TripSearchRequest window = request(null, null);
+        window.setDepartureFrom(LocalTime.of(6, 30));
+        window.setDepartureTo(LocalTime.of(9, 0));
+        assertEquals(List.of(direct0700, direct0900), search(window));
+    }
+    
+    private Vehicle vehicle(double rating, boolean hasAc, VehicleType type) {
+        Driver driver = factory.driver();
+        driver.setRating(rating);
+        driverRepository.save(driver);
+        Vehicle vehicle = factory.vehicle(driver, 4);
+        vehicle.setHasAc(hasAc);
+        vehicle.setVehicleType(type);
+        return vehicleRepository.save(vehicle);
+    }
+    
+    private TripSearchRequest request(String sortBy, Integer limit) {
+        TripSearchRequest request = new TripSearchRequest(boarding, drop, day.toLocalDate(), 1);
+        request.setSortBy(sortBy);
+        request.setLimit(limit);
+        return request;
+    }
+    
+    private List<Long> search(TripSearchRequest request) {
+        return tripService.searchTrips(request).stream().map(TripSearchResponse::getTripId).toList();
+    }
+}
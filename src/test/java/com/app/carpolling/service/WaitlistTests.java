@@ -0,0 +1,193 @@
+package com.app.carpolling.service;
+
+import com.app.carpolling.dto.BookingRequest;
+import com.app.carpolling.dto.BookingResponse;
+import com.app.carpolling.dto.WaitlistRequest;
+import com.app.carpolling.entity.Booking;
+import com.app.carpolling.entity.BookingStatus;
+import com.app.carpolling.entity.Route;
+import com.app.carpolling.entity.Trip;
+import com.app.carpolling.entity.User;
+import com.app.carpolling.entity.UserRole;
+import com.app.carpolling.entity.WaitlistEntry;
+import com.app.carpolling.entity.WaitlistStatus;
+import com.app.carpolling.exception.BaseException;
+import com.app.carpolling.exception.ErrorCode;
+import com.app.carpolling.repository.DriverRepository;
+import com.app.carpolling.repository.UserRepository;
+import com.app.carpolling.repository.VehicleRepository;
+import com.app.carpolling.repository.WaitlistEntryRepository;
+import com.app.carpolling.support.TestDataFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Waiting passengers are promoted in join order into pending bookings once a cancellation
+ * releases seats; a group that does not fit keeps waiting.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WaitlistTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DriverRepository driverRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private WaitlistEntryRepository waitlistEntryRepository;
+
+    @Autowired
+    private RouteService routeService;
+
+    @Autowired
+    private TripService tripService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private WaitlistService waitlistService;
+
+    private String[] cities;
+    private Trip trip;
+    private TestDataFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        factory = new TestDataFactory(
+            userRepository, driverRepository, vehicleRepository, routeService, tripService);
+        String suffix = String.valueOf(TestDataFactory.nextId());
+        cities = new String[]{"Salem" + suffix, "Namakkal" + suffix, "Karur" + suffix};
+        Route route = factory.route(factory.driver(), 150.0, cities);
+        trip = factory.trip(route, factory.vehicle(factory.driver(), 2), LocalDateTime.now().plusDays(2));
+    }
+
+    @Test
+    void releasedSeatsGoToTheFirstWaitingPassengerThatFits() throws Exception {
+        User first = factory.user(UserRole.PASSENGER);
+        User pair = factory.user(UserRole.PASSENGER);
+        User single = factory.user(UserRole.PASSENGER);
+        book(factory.user(UserRole.PASSENGER), List.of("S1"), cities[0], cities[1]);
+        book(factory.user(UserRole.PASSENGER), List.of("S1"), cities[1], cities[2]);
+        Booking whole = book(first, List.of("S2"));
+
+        WaitlistEntry waitingPair = waitlistService.join(waitlistRequest(pair, 2));
+        WaitlistEntry waitingSingle = waitlistService.join(waitlistRequest(single, 1));
+
+        // S1 stays taken on both segments, so one seat is freed for the whole trip
+        bookingService.cancelBooking(whole.getId());
+
+        WaitlistEntry promoted = awaitStatus(waitingSingle.getId(), WaitlistStatus.PROMOTED);
+        List<BookingResponse> bookings = bookingService.getUserBookings(single.getId());
+        assertEquals(1, bookings.size());
+        BookingResponse booking = bookings.get(0);
+        assertEquals(promoted.getBookingId(), booking.getBookingId());
+        assertEquals(BookingStatus.PENDING, booking.getStatus());
+        assertEquals(0, tripService.getSeatAvailability(trip.getId(), cities[0], cities[2]).getAvailableSeats());
+        assertEquals(WaitlistStatus.WAITING, status(waitingPair.getId()));
+    }
+
+    @Test
+    void promotionReadsPastPagesWithNothingThatFits() throws Exception {
+        book(factory.user(UserRole.PASSENGER), List.of("S1"));
+        Booking released = book(factory.user(UserRole.PASSENGER), List.of("S2"));
+        WaitlistEntry firstPair = waitlistService.join(waitlistRequest(factory.user(UserRole.PASSENGER), 2));
+        WaitlistEntry secondPair = waitlistService.join(waitlistRequest(factory.user(UserRole.PASSENGER), 2));
+        WaitlistEntry single = waitlistService.join(waitlistRequest(factory.user(UserRole.PASSENGER), 1));
+
+        // One entry per page: the single is on the third page, after two that do not fit
+        ReflectionTestUtils.setField(waitlistService, "maxScan", 1);
+        try {
+            bookingService.cancelBooking(released.getId());
+            awaitStatus(single.getId(), WaitlistStatus.PROMOTED);
+        } finally {
+            ReflectionTestUtils.setField(waitlistService, "maxScan", 50);
+        }
+        assertEquals(WaitlistStatus.WAITING, status(firstPair.getId()));
+        assertEquals(WaitlistStatus.WAITING, status(secondPair.getId()));
+    }
+
+    @Test
+    void promotesPassengersWhoJoinedOnAnotherInstance() throws Exception {
+        book(factory.user(UserRole.PASSENGER), List.of("S1"));
+        Booking released = book(factory.user(UserRole.PASSENGER), List.of("S2"));
+
+        // Saved directly, as another instance would: this instance never saw the join
+        WaitlistEntry elsewhere = new WaitlistEntry();
+        elsewhere.setTripId(trip.getId());
+        elsewhere.setUserId(factory.user(UserRole.PASSENGER).getId());
+        elsewhere.setBoardingCity(cities[0]);
+        elsewhere.setBoardingSubLocation("Central");
+        elsewhere.setDropCity(cities[2]);
+        elsewhere.setDropSubLocation("Central");
+        elsewhere.setBoardingSequence(1);
+        elsewhere.setDropSequence(3);
+        elsewhere.setNumberOfSeats(1);
+        elsewhere = waitlistEntryRepository.save(elsewhere);
+
+        bookingService.cancelBooking(released.getId());
+        awaitStatus(elsewhere.getId(), WaitlistStatus.PROMOTED);
+    }
+
+    @Test
+    void joiningIsRejectedWhileEnoughSeatsAreFree() {
+        User passenger = factory.user(UserRole.PASSENGER);
+        BaseException free = assertThrows(BaseException.class,
+            () -> waitlistService.join(waitlistRequest(passenger, 2)));
+        assertEquals(ErrorCode.INVALID_REQUEST, free.getErrorCode());
+
+        book(factory.user(UserRole.PASSENGER), List.of("S1"));
+        WaitlistEntry entry = waitlistService.join(waitlistRequest(passenger, 2));
+        assertEquals(WaitlistStatus.CANCELLED, waitlistService.leave(entry.getId(), passenger.getId()).getStatus());
+        assertEquals(1, waitlistService.getUserEntries(passenger.getId()).size());
+    }
+
+    private WaitlistEntry awaitStatus(Long entryId, WaitlistStatus expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (status(entryId) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        WaitlistEntry entry = waitlistEntryRepository.findById(entryId).orElseThrow();
+        assertEquals(expected, entry.getStatus());
+        return entry;
+    }
+
+    private WaitlistStatus status(Long entryId) {
+        return waitlistEntryRepository.findById(entryId).orElseThrow().getStatus();
+    }
+
+    private WaitlistRequest waitlistRequest(User user, int numberOfSeats) {
+        return new WaitlistRequest(user.getId(), trip.getId(), cities[0], "Central", cities[2], "Central",
+            numberOfSeats);
+    }
+
+    private Booking book(User user, List<String> seatNumbers) {
+        return book(user, seatNumbers, cities[0], cities[2]);
+    }
+
+    private Booking book(User user, List<String> seatNumbers, String boarding, String drop) {
+        return bookingService.createBooking(BookingRequest.builder()
+            .userId(user.getId())
+            .tripId(trip.getId())
+            .boardingCity(boarding).boardingSubLocation("Central")
+            .dropCity(drop).dropSubLocation("Central")
+            .seatNumbers(seatNumbers)
+            .passengerNames("Passenger").passengerContacts("9000000000")
+            .build());
+    }
+}
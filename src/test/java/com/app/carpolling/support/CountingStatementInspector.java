@@ -0,0 +1,26 @@
+package com.app.carpolling.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts SQL statements prepared by Hibernate on the current thread.
+ * Registered through hibernate.session_factory.statement_inspector in the test profile.
+ */
+public class CountingStatementInspector implements StatementInspector {
+    
+    private static final ThreadLocal<Integer> COUNT = ThreadLocal.withInitial(() -> 0);
+    
+    @Override
+    public String inspect(String sql) {
+        COUNT.set(COUNT.get() + 1);
+        return sql;
+    }
+    
+    public static void reset() {
+        COUNT.set(0);
+    }
+    
+    public static int count() {
+        return COUNT.get();
+    }
+}
@@ -0,0 +1,111 @@
+package com.app.carpolling.support;
+
+import com.app.carpolling.dto.*;
+import com.app.carpolling.entity.*;
+import com.app.carpolling.repository.DriverRepository;
+import com.app.carpolling.repository.UserRepository;
+import com.app.carpolling.repository.VehicleRepository;
+import com.app.carpolling.service.RouteService;
+import com.app.carpolling.service.TripService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates users, drivers, vehicles, routes and trips through the same services the API uses.
+ * Every generated unique value (phone, licence, registration) comes from one counter so
+ * fixtures from different tests never collide in the shared in-memory database.
+ */
+public class TestDataFactory {
+    
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    
+    private final UserRepository userRepository;
+    private final DriverRepository driverRepository;
+    private final VehicleRepository vehicleRepository;
+    private final RouteService routeService;
+    private final TripService tripService;
+    
+    public TestDataFactory(UserRepository userRepository, DriverRepository driverRepository,
+                           VehicleRepository vehicleRepository, RouteService routeService,
+                           TripService tripService) {
+        this.userRepository = userRepository;
+        this.driverRepository = driverRepository;
+        this.vehicleRepository = vehicleRepository;
+        this.routeService = routeService;
+        this.tripService = tripService;
+    }
+    
+    public static int nextId() {
+        return SEQUENCE.incrementAndGet();
+    }
+    
+    public User user(UserRole role) {
+        int id = nextId();
+        User user = new User();
+        user.setName("User " + id);
+        user.setPhone(String.format("9%09d", id));
+        user.setPassword("secret");
+        user.setRole(role);
+        user.setIsActive(true);
+        return userRepository.save(user);
+    }
+    
+    public Driver driver() {
+        Driver driver = new Driver();
+        driver.setUser(user(UserRole.DRIVER));
+        driver.setLicenseNumber("LIC" + nextId());
+        driver.setLicenseExpiryDate("2035-12-31");
+        driver.setExperienceYears(5);
+        driver.setIsVerified(true);
+        driver.setRating(4.5);
+        return driverRepository.save(driver);
+    }
+    
+    public Vehicle vehicle(Driver driver, int passengerSeats) {
+        Vehicle vehicle = new Vehicle();
+        vehicle.setDriver(driver);
+        vehicle.setRegistrationNumber("KA01" + nextId());
+        vehicle.setBrand("Maruti");
+        vehicle.setModel("Ertiga");
+        vehicle.setColor("White");
+        vehicle.setManufacturingYear(2022);
+        vehicle.setVehicleType(VehicleType.MUV);
+        vehicle.setTotalSeats(passengerSeats + 1);
+        vehicle.setPassengerSeats(passengerSeats);
+        vehicle.setHasAc(true);
+        vehicle.setIsActive(true);
+        return vehicleRepository.save(vehicle);
+    }
+    
+    /**
+     * Route visiting the given cities in order, one stop per city, 50 km and 60 minutes apart,
+     * with a flat price configured for every boarding/drop city pair
+     */
+    public Route route(Driver driver, double price, String... cities) {
+        List<CityRouteDto> cityDtos = new ArrayList<>();
+        for (int i = 0; i < cities.length; i++) {
+            StopPointDto point = new StopPointDto(
+                "Central", cities[i] + " central stop", 12.0 + i, 77.0 + i, i * 50_000, i * 60);
+            cityDtos.add(new CityRouteDto(cities[i], List.of(point), i + 1, true, true));
+        }
+        Route route = routeService.createRoute(new RouteCreationRequest(
+            driver.getId(), String.join(" - ", cities), cities.length * 50.0, (cities.length - 1) * 60, cityDtos));
+        
+        List<RoutePriceDto> prices = new ArrayList<>();
+        for (int i = 0; i < cities.length; i++) {
+            for (int j = i + 1; j < cities.length; j++) {
+                prices.add(new RoutePriceDto(cities[i], cities[j], price));
+            }
+        }
+        routeService.setRoutePrices(new SetRoutePricesRequest(route.getId(), prices));
+        return route;
+    }
+    
+    public Trip trip(Route route, Vehicle vehicle, LocalDateTime departureTime) {
+        return tripService.createTrip(new TripCreationRequest(
+            route.getId(), vehicle.getId(), vehicle.getDriver().getId(), departureTime, null));
+    }
+}